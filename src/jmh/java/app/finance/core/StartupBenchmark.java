@@ -0,0 +1,48 @@
+package app.finance.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a cold start of the application, from main to serving requests on a free port, with the
+ * component scan and auto-configuration and with startup.fast=true.  Each fork starts the application once
+ * in a new JVM, so classes are loaded and nothing is warm; the JVM's own start is not included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark
+{
+    @Param({"true", "false"})
+    private boolean fastStartup;
+
+    private ConfigurableApplicationContext context;
+
+    @Benchmark
+    public ConfigurableApplicationContext start()
+    {
+        context = Application.run("--startup.fast=" + fastStartup, "--server.port=0", "--spring.main.banner-mode=off");
+        return context;
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop()
+    {
+        context.close();
+    }
+}
@@ -0,0 +1,101 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.model.Payment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a whole amortization schedule, through {@link AmortizationService#calculatePaymentList},
+ * {@link AmortizationService#calculateSchedule} and end-to-end through {@link AmortizationService#initializeUnknownFields} as a form submission would.
+ * The schedule cache is disabled so every invocation calculates; see {@link ScheduleCacheBenchmark} for cache hits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AmortizationServiceBenchmark
+{
+    @Param({"12", "120", "360", "480"})
+    private int durationInMonths;
+
+    @Param({"0", "1"})
+    private int paymentType;
+
+    @Param({"0", "4.25"})
+    private double interestRate;
+
+    @Param({"CLOSED_FORM", "RECURRENCE", "EXACT_CENTS"})
+    private AmortizationEngine engine;
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+    private LocalDate startDate;
+
+    @Setup
+    public void setUp()
+    {
+        context = createContext(0);
+        amortizationService = context.getBean(AmortizationService.class);
+        startDate = LocalDate.now();
+    }
+
+    static AnnotationConfigApplicationContext createContext(int cacheMaxEntries)
+    {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Collections.<String, Object>singletonMap("schedule.cache.maxEntries", String.valueOf(cacheMaxEntries))));
+        context.register(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class, ScheduleCache.class, AmortizationService.class);
+        context.refresh();
+        return context;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Payment> calculatePaymentList()
+    {
+        return amortizationService.calculatePaymentList(startDate, 300000, durationInMonths, paymentType, interestRate, 0, engine);
+    }
+
+    @Benchmark
+    public AmortizationSchedule calculateSchedule()
+    {
+        return amortizationService.calculateSchedule(startDate, 300000, durationInMonths, paymentType, interestRate, 0, engine);
+    }
+
+    @Benchmark
+    public MonthlyAmortizationSchedule initializeUnknownFields()
+    {
+        // a new schedule per invocation, as data binding would create for each request.
+        MonthlyAmortizationSchedule monthlyAmortizationSchedule = new MonthlyAmortizationSchedule();
+        monthlyAmortizationSchedule.setStartDate(startDate);
+        monthlyAmortizationSchedule.setInitialBalance(300000);
+        monthlyAmortizationSchedule.setInterestRate(interestRate);
+        monthlyAmortizationSchedule.setDurationInMonths(durationInMonths);
+        monthlyAmortizationSchedule.setFutureValue(0);
+        monthlyAmortizationSchedule.setPaymentType(paymentType);
+        monthlyAmortizationSchedule.setEngine(engine);
+        amortizationService.initializeUnknownFields(monthlyAmortizationSchedule);
+        return monthlyAmortizationSchedule;
+    }
+}
@@ -0,0 +1,72 @@
+package app.finance.core.service;
+
+import app.finance.core.model.ArmSummary;
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.PeriodValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a 5/1 adjustable rate loan: its closed form summary and a balance late in the loan, which cost one
+ * evaluation per rate segment, against calculating every payment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ArmBenchmark
+{
+    private static final LocalDate START_DATE = LocalDate.of(2016, 1, 1);
+
+    @Param({"360", "1200"})
+    private int durationInMonths;
+
+    private AnnotationConfigApplicationContext context;
+    private ArmService armService;
+    private ArmTerms terms;
+
+    @Setup
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class, ArmService.class);
+        armService = context.getBean(ArmService.class);
+        terms = new ArmTerms();
+        terms.setMargin(2.75);
+        terms.setIndexRates(new double[]{2.5, 3.5, 4.5, 3.0});
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public ArmSummary summary()
+    {
+        return armService.summarize(START_DATE, 300000, durationInMonths, 0, 3.5, 0, terms, false);
+    }
+
+    @Benchmark
+    public PeriodValue balanceAt()
+    {
+        return armService.balanceAt(300000, durationInMonths, 0, 3.5, 0, terms, durationInMonths - 7);
+    }
+
+    @Benchmark
+    public ArmSummary schedule()
+    {
+        return armService.summarize(START_DATE, 300000, durationInMonths, 0, 3.5, 0, terms, true);
+    }
+}
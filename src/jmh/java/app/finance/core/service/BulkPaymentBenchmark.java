@@ -0,0 +1,69 @@
+package app.finance.core.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bulk {@link PaymentService#pmt(double[], int[], double[], double, int, double[])} with
+ * calling the scalar form per element, over a rate sheet style grid of rates, terms and principals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkPaymentBenchmark
+{
+    @Param({"1024", "65536"})
+    private int size;
+
+    @Param({"0", "1"})
+    private int paymentType;
+
+    private PaymentService paymentService;
+    private double[] r;
+    private int[] nper;
+    private double[] pv;
+    private double[] out;
+
+    @Setup
+    public void setUp()
+    {
+        paymentService = new PaymentService();
+        r = new double[size];
+        nper = new int[size];
+        pv = new double[size];
+        out = new double[size];
+
+        // 5.000%..8.000% by 0.125%, 10..40 year terms, 100k..1M principals.
+        int[] terms = {120, 180, 240, 360, 480};
+        for (int i = 0; i < size; i++)
+        {
+            r[i] = paymentService.getMonthlyInterestRate(5 + 0.125 * (i % 25));
+            nper[i] = terms[(i / 25) % terms.length];
+            pv[i] = 100000 + 1000 * (i % 901);
+        }
+    }
+
+    @Benchmark
+    public double[] scalar()
+    {
+        for (int i = 0; i < size; i++)
+        {
+            out[i] = paymentService.pmt(r[i], nper[i], pv[i], 0, paymentType);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] bulk()
+    {
+        paymentService.pmt(r, nper, pv, 0, paymentType, out);
+        return out;
+    }
+}
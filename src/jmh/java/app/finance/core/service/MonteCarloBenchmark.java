@@ -0,0 +1,67 @@
+package app.finance.core.service;
+
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.SimulationResult;
+import app.finance.core.model.SimulationTerms;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures simulating 10,000 paths of a 5/1 adjustable rate loan on fork-join pools of one thread and of one
+ * per available processor.  Throughput per thread should stay about the same, so the second should take the
+ * first's time divided by the number of processors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MonteCarloBenchmark
+{
+    @Param({"1", "0"})
+    private int parallelism;
+
+    @Param({"360"})
+    private int durationInMonths;
+
+    private AnnotationConfigApplicationContext context;
+    private RateSimulationService rateSimulationService;
+    private ForkJoinPool pool;
+    private ArmTerms terms;
+    private SimulationTerms simulation;
+
+    @Setup
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                RateSimulationService.class);
+        rateSimulationService = context.getBean(RateSimulationService.class);
+        pool = new ForkJoinPool((parallelism == 0) ? Runtime.getRuntime().availableProcessors() : parallelism);
+        terms = new ArmTerms();
+        terms.setMargin(2.75);
+        simulation = new SimulationTerms();
+        simulation.setSeed(42L);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        pool.shutdown();
+        context.close();
+    }
+
+    @Benchmark
+    public SimulationResult simulate()
+    {
+        return rateSimulationService.simulate(300000, durationInMonths, 0, 3.5, 0, terms, simulation, pool);
+    }
+}
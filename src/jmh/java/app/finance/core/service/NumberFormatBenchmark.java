@@ -0,0 +1,91 @@
+package app.finance.core.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formats currency amounts with a NumberFormat shared under a lock, a NumberFormat per thread, and the
+ * shared {@link NumberWriter} of {@link PaymentService}, on one thread.  {@link NumberFormatContentionBenchmark}
+ * runs the same methods on every available core; a writer that scales linearly takes the same time per
+ * operation in both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Threads(1)
+public class NumberFormatBenchmark
+{
+    private static final int AMOUNTS = 1024;
+
+    private final NumberFormat sharedFormat = newCurrencyFormat();
+    private final ThreadLocal<NumberFormat> threadFormats = ThreadLocal.withInitial(NumberFormatBenchmark::newCurrencyFormat);
+    private final NumberWriter writer = NumberWriter.currency(Locale.US, 2, 2);
+    private PaymentService paymentService;
+    private double[] amounts;
+
+    @State(Scope.Thread)
+    public static class ThreadState
+    {
+        final StringBuilder buffer = new StringBuilder(32);
+        int next;
+    }
+
+    @Setup
+    public void setUp()
+    {
+        paymentService = new PaymentService();
+        amounts = new double[AMOUNTS];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < AMOUNTS; i++)
+        {
+            amounts[i] = random.nextDouble() * 1000000;
+        }
+    }
+
+    @Benchmark
+    public String lockedNumberFormat(ThreadState state)
+    {
+        double amount = amounts[state.next++ & (AMOUNTS - 1)];
+        synchronized (sharedFormat)
+        {
+            return sharedFormat.format(amount);
+        }
+    }
+
+    @Benchmark
+    public String threadLocalNumberFormat(ThreadState state)
+    {
+        return threadFormats.get().format(amounts[state.next++ & (AMOUNTS - 1)]);
+    }
+
+    @Benchmark
+    public String formatCurrency(ThreadState state)
+    {
+        return paymentService.formatCurrency(amounts[state.next++ & (AMOUNTS - 1)]);
+    }
+
+    @Benchmark
+    public int writerIntoBuffer(ThreadState state)
+    {
+        state.buffer.setLength(0);
+        return writer.append(amounts[state.next++ & (AMOUNTS - 1)], state.buffer).length();
+    }
+
+    private static NumberFormat newCurrencyFormat()
+    {
+        NumberFormat format = NumberFormat.getCurrencyInstance(Locale.US);
+        format.setMinimumFractionDigits(2);
+        format.setMaximumFractionDigits(2);
+        return format;
+    }
+}
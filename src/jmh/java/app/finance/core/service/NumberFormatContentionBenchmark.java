@@ -0,0 +1,11 @@
+package app.finance.core.service;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * {@link NumberFormatBenchmark} with one thread per available core.
+ */
+@Threads(Threads.MAX)
+public class NumberFormatContentionBenchmark extends NumberFormatBenchmark
+{
+}
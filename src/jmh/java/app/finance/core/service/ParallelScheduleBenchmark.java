@@ -0,0 +1,67 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationColumns;
+import app.finance.core.model.AmortizationEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures calculating the columns of very long schedules in one pass (threshold 0) against parallel segments
+ * on the common fork-join pool, whose speedup is bounded by the available processors.  On a single processor
+ * both run in one pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelScheduleBenchmark
+{
+    @Param({"1200", "12000", "120000"})
+    private int durationInMonths;
+
+    @Param({"CLOSED_FORM", "RECURRENCE"})
+    private AmortizationEngine engine;
+
+    @Param({"0", "1200"})
+    private int parallelThreshold;
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+
+    @Setup
+    public void setUp()
+    {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("schedule.cache.maxEntries", "0");
+        properties.put("schedule.parallel.threshold", String.valueOf(parallelThreshold));
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class, ScheduleCache.class, AmortizationService.class);
+        context.refresh();
+        amortizationService = context.getBean(AmortizationService.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public AmortizationColumns calculateColumns()
+    {
+        return amortizationService.calculateColumns(300000, durationInMonths, 0, 1.5, 0, engine);
+    }
+}
@@ -0,0 +1,75 @@
+package app.finance.core.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the closed form payment functions of {@link PaymentService}, with and without its
+ * {@link CompoundingFactorTable}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PaymentServiceBenchmark
+{
+    @Param({"12", "120", "360", "480"})
+    private int durationInMonths;
+
+    @Param({"0", "1"})
+    private int paymentType;
+
+    @Param({"0", "4.25"})
+    private double interestRate;
+
+    @Param({"0", "256"})
+    private int factorTableMaxRates;
+
+    private PaymentService paymentService;
+    private double r;
+    private double pv;
+    private double fv;
+    private double c;
+    private int per;
+
+    @Setup
+    public void setUp()
+    {
+        paymentService = new PaymentService(new CompoundingFactorTable(factorTableMaxRates, 1200, 4194304));
+        r = paymentService.getMonthlyInterestRate(interestRate);
+        pv = 300000;
+        fv = 0;
+        c = paymentService.pmt(r, durationInMonths, pv, fv, paymentType);
+        per = (durationInMonths + 1) / 2;
+    }
+
+    @Benchmark
+    public double pmt()
+    {
+        return paymentService.pmt(r, durationInMonths, pv, fv, paymentType);
+    }
+
+    @Benchmark
+    public double fv()
+    {
+        return paymentService.fv(r, per, c, pv, paymentType);
+    }
+
+    @Benchmark
+    public double ipmt()
+    {
+        return paymentService.ipmt(r, per, durationInMonths, pv, fv, paymentType);
+    }
+
+    @Benchmark
+    public double ppmt()
+    {
+        return paymentService.ppmt(r, per, durationInMonths, pv, fv, paymentType);
+    }
+}
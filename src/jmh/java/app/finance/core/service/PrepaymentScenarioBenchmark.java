@@ -0,0 +1,94 @@
+package app.finance.core.service;
+
+import app.finance.core.model.ExtraPayment;
+import app.finance.core.model.LoanParameters;
+import app.finance.core.model.PrepaymentScenario;
+import app.finance.core.model.ScenarioResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures evaluating 20 extra payment scenarios of a 30 year loan, which first pay extra at a given period,
+ * from their first extra payment on the shared regular schedule against recalculating each from the first
+ * payment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrepaymentScenarioBenchmark
+{
+    @Param({"1", "24", "180"})
+    private int firstExtraPeriod;
+
+    private AnnotationConfigApplicationContext context;
+    private PrepaymentService prepaymentService;
+    private PrepaymentService.BaseSchedule base;
+    private List<PrepaymentScenario> scenarios;
+
+    @Setup
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class, PrepaymentService.class);
+        prepaymentService = context.getBean(PrepaymentService.class);
+
+        LoanParameters loan = new LoanParameters();
+        loan.setStartDate(LocalDate.of(2016, 1, 1));
+        loan.setInitialBalance(300000);
+        loan.setInterestRate(4.25);
+        loan.setDurationInMonths(360);
+        base = prepaymentService.openBase(loan);
+
+        scenarios = new ArrayList<PrepaymentScenario>();
+        for (int i = 1; i <= 20; i++)
+        {
+            ExtraPayment extraPayment = new ExtraPayment();
+            extraPayment.setAmount(25 * i);
+            extraPayment.setStartPeriod(firstExtraPeriod);
+            extraPayment.setIntervalInMonths(1);
+            PrepaymentScenario scenario = new PrepaymentScenario();
+            scenario.setName(String.valueOf(extraPayment.getAmount()));
+            scenario.getExtraPayments().add(extraPayment);
+            scenarios.add(scenario);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public void fromFirstExtraPayment(Blackhole blackhole)
+    {
+        for (PrepaymentScenario scenario : scenarios)
+        {
+            blackhole.consume(prepaymentService.evaluate(base, scenario, prepaymentService.firstExtraPeriod(base, scenario), false));
+        }
+    }
+
+    @Benchmark
+    public void fromFirstPayment(Blackhole blackhole)
+    {
+        for (PrepaymentScenario scenario : scenarios)
+        {
+            ScenarioResult result = prepaymentService.evaluate(base, scenario, 1, false);
+            blackhole.consume(result);
+        }
+    }
+}
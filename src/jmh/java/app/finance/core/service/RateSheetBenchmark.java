@@ -0,0 +1,79 @@
+package app.finance.core.service;
+
+import app.finance.core.model.RateSheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link RateSheetService} with calling pmt() and cumipmt() once per cell, over 5.000%..8.000%
+ * by 0.125% and the given terms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RateSheetBenchmark
+{
+    @Param({"180,360", "120,180,240,300,360,480"})
+    private String durations;
+
+    @Param({"0", "1"})
+    private int paymentType;
+
+    private AnnotationConfigApplicationContext context;
+    private PaymentService paymentService;
+    private RateSheetService rateSheetService;
+    private int[] durationsInMonths;
+
+    @Setup
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class, RateSheetService.class);
+        paymentService = context.getBean(PaymentService.class);
+        rateSheetService = context.getBean(RateSheetService.class);
+
+        String[] values = durations.split(",");
+        durationsInMonths = new int[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            durationsInMonths[i] = Integer.parseInt(values[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public double[][] perCell()
+    {
+        double[][] cells = new double[2 * 25][durationsInMonths.length];
+        for (int i = 0; i < 25; i++)
+        {
+            double r = paymentService.getMonthlyInterestRate(5 + 0.125 * i);
+            for (int j = 0; j < durationsInMonths.length; j++)
+            {
+                cells[2 * i][j] = paymentService.pmt(r, durationsInMonths[j], 300000, 0, paymentType);
+                cells[2 * i + 1][j] = paymentService.cumipmt(r, durationsInMonths[j], 300000, 0, paymentType, 1, durationsInMonths[j]);
+            }
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public RateSheet rateSheet()
+    {
+        return rateSheetService.calculate(300000, 0, paymentType, 5, 8, 0.125, durationsInMonths);
+    }
+}
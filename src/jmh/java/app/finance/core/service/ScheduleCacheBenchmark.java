@@ -0,0 +1,63 @@
+package app.finance.core.service;
+
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AmortizationService#initializeUnknownFields} when the schedule columns are already cached.
+ * Each invocation starts the loan on a different day, as a day's worth of default form submissions would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ScheduleCacheBenchmark
+{
+    @Param({"12", "360", "480"})
+    private int durationInMonths;
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+    private LocalDate startDate;
+    private int dayOffset;
+
+    @Setup
+    public void setUp()
+    {
+        context = AmortizationServiceBenchmark.createContext(1000);
+        amortizationService = context.getBean(AmortizationService.class);
+        startDate = LocalDate.now();
+        initializeUnknownFields();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public MonthlyAmortizationSchedule initializeUnknownFields()
+    {
+        MonthlyAmortizationSchedule monthlyAmortizationSchedule = new MonthlyAmortizationSchedule();
+        dayOffset = (dayOffset + 1) % 365;
+        monthlyAmortizationSchedule.setStartDate(startDate.plusDays(dayOffset));
+        monthlyAmortizationSchedule.setInitialBalance(300000);
+        monthlyAmortizationSchedule.setInterestRate(4.25);
+        monthlyAmortizationSchedule.setDurationInMonths(durationInMonths);
+        monthlyAmortizationSchedule.setFutureValue(0);
+        monthlyAmortizationSchedule.setPaymentType(0);
+        amortizationService.initializeUnknownFields(monthlyAmortizationSchedule);
+        return monthlyAmortizationSchedule;
+    }
+}
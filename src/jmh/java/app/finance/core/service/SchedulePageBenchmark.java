@@ -0,0 +1,80 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.SchedulePage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures calculating one page of 60 payments, first and last, against the whole uncached schedule it is
+ * part of.  A page should cost the same whatever the term, except for the exact cents engine, which steps
+ * through every payment before the page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchedulePageBenchmark
+{
+    private static final LocalDate START_DATE = LocalDate.of(2016, 1, 31);
+    private static final int PAGE_SIZE = 60;
+
+    @Param({"360", "1200", "12000"})
+    private int durationInMonths;
+
+    @Param({"CLOSED_FORM", "RECURRENCE", "EXACT_CENTS"})
+    private AmortizationEngine engine;
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+
+    @Setup
+    public void setUp()
+    {
+        Map<String, Object> properties = new HashMap<String, Object>();
+        properties.put("schedule.cache.maxEntries", "0");
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", properties));
+        context.register(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class, ScheduleCache.class, AmortizationService.class);
+        context.refresh();
+        amortizationService = context.getBean(AmortizationService.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public SchedulePage firstPage()
+    {
+        return amortizationService.getSchedulePage(START_DATE, 300000, durationInMonths, 0, 4.25, 0, engine, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SchedulePage lastPage()
+    {
+        return amortizationService.getSchedulePage(START_DATE, 300000, durationInMonths, 0, 4.25, 0, engine, durationInMonths / PAGE_SIZE - 1, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public AmortizationSchedule wholeSchedule()
+    {
+        return amortizationService.getSchedule(START_DATE, 300000, durationInMonths, 0, 4.25, 0, engine);
+    }
+}
@@ -0,0 +1,83 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.view.ScheduleDialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
+import org.thymeleaf.spring4.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders schedule.html, whose rows are written by the schedule dialect, against schedule-expressions.html,
+ * the same page with six formatting expressions per row, both from cached templates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScheduleRenderBenchmark
+{
+    @Param({"12", "360"})
+    private int durationInMonths;
+
+    private AnnotationConfigApplicationContext context;
+    private SpringTemplateEngine templateEngine;
+    private Context model;
+
+    @Setup
+    public void setUp()
+    {
+        context = AmortizationServiceBenchmark.createContext(0);
+        MonthlyAmortizationSchedule schedule = new MonthlyAmortizationSchedule();
+        schedule.setStartDate(LocalDate.now());
+        schedule.setInitialBalance(300000);
+        schedule.setInterestRate(4.25);
+        schedule.setDurationInMonths(durationInMonths);
+        schedule.setEngine(AmortizationEngine.RECURRENCE);
+        context.getBean(AmortizationService.class).initializeUnknownFields(schedule);
+
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode("HTML5");
+        templateResolver.setCacheable(true);
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.addDialect(new Java8TimeDialect());
+        templateEngine.addDialect(new ScheduleDialect());
+
+        model = new Context(Locale.US);
+        model.setVariable("monthlyAmortizationSchedule", schedule);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Benchmark
+    public String rowWriter()
+    {
+        return templateEngine.process("schedule", model);
+    }
+
+    @Benchmark
+    public String expressions()
+    {
+        return templateEngine.process("schedule-expressions", model);
+    }
+}
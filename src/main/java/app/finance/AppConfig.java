@@ -1,21 +1,21 @@
 package app.finance;
 
+import app.finance.config.BeanGraphConfig;
 import app.finance.config.DispatcherConfig;
-import app.finance.config.ThymeleafConfig;
+import app.finance.config.StartupReport;
 import app.finance.config.WebInitializerConfig;
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 
 /**
- * Application configuration instead of web.xml config.
+ * Application configuration instead of web.xml config: the explicit bean graph and the dispatcher's MVC and
+ * Thymeleaf configuration, loaded once into the single context of {@link WebInitializerConfig}.
  */
 @Configuration
 @EnableWebMvc
-@ComponentScan(basePackages = "app.finance")
-@Import({ WebInitializerConfig.class, DispatcherConfig.class, ThymeleafConfig.class})
+@Import({ BeanGraphConfig.class, DispatcherConfig.class, StartupReport.class})
 public class AppConfig
 {
-    // does nothing but scan and load
+    // does nothing but load
 }
\ No newline at end of file
@@ -0,0 +1,90 @@
+package app.finance.config;
+
+import app.finance.core.controller.ArmController;
+import app.finance.core.controller.BatchController;
+import app.finance.core.controller.CustomErrorController;
+import app.finance.core.controller.LoanQueryController;
+import app.finance.core.controller.MetricsController;
+import app.finance.core.controller.MortgageCalculatorController;
+import app.finance.core.controller.ScenarioController;
+import app.finance.core.controller.ScheduleExportController;
+import app.finance.core.controller.SimulationController;
+import app.finance.core.service.AmortizationService;
+import app.finance.core.service.ArmService;
+import app.finance.core.service.BatchAmortizationService;
+import app.finance.core.service.CalculationExecutor;
+import app.finance.core.service.CompoundingFactorTable;
+import app.finance.core.service.LoanRequestParser;
+import app.finance.core.service.LoanQueryService;
+import app.finance.core.service.PaymentService;
+import app.finance.core.service.PrepaymentService;
+import app.finance.core.service.RateSheetService;
+import app.finance.core.service.RateSimulationService;
+import app.finance.core.service.RequestMetrics;
+import app.finance.core.service.ScheduleCache;
+import app.finance.core.service.ScheduleExportService;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.web.DefaultErrorAttributes;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Every controller and service of the application, listed rather than found by a component scan, so a
+ * context built from it reads no classes beyond these.  A new controller or service must be added here as
+ * well as be annotated for the Boot application's scan.
+ * <p/>
+ * Beans only needed by the JSON API are lazy and created by their first request; the schedule form and
+ * the services it needs are created at startup.
+ */
+@Configuration
+@Import({MetricsConfig.class,
+        MortgageCalculatorController.class, ArmController.class, BatchController.class, CustomErrorController.class, LoanQueryController.class,
+        MetricsController.class, ScenarioController.class, ScheduleExportController.class, SimulationController.class,
+        AmortizationService.class, ArmService.class, BatchAmortizationService.class, CalculationExecutor.class, CompoundingFactorTable.class,
+        LoanQueryService.class, LoanRequestParser.class, PaymentService.class, PrepaymentService.class, RateSheetService.class, RateSimulationService.class,
+        RequestMetrics.class, ScheduleCache.class, ScheduleExportService.class})
+public class BeanGraphConfig {
+
+    /** Beans created on first use rather than at startup. */
+    static final Class<?>[] LAZY_BEANS = {
+            ArmController.class, BatchController.class, CustomErrorController.class, LoanQueryController.class, MetricsController.class,
+            ScenarioController.class, ScheduleExportController.class, SimulationController.class,
+            ArmService.class, BatchAmortizationService.class, LoanQueryService.class, PrepaymentService.class, RateSimulationService.class,
+            ScheduleExportService.class};
+
+    /** Resolves the ${name:default} properties of the beans, as the Boot application's auto-configuration does. */
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+        return new PropertySourcesPlaceholderConfigurer();
+    }
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyBeans() {
+        Set<String> lazyClassNames = new HashSet<String>();
+        for (Class<?> lazyBean : LAZY_BEANS) {
+            lazyClassNames.add(lazyBean.getName());
+        }
+        return beanFactory -> markLazy(beanFactory, lazyClassNames);
+    }
+
+    private static void markLazy(ConfigurableListableBeanFactory beanFactory, Set<String> lazyClassNames) {
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+            if (lazyClassNames.contains(beanDefinition.getBeanClassName())) {
+                beanDefinition.setLazyInit(true);
+            }
+        }
+    }
+
+    /** Error details for {@link CustomErrorController}. */
+    @Bean
+    public DefaultErrorAttributes errorAttributes() {
+        return new DefaultErrorAttributes();
+    }
+}
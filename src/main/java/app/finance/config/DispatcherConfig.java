@@ -11,7 +11,7 @@ import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 
 @Configuration
-@Import({ThymeleafConfig.class})
+@Import({ThymeleafConfig.class, MetricsConfig.class})
 public class DispatcherConfig extends WebMvcConfigurerAdapter {
 
     @Override
@@ -0,0 +1,95 @@
+package app.finance.config;
+
+import app.finance.core.view.ScheduleDialect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.embedded.ErrorPage;
+import org.springframework.boot.context.embedded.tomcat.TomcatEmbeddedServletContainerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.CharacterEncodingFilter;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
+import org.thymeleaf.spring4.SpringTemplateEngine;
+import org.thymeleaf.spring4.view.ThymeleafViewResolver;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolver;
+
+/**
+ * Single context for the fast startup mode, <code>startup.fast=true</code>: the application's explicit bean
+ * graph plus the few pieces of Spring Boot's auto-configuration it uses, declared directly so that no
+ * auto-configuration classes or conditions are evaluated.  Serves the same templates, static files, error
+ * page and JSON as the Boot application.
+ */
+@Configuration
+@EnableWebMvc
+@Import({BeanGraphConfig.class, StartupReport.class})
+public class FastStartupConfig extends WebMvcConfigurerAdapter {
+
+    @Value("${server.port:8080}")
+    private int port;
+
+    /** Keep parsed templates in memory, as under the Boot application. */
+    @Value("${spring.thymeleaf.cache:true}")
+    private boolean cacheable;
+
+    @Bean
+    public TomcatEmbeddedServletContainerFactory embeddedServletContainerFactory() {
+        TomcatEmbeddedServletContainerFactory factory = new TomcatEmbeddedServletContainerFactory(port);
+        factory.addErrorPages(new ErrorPage("/error"));
+        return factory;
+    }
+
+    @Bean
+    public DispatcherServlet dispatcherServlet() {
+        return new DispatcherServlet();
+    }
+
+    @Bean
+    public CharacterEncodingFilter characterEncodingFilter() {
+        CharacterEncodingFilter filter = new CharacterEncodingFilter();
+        filter.setEncoding("UTF-8");
+        filter.setForceEncoding(true);
+        return filter;
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/**").addResourceLocations("classpath:/static/");
+    }
+
+    @Bean
+    public TemplateResolver templateResolver() {
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode("HTML5");
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(cacheable);
+        return templateResolver;
+    }
+
+    @Bean
+    public SpringTemplateEngine templateEngine() {
+        SpringTemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver());
+        templateEngine.addDialect(new Java8TimeDialect());
+        templateEngine.addDialect(new ScheduleDialect());
+        return templateEngine;
+    }
+
+    @Bean
+    public ViewResolver viewResolver() {
+        ThymeleafViewResolver viewResolver = new ThymeleafViewResolver();
+        viewResolver.setTemplateEngine(templateEngine());
+        viewResolver.setCharacterEncoding("UTF-8");
+        viewResolver.setContentType("text/html;charset=UTF-8");
+        viewResolver.setOrder(Ordered.LOWEST_PRECEDENCE - 5);
+        return viewResolver;
+    }
+}
@@ -0,0 +1,26 @@
+package app.finance.config;
+
+import app.finance.core.service.RequestMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
+
+/**
+ * Registers the request phase timers on the schedule form's handler and the JSON API.  Imported by both
+ * {@link DispatcherConfig} and the Boot application, and registered once per context.
+ * Nothing is registered when metrics are disabled.
+ */
+@Configuration
+public class MetricsConfig extends WebMvcConfigurerAdapter {
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (requestMetrics.isEnabled()) {
+            registry.addInterceptor(new RequestMetricsInterceptor(requestMetrics)).addPathPatterns("/showSchedule", "/api/**");
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package app.finance.config;
+
+import app.finance.core.service.RequestMetrics;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times the phases of a request around its handler.  The handler's own time, less the calculation time it
+ * reports through {@link RequestMetrics#CALCULATION_NANOS}, is data binding; the time from the handler
+ * returning to completion is view rendering.
+ * <p/>
+ * A handler that hands its calculation to another thread returns as soon as it has bound the request, so its
+ * time up to then is all binding.  The interceptor runs again when the request is dispatched back with the
+ * result, and only times rendering on that pass.
+ */
+public class RequestMetricsInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String HANDLER_START = RequestMetricsInterceptor.class.getName() + ".handlerStart";
+    private static final String RENDER_START = RequestMetricsInterceptor.class.getName() + ".renderStart";
+    private static final String BINDING_RECORDED = RequestMetricsInterceptor.class.getName() + ".bindingRecorded";
+
+    private final RequestMetrics requestMetrics;
+
+    public RequestMetricsInterceptor(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(BINDING_RECORDED) == null) {
+            request.setAttribute(HANDLER_START, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object handlerStart = request.getAttribute(HANDLER_START);
+        Object calculationNanos = request.getAttribute(RequestMetrics.CALCULATION_NANOS);
+        if (handlerStart != null) {
+            // a calculation already reported ran on this thread, unless it was too short to matter
+            long handlerNanos = System.nanoTime() - (Long) handlerStart;
+            requestMetrics.recordBinding(Math.max(0, handlerNanos - (calculationNanos == null ? 0 : (Long) calculationNanos)));
+            request.setAttribute(BINDING_RECORDED, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler, ModelAndView modelAndView) {
+        long now = System.nanoTime();
+        Object handlerStart = request.getAttribute(HANDLER_START);
+        Object calculationNanos = request.getAttribute(RequestMetrics.CALCULATION_NANOS);
+        if (handlerStart != null && request.getAttribute(BINDING_RECORDED) == null) {
+            long handlerNanos = now - (Long) handlerStart;
+            requestMetrics.recordBinding(handlerNanos - (calculationNanos == null ? 0 : (Long) calculationNanos));
+        }
+        request.setAttribute(RENDER_START, now);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object renderStart = request.getAttribute(RENDER_START);
+        if (renderStart != null) {
+            requestMetrics.recordRendering(System.nanoTime() - (Long) renderStart);
+        }
+    }
+}
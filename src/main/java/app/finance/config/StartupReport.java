@@ -0,0 +1,118 @@
+package app.finance.config;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessorAdapter;
+import org.springframework.boot.context.embedded.EmbeddedWebApplicationContext;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.util.ClassUtils;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logs how long the application took to start: time since the JVM started, the beans created on the way
+ * and the slowest of them, and the lazy beans left for their first request.  A bean's time includes the
+ * beans created for its dependencies.  Imported beans, which are named after their class, are listed by their
+ * short class name.
+ * <p/>
+ * The report is logged once the application is ready, i.e. after the embedded server has started, or when a
+ * context outside Spring Boot has been refreshed.  Beans created after that, such as lazy ones, are not timed.
+ */
+public class StartupReport extends InstantiationAwareBeanPostProcessorAdapter implements BeanFactoryAware, ApplicationListener<ApplicationEvent> {
+
+    private static final Log log = LogFactory.getLog(StartupReport.class);
+
+    /** Slowest beans listed in the report. */
+    static final int SLOWEST_BEANS = 10;
+
+    private final long createdNanos = System.nanoTime();
+    private final Map<String, Long> startNanos = new ConcurrentHashMap<String, Long>();
+    private final Map<String, Long> beanNanos = new ConcurrentHashMap<String, Long>();
+    private volatile boolean reported;
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        this.beanFactory = (ConfigurableListableBeanFactory) beanFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        if (!reported) {
+            startNanos.put(beanName, System.nanoTime());
+        }
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Long start = startNanos.remove(beanName);
+        if (start != null && !reported) {
+            beanNanos.put(beanName, System.nanoTime() - start);
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationReadyEvent
+                || (event instanceof ContextRefreshedEvent && !(((ContextRefreshedEvent) event).getApplicationContext() instanceof EmbeddedWebApplicationContext))) {
+            if (!reported) {
+                reported = true;
+                log.info(report());
+            }
+        }
+    }
+
+    /**
+     * @return time since the JVM started, in milliseconds
+     */
+    public long getUptimeMs() { return ManagementFactory.getRuntimeMXBean().getUptime(); }
+
+    /**
+     * @return time since the bean factory started creating beans, in milliseconds
+     */
+    public long getBeanCreationMs() { return (System.nanoTime() - createdNanos) / 1000000; }
+
+    /**
+     * @return number of lazy beans not created yet
+     */
+    public int getDeferredCount() {
+        int deferred = 0;
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            if (beanFactory.getBeanDefinition(beanName).isLazyInit() && !beanFactory.containsSingleton(beanName)) {
+                deferred++;
+            }
+        }
+        return deferred;
+    }
+
+    String report() {
+        List<Map.Entry<String, Long>> slowest = new ArrayList<Map.Entry<String, Long>>(beanNanos.entrySet());
+        slowest.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+
+        StringBuilder report = new StringBuilder();
+        report.append("Started in ").append(getUptimeMs()).append(" ms since JVM start, ")
+                .append(getBeanCreationMs()).append(" ms creating ").append(beanNanos.size()).append(" beans; ")
+                .append(getDeferredCount()).append(" lazy beans deferred until first use.");
+        if (!slowest.isEmpty()) {
+            report.append("  Slowest:");
+            for (Map.Entry<String, Long> bean : slowest.subList(0, Math.min(SLOWEST_BEANS, slowest.size()))) {
+                report.append(' ').append(ClassUtils.getShortName(bean.getKey())).append(' ').append(bean.getValue() / 1000000).append(" ms,");
+            }
+            // the comma after the last bean
+            report.setLength(report.length() - 1);
+        }
+        return report.toString();
+    }
+}
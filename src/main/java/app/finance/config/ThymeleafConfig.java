@@ -1,9 +1,12 @@
 package app.finance.config;
 
+import app.finance.core.view.ScheduleDialect;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.web.servlet.ViewResolver;
+import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
 import org.thymeleaf.spring4.SpringTemplateEngine;
 import org.thymeleaf.spring4.view.ThymeleafViewResolver;
 import org.thymeleaf.templateresolver.ServletContextTemplateResolver;
@@ -12,12 +15,25 @@ import org.thymeleaf.templateresolver.TemplateResolver;
 @Configuration
 @PropertySource("classpath:thymeleaf.properties")
 public class ThymeleafConfig {
+
+    /** Keep parsed templates in memory; turn off to pick up template edits without a restart. */
+    @Value("${thymeleaf.cache:true}")
+    private boolean cacheable;
+
+    /** How long a parsed template stays cached; 0 keeps it until evicted. */
+    @Value("${thymeleaf.cacheTTLMs:0}")
+    private long cacheTTLMs;
+
     @Bean
     public TemplateResolver templateResolver() {
         ServletContextTemplateResolver templateResolver = new ServletContextTemplateResolver();
         templateResolver.setPrefix("/WEB-INF/templates/");
         templateResolver.setSuffix(".html");
         templateResolver.setTemplateMode("HTML5");
+        templateResolver.setCacheable(cacheable);
+        if (cacheTTLMs > 0) {
+            templateResolver.setCacheTTLMs(cacheTTLMs);
+        }
 
         return templateResolver;
     }
@@ -26,6 +42,8 @@ public class ThymeleafConfig {
     public SpringTemplateEngine templateEngine() {
         SpringTemplateEngine templateEngine = new SpringTemplateEngine();
         templateEngine.setTemplateResolver(templateResolver());
+        templateEngine.addDialect(new Java8TimeDialect());
+        templateEngine.addDialect(new ScheduleDialect());
         return templateEngine;
     }
 
@@ -1,35 +1,30 @@
 package app.finance.config;
 
 import app.finance.AppConfig;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.web.WebApplicationInitializer;
-import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 import org.springframework.web.servlet.DispatcherServlet;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRegistration;
 
-@Configuration
+/**
+ * Deploys the application as a WAR with one Spring context, the dispatcher servlet's, built from
+ * {@link AppConfig}.
+ */
 public class WebInitializerConfig implements WebApplicationInitializer
 {
     @Override
     public void onStartup(ServletContext container) throws ServletException {
 
-        // Create the 'root' Spring application context
-        AnnotationConfigWebApplicationContext rootContext = new AnnotationConfigWebApplicationContext();
-        rootContext.register(AppConfig.class);
-
-        // Manage the lifecycle of the root application context
-        container.addListener(new ContextLoaderListener(rootContext));
-
-        // Create the dispatcher servlet's Spring application context
+        // Create the dispatcher servlet's Spring application context, the only one
         AnnotationConfigWebApplicationContext dispatcherContext = new AnnotationConfigWebApplicationContext();
-        dispatcherContext.register(DispatcherConfig.class);
+        dispatcherContext.register(AppConfig.class);
 
         // Register and map the dispatcher servlet
         ServletRegistration.Dynamic dispatcher = container.addServlet("dispatcher", new DispatcherServlet(dispatcherContext));
         dispatcher.setLoadOnStartup(1);
+        dispatcher.setAsyncSupported(true);
         dispatcher.addMapping("/");
     }
-}
\ No newline at end of file
+}
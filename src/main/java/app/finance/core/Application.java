@@ -1,13 +1,64 @@
 package app.finance.core;
 
+import app.finance.config.FastStartupConfig;
+import app.finance.config.MetricsConfig;
+import app.finance.config.StartupReport;
+import app.finance.core.view.ScheduleDialect;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.embedded.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.web.filter.HiddenHttpMethodFilter;
+import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
 
 @SpringBootApplication
+@Import({MetricsConfig.class, StartupReport.class})
 public class Application {
 
     public static void main(String[] args) {
-        SpringApplication.run(Application.class, args);
+        run(args);
+    }
+
+    /**
+     * Starts the application from this class, with a component scan and auto-configuration, or with
+     * startup.fast=true from the explicit bean graph of {@link FastStartupConfig}.  The mode is read before
+     * the context exists, so it comes from the command line, a system property or STARTUP_FAST in the
+     * environment rather than from application.properties.
+     * @param args command line arguments
+     * @return the running context
+     */
+    public static ConfigurableApplicationContext run(String... args) {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        boolean fastStartup = environment.getProperty("startup.fast", Boolean.class, false);
+        return SpringApplication.run(fastStartup ? FastStartupConfig.class : Application.class, args);
+    }
+
+    /**
+     * Leaves form bodies unread for {@link app.finance.core.service.LoanRequestParser}: the auto-configured
+     * filter reads every POST's parameters looking for _method, which no form of the application sends.
+     */
+    @Bean
+    public FilterRegistrationBean hiddenHttpMethodFilterRegistration(HiddenHttpMethodFilter hiddenHttpMethodFilter) {
+        FilterRegistrationBean registration = new FilterRegistrationBean(hiddenHttpMethodFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /** Adds #temporals to templates, for formatting java.time payment dates. */
+    @Bean
+    public Java8TimeDialect java8TimeDialect() {
+        return new Java8TimeDialect();
+    }
+
+    /** Adds schedule:rows to templates, for rendering schedule rows without per-row expressions. */
+    @Bean
+    public ScheduleDialect scheduleDialect() {
+        return new ScheduleDialect();
     }
 
 }
@@ -0,0 +1,76 @@
+package app.finance.core.controller;
+
+import app.finance.core.model.ArmSummary;
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.model.PeriodValue;
+import app.finance.core.service.ArmService;
+import app.finance.core.service.CalculationExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * JSON endpoints for adjustable rate loans.  The loan is bound from the same request parameters as the schedule
+ * form, its interestRate being the rate of the fixed period, and the adjustment terms from the ArmTerms fields.
+ */
+@RestController
+@RequestMapping("/api/arm")
+public class ArmController
+{
+    @Autowired
+    private ArmService armService;
+
+    @Autowired
+    private CalculationExecutor calculationExecutor;
+
+    /**
+     * e.g. /api/arm?initialBalance=300000&amp;interestRate=3.5&amp;durationInMonths=360&amp;fixedPeriodInMonths=60&amp;margin=2.75&amp;indexRates=2.5,3.5,4.5
+     * <p/>
+     * Summaries run on the calculation executor, which also bounds the schedule arrays built when
+     * <code>schedules</code> is set.
+     * @param schedules whether to include every payment
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public DeferredResult<ArmSummary> summarize(@ModelAttribute MonthlyAmortizationSchedule loan, @ModelAttribute ArmTerms terms, @RequestParam(defaultValue = "false") boolean schedules)
+    {
+        LocalDate startDate = (loan.getStartDate() == null) ? LocalDate.now() : loan.getStartDate();
+        return calculationExecutor.submit(() -> armService.summarize(startDate, loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(), loan.getInterestRate(), loan.getFutureValue(), terms, schedules));
+    }
+
+    /**
+     * Balance after payment N, e.g. at a reset, without visiting the payments before it.
+     */
+    @RequestMapping(value = "/balance", method = RequestMethod.GET)
+    public PeriodValue balance(@ModelAttribute MonthlyAmortizationSchedule loan, @ModelAttribute ArmTerms terms, @RequestParam int period)
+    {
+        return armService.balanceAt(loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(), loan.getInterestRate(), loan.getFutureValue(), terms, period);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException
+    {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+
+    /**
+     * The calculation queue is full, or the calculation outlived the request; the client may retry later.
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    void serviceUnavailable(Exception e, HttpServletResponse response) throws IOException
+    {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+    }
+}
@@ -0,0 +1,137 @@
+package app.finance.core.controller;
+
+import app.finance.core.model.LoanParameters;
+import app.finance.core.model.LoanSummary;
+import app.finance.core.model.ScheduleFormat;
+import app.finance.core.service.BatchAmortizationService;
+import app.finance.core.service.CalculationExecutor;
+import app.finance.core.service.ScheduleExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.async.DeferredResult;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Summarizes many loans in one request.  The body is a JSON array, newline delimited JSON or CSV
+ * (by Content-Type) of loan parameters; results stream back one batch at a time in the requested format.
+ * The body is read and the results written on the calculation executor, so a burst of batches queues there
+ * and is refused with 503 rather than holding request threads.
+ */
+@Controller
+public class BatchController
+{
+    private static final int MAX_BATCH_SIZE = 10000;
+
+    @Autowired
+    private BatchAmortizationService batchAmortizationService;
+
+    @Autowired
+    private ScheduleExportService scheduleExportService;
+
+    @Autowired
+    private CalculationExecutor calculationExecutor;
+
+    /**
+     * e.g. curl -H 'Content-Type: text/csv' --data-binary @loans.csv '/api/batch?format=CSV&amp;batchSize=5000'
+     * <p/>
+     * Loans still being summarized at <code>calculation.timeoutMs</code> stop before their next batch, ending
+     * the results early.
+     * @param format output format
+     * @param batchSize loans read and summarized in parallel before their results are written
+     * @param schedules whether each result includes the loan's full schedule; JSON formats only
+     */
+    @RequestMapping(value = "/api/batch", method = RequestMethod.POST)
+    public DeferredResult<HttpHeaders> summarizeLoans(@RequestParam(defaultValue = "JSON") ScheduleFormat format,
+                                                      @RequestParam(defaultValue = "1000") int batchSize,
+                                                      @RequestParam(defaultValue = "false") boolean schedules,
+                                                      HttpServletRequest request, HttpServletResponse response)
+    {
+        if (batchSize < 1 || batchSize > MAX_BATCH_SIZE)
+        {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_BATCH_SIZE + ": " + batchSize);
+        }
+        if (schedules && format == ScheduleFormat.CSV)
+        {
+            throw new IllegalArgumentException("schedules are only available in the JSON formats");
+        }
+
+        return calculationExecutor.submit(() ->
+        {
+            summarizeLoans(format, batchSize, schedules, request, response.getWriter(), response);
+            return new HttpHeaders();
+        });
+    }
+
+    private void summarizeLoans(ScheduleFormat format, int batchSize, boolean schedules, HttpServletRequest request, Writer out, HttpServletResponse response) throws IOException
+    {
+        String contentType = request.getContentType();
+        Iterator<LoanParameters> loans = (contentType != null && contentType.contains("csv"))
+                ? batchAmortizationService.readCsv(request.getReader())
+                : batchAmortizationService.readJson(request.getInputStream());
+
+        response.setContentType(format.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        scheduleExportService.writeSummaryHeader(format, out);
+        int index = 0;
+        List<LoanParameters> batch = new ArrayList<LoanParameters>(Math.min(batchSize, 1024));
+        while (loans.hasNext())
+        {
+            if (Thread.currentThread().isInterrupted())
+            {
+                throw new CancellationException("Batch interrupted after " + index + " loans");
+            }
+            batch.clear();
+            while (batch.size() < batchSize && loans.hasNext())
+            {
+                batch.add(loans.next());
+            }
+            for (LoanSummary summary : batchAmortizationService.summarize(batch, schedules))
+            {
+                scheduleExportService.writeSummary(summary, format, index++, out);
+            }
+            out.flush();
+        }
+        scheduleExportService.writeSummaryFooter(format, out);
+    }
+
+    /**
+     * Malformed input found after results have started streaming can only end the response early.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException
+    {
+        if (!response.isCommitted())
+        {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+        }
+    }
+
+    /**
+     * The calculation queue is full, or the calculation outlived the request; the client may retry later.
+     * Results cut off after they have started streaming can only end early.
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    void serviceUnavailable(Exception e, HttpServletResponse response) throws IOException
+    {
+        if (!response.isCommitted())
+        {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package app.finance.core.controller;
+
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.model.PeriodValue;
+import app.finance.core.service.LoanQueryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * JSON endpoints answering point and range questions about a loan without building its schedule.
+ * Loan parameters are bound from the same request parameters as the schedule form.
+ */
+@RestController
+@RequestMapping("/api")
+public class LoanQueryController
+{
+    @Autowired
+    private LoanQueryService loanQueryService;
+
+    /**
+     * e.g. /api/balance?initialBalance=300000&amp;interestRate=4.25&amp;durationInMonths=360&amp;period=84
+     */
+    @RequestMapping(value = "/balance", method = RequestMethod.GET)
+    public PeriodValue balance(@ModelAttribute MonthlyAmortizationSchedule loan, @RequestParam int period)
+    {
+        return loanQueryService.balanceAt(loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(), loan.getInterestRate(), loan.getFutureValue(), period);
+    }
+
+    /**
+     * Interest paid from startPeriod through endPeriod, like CUMIPMT.
+     */
+    @RequestMapping(value = "/cumulativeInterest", method = RequestMethod.GET)
+    public PeriodValue cumulativeInterest(@ModelAttribute MonthlyAmortizationSchedule loan, @RequestParam int startPeriod, @RequestParam int endPeriod)
+    {
+        return loanQueryService.cumulativeInterest(loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(), loan.getInterestRate(), loan.getFutureValue(), startPeriod, endPeriod);
+    }
+
+    /**
+     * Principal paid from startPeriod through endPeriod, like CUMPRINC.
+     */
+    @RequestMapping(value = "/cumulativePrincipal", method = RequestMethod.GET)
+    public PeriodValue cumulativePrincipal(@ModelAttribute MonthlyAmortizationSchedule loan, @RequestParam int startPeriod, @RequestParam int endPeriod)
+    {
+        return loanQueryService.cumulativePrincipal(loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(), loan.getInterestRate(), loan.getFutureValue(), startPeriod, endPeriod);
+    }
+
+    /**
+     * First payment after which the balance is at or below targetBalance; 404 if the loan never reaches it.
+     */
+    @RequestMapping(value = "/payoffPeriod", method = RequestMethod.GET)
+    public PeriodValue payoffPeriod(@ModelAttribute MonthlyAmortizationSchedule loan, @RequestParam(defaultValue = "0") double targetBalance, HttpServletResponse response) throws IOException
+    {
+        PeriodValue payoff = loanQueryService.payoffPeriod(loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(), loan.getInterestRate(), loan.getFutureValue(), targetBalance);
+        if (payoff == null)
+        {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "balance stays above " + targetBalance + " for the whole loan");
+        }
+        return payoff;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException
+    {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+}
@@ -0,0 +1,33 @@
+package app.finance.core.controller;
+
+import app.finance.core.service.RequestMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Exposes request phase timers and cache counters for Prometheus to scrape.
+ */
+@Controller
+public class MetricsController
+{
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @RequestMapping(value = "/metrics", method = RequestMethod.GET)
+    public void metrics(HttpServletResponse response) throws IOException
+    {
+        if (!requestMetrics.isEnabled())
+        {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "metrics are disabled");
+            return;
+        }
+        response.setContentType("text/plain; version=0.0.4");
+        response.setCharacterEncoding("UTF-8");
+        requestMetrics.writePrometheus(response.getWriter());
+    }
+}
@@ -1,14 +1,30 @@
 package app.finance.core.controller;
 
+import app.finance.core.model.RateSheet;
+import app.finance.core.model.ScheduleRequest;
+import app.finance.core.model.SchedulePage;
 import app.finance.core.service.AmortizationService;
 import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.service.CalculationExecutor;
+import app.finance.core.service.LoanRequestParser;
+import app.finance.core.service.RateSheetService;
+import app.finance.core.service.RequestMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 @Controller
 public class MortgageCalculatorController
@@ -16,6 +32,18 @@ public class MortgageCalculatorController
     @Autowired
     private AmortizationService amortizationService;
 
+    @Autowired
+    private RateSheetService rateSheetService;
+
+    @Autowired
+    private RequestMetrics requestMetrics;
+
+    @Autowired
+    private CalculationExecutor calculationExecutor;
+
+    @Autowired
+    private LoanRequestParser loanRequestParser;
+
     /**
      * Default values are loaded into form from method argument 'monthlyAmortizationSchedule', loaded with default values.
      * @param monthlyAmortizationSchedule a MonthlyAmortizationSchedule object, auto-loaded by Spring MVC
@@ -26,19 +54,68 @@ public class MortgageCalculatorController
         return "form";
     }
 
-    @RequestMapping(value = "/showSchedule", method = RequestMethod.POST)
-    public String calculatePayments(@ModelAttribute MonthlyAmortizationSchedule monthlyAmortizationSchedule, BindingResult bindingResult, Model model)
+    /**
+     * Calculates one page of the schedule on the calculation executor, releasing the request thread until it
+     * is done.  The form posts here for the first page; the schedule page links to the others with the loan
+     * parameters in the query string, e.g. /showSchedule?...&amp;page=2&amp;size=60.  The loan may also be
+     * posted as a JSON object of the form's fields.  A request with missing or unreadable values is answered
+     * with 400 listing all of them.
+     */
+    @RequestMapping(value = "/showSchedule", method = {RequestMethod.GET, RequestMethod.POST})
+    public DeferredResult<String> calculatePayments(Model model, HttpServletRequest request, HttpServletResponse response) throws IOException
     {
-        if (bindingResult.hasErrors())
+        ScheduleRequest scheduleRequest = loanRequestParser.parse(request);
+        if (scheduleRequest.hasErrors())
         {
-            System.out.println( "There are errors! " + bindingResult.getAllErrors().toString() );
+            response.sendError(HttpStatus.BAD_REQUEST.value(), scheduleRequest.getErrorMessage());
+            return null;
         }
-        amortizationService.initializeUnknownFields(monthlyAmortizationSchedule);
+        MonthlyAmortizationSchedule monthlyAmortizationSchedule = scheduleRequest.getLoan();
         model.addAttribute(monthlyAmortizationSchedule);
+        int page = scheduleRequest.getPage();
+        int pageSize = (scheduleRequest.getSize() == null) ? amortizationService.getDefaultPageSize() : scheduleRequest.getSize();
+
+        return calculationExecutor.submit(() ->
+        {
+            long calculationStart = requestMetrics.startTimer();
+            SchedulePage schedulePage = amortizationService.initializePage(monthlyAmortizationSchedule, page, pageSize);
+            requestMetrics.recordCalculation(request, calculationStart, monthlyAmortizationSchedule.getSchedule().size());
+            model.addAttribute(schedulePage);
+            return "schedule";
+        });
+    }
 
-        return "schedule";
+    /**
+     * Payments and total interest of one loan amount across rates and terms, as JSON.
+     * e.g. /rateSheet?initialBalance=300000&amp;minInterestRate=5&amp;maxInterestRate=8&amp;interestRateStep=0.125&amp;durationsInMonths=180,360
+     */
+    @RequestMapping(value = "/rateSheet", method = RequestMethod.GET)
+    @ResponseBody
+    public DeferredResult<RateSheet> rateSheet(@RequestParam double initialBalance,
+                               @RequestParam(defaultValue = "0") double futureValue,
+                               @RequestParam(defaultValue = "0") int paymentType,
+                               @RequestParam double minInterestRate,
+                               @RequestParam double maxInterestRate,
+                               @RequestParam(defaultValue = "0.125") double interestRateStep,
+                               @RequestParam(defaultValue = "180,360") int[] durationsInMonths)
+    {
+        return calculationExecutor.submit(() -> rateSheetService.calculate(initialBalance, futureValue, paymentType, minInterestRate, maxInterestRate, interestRateStep, durationsInMonths));
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException
+    {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
 
+    /**
+     * The calculation queue is full, or the calculation outlived the request; the client may retry later.
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    void serviceUnavailable(Exception e, HttpServletResponse response) throws IOException
+    {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package app.finance.core.controller;
+
+import app.finance.core.model.ScenarioComparison;
+import app.finance.core.model.ScenarioRequest;
+import app.finance.core.service.CalculationExecutor;
+import app.finance.core.service.PrepaymentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Compares extra payment scenarios of one loan against its regular schedule.  Comparisons run on the
+ * calculation executor.
+ */
+@RestController
+@RequestMapping("/api")
+public class ScenarioController
+{
+    @Autowired
+    private PrepaymentService prepaymentService;
+
+    @Autowired
+    private CalculationExecutor calculationExecutor;
+
+    /**
+     * e.g. curl -H 'Content-Type: application/json' -d '{"loan":{"initialBalance":300000,"interestRate":4.25,"durationInMonths":360},
+     * "scenarios":[{"name":"200 monthly from 24","extraPayments":[{"amount":200,"startPeriod":24,"intervalInMonths":1}]}]}' /api/scenarios
+     * @param schedules whether each result includes its schedule through payoff
+     */
+    @RequestMapping(value = "/scenarios", method = RequestMethod.POST)
+    public DeferredResult<ScenarioComparison> compareScenarios(@RequestBody ScenarioRequest scenarioRequest, @RequestParam(defaultValue = "false") boolean schedules)
+    {
+        if (scenarioRequest.getLoan() == null)
+        {
+            throw new IllegalArgumentException("loan is required");
+        }
+        return calculationExecutor.submit(() -> prepaymentService.compare(scenarioRequest.getLoan(), scenarioRequest.getScenarios(), schedules));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException
+    {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+
+    /**
+     * The calculation queue is full, or the calculation outlived the request; the client may retry later.
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    void serviceUnavailable(Exception e, HttpServletResponse response) throws IOException
+    {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+    }
+}
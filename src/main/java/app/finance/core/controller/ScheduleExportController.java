@@ -0,0 +1,122 @@
+package app.finance.core.controller;
+
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.model.ScheduleFormat;
+import app.finance.core.model.SchedulePage;
+import app.finance.core.model.ScheduleRequest;
+import app.finance.core.service.AmortizationCursor;
+import app.finance.core.service.AmortizationService;
+import app.finance.core.service.CalculationExecutor;
+import app.finance.core.service.LoanRequestParser;
+import app.finance.core.service.ScheduleExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Streams amortization schedules as JSON, NDJSON or CSV directly to the response as rows are computed, or
+ * answers with a single page of a schedule.  Both run on the calculation executor, so a burst of exports
+ * queues there and is refused with 503 rather than holding request threads.
+ */
+@Controller
+public class ScheduleExportController
+{
+    @Autowired
+    private AmortizationService amortizationService;
+
+    @Autowired
+    private ScheduleExportService scheduleExportService;
+
+    @Autowired
+    private LoanRequestParser loanRequestParser;
+
+    @Autowired
+    private CalculationExecutor calculationExecutor;
+
+    /**
+     * e.g. /api/schedule?initialBalance=300000&amp;interestRate=4.25&amp;durationInMonths=360&amp;format=CSV
+     * <p/>
+     * The loan is read from the same parameters as the schedule form, from the query string, a form body or a
+     * JSON object; startDate defaults to today.
+     * <p/>
+     * The rows are written from a calculation thread, which the schedule holds for at most
+     * {@link AmortizationService#MAX_DURATION_IN_MONTHS} rows; a schedule still being written at
+     * <code>calculation.timeoutMs</code> is cut off at its next checkpoint.  The rows are the whole response,
+     * so the calculation ends with no further headers, which marks the request handled.
+     */
+    @RequestMapping(value = "/api/schedule", method = {RequestMethod.GET, RequestMethod.POST})
+    public DeferredResult<HttpHeaders> exportSchedule(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        ScheduleRequest scheduleRequest = loanRequestParser.parse(request, LocalDate.now());
+        if (scheduleRequest.hasErrors())
+        {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), scheduleRequest.getErrorMessage());
+            return null;
+        }
+        MonthlyAmortizationSchedule loan = scheduleRequest.getLoan();
+        ScheduleFormat format = scheduleRequest.getFormat();
+        AmortizationCursor cursor = amortizationService.openCursor(loan.getStartDate(), loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(), loan.getInterestRate(), loan.getFutureValue(), loan.getEngine());
+
+        return calculationExecutor.submit(() ->
+        {
+            response.setContentType(format.getContentType());
+            response.setCharacterEncoding("UTF-8");
+            scheduleExportService.write(cursor, format, response.getWriter());
+            return new HttpHeaders();
+        });
+    }
+
+    /**
+     * e.g. /api/schedule/page?initialBalance=300000&amp;interestRate=4.25&amp;durationInMonths=360&amp;page=3&amp;size=24
+     * <p/>
+     * Only the payments of the requested page are calculated.  startDate defaults to today, size to
+     * <code>schedule.page.size</code>.
+     */
+    @RequestMapping(value = "/api/schedule/page", method = RequestMethod.GET)
+    @ResponseBody
+    public DeferredResult<SchedulePage> schedulePage(HttpServletRequest request, HttpServletResponse response) throws IOException
+    {
+        ScheduleRequest scheduleRequest = loanRequestParser.parse(request, LocalDate.now());
+        if (scheduleRequest.hasErrors())
+        {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), scheduleRequest.getErrorMessage());
+            return null;
+        }
+        MonthlyAmortizationSchedule loan = scheduleRequest.getLoan();
+        int pageSize = (scheduleRequest.getSize() == null) ? amortizationService.getDefaultPageSize() : scheduleRequest.getSize();
+        return calculationExecutor.submit(() -> amortizationService.getSchedulePage(loan.getStartDate(), loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(),
+                loan.getInterestRate(), loan.getFutureValue(), loan.getEngine(), scheduleRequest.getPage(), pageSize));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException
+    {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+
+    /**
+     * The calculation queue is full, or the calculation outlived the request; the client may retry later.
+     * An export cut off after its first rows can only end early.
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    void serviceUnavailable(Exception e, HttpServletResponse response) throws IOException
+    {
+        if (!response.isCommitted())
+        {
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+        }
+    }
+}
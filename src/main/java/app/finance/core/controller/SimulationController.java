@@ -0,0 +1,61 @@
+package app.finance.core.controller;
+
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.model.SimulationResult;
+import app.finance.core.model.SimulationTerms;
+import app.finance.core.service.CalculationExecutor;
+import app.finance.core.service.RateSimulationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * JSON endpoint for Monte Carlo simulations of adjustable rate loans.  The loan and adjustment terms are bound
+ * as for /api/arm, and the index and prepayment assumptions from the SimulationTerms fields.
+ */
+@RestController
+@RequestMapping("/api/simulation")
+public class SimulationController
+{
+    @Autowired
+    private RateSimulationService rateSimulationService;
+
+    @Autowired
+    private CalculationExecutor calculationExecutor;
+
+    /**
+     * e.g. /api/simulation?initialBalance=300000&amp;interestRate=3.5&amp;durationInMonths=360&amp;margin=2.75&amp;paths=20000&amp;cpr=8&amp;seed=42
+     */
+    @RequestMapping(method = RequestMethod.GET)
+    public DeferredResult<SimulationResult> simulate(@ModelAttribute MonthlyAmortizationSchedule loan, @ModelAttribute ArmTerms terms, @ModelAttribute SimulationTerms simulation)
+    {
+        return calculationExecutor.submit(() -> rateSimulationService.simulate(loan.getInitialBalance(), loan.getDurationInMonths(), loan.getPaymentType(),
+                loan.getInterestRate(), loan.getFutureValue(), terms, simulation));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    void badRequest(IllegalArgumentException e, HttpServletResponse response) throws IOException
+    {
+        response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+    }
+
+    /**
+     * The calculation queue is full, or the simulation outlived the request; the client may retry later.
+     */
+    @ExceptionHandler({RejectedExecutionException.class, TimeoutException.class})
+    void serviceUnavailable(Exception e, HttpServletResponse response) throws IOException
+    {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage());
+    }
+}
@@ -0,0 +1,47 @@
+package app.finance.core.model;
+
+/**
+ * The numeric columns of an amortization schedule, which depend only on the loan terms and not on its
+ * start date, so one instance can back the schedules of many requests.
+ * <p/>
+ * Columns are owned by this object once constructed and are never modified afterwards.
+ */
+public final class AmortizationColumns
+{
+    public static final AmortizationColumns EMPTY = new AmortizationColumns(new double[0], new double[0], new double[0], new double[0]);
+
+    private final double[] balance;
+    private final double[] principalPaid;
+    private final double[] interestPaid;
+    private final double[] accumulatedInterest;
+
+    /**
+     * @param balance             balance after each payment
+     * @param principalPaid       principal portion of each payment
+     * @param interestPaid        interest portion of each payment
+     * @param accumulatedInterest interest paid up to and including each payment
+     */
+    public AmortizationColumns(double[] balance, double[] principalPaid, double[] interestPaid, double[] accumulatedInterest)
+    {
+        this.balance = balance;
+        this.principalPaid = principalPaid;
+        this.interestPaid = interestPaid;
+        this.accumulatedInterest = accumulatedInterest;
+    }
+
+    public int size() { return balance.length; }
+
+    /**
+     * Approximate heap retained by these columns, including array headers.
+     * @return long size in bytes
+     */
+    public long estimatedSizeInBytes()
+    {
+        return 32 + 4 * 16 + 4L * balance.length * 8;
+    }
+
+    public double balanceAt(int index) { return balance[index]; }
+    public double principalPaidAt(int index) { return principalPaid[index]; }
+    public double interestPaidAt(int index) { return interestPaid[index]; }
+    public double accumulatedInterestAt(int index) { return accumulatedInterest[index]; }
+}
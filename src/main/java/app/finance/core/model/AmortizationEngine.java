@@ -0,0 +1,25 @@
+package app.finance.core.model;
+
+/**
+ * Selects how the rows of an amortization schedule are computed.
+ */
+public enum AmortizationEngine
+{
+    /**
+     * Evaluates PPMT and IPMT in closed form for every period, recomputing PMT and FV each time.
+     */
+    CLOSED_FORM,
+
+    /**
+     * Computes PMT once and steps the balance forward period by period, re-anchoring against
+     * the closed form FV at regular checkpoints to remove floating point drift.
+     */
+    RECURRENCE,
+
+    /**
+     * Rounds the payment to whole cents and steps the balance in whole cents with integer arithmetic,
+     * rounding each period's interest half up, so every row is an exact amount.  The last payment's
+     * principal is adjusted so the final balance is exact as well.
+     */
+    EXACT_CENTS
+}
@@ -0,0 +1,143 @@
+package app.finance.core.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Columnar amortization schedule.  Each payment is a row index into parallel primitive arrays,
+ * so a schedule of any length costs five arrays rather than one object and one date per month.
+ * <p/>
+ * The date column belongs to this schedule; the numeric {@link AmortizationColumns} may be shared
+ * with other schedules for the same loan terms, scaled to this loan's balance as rows are read.
+ * Neither is modified after construction.
+ * <p/>
+ * A schedule may hold a window of a longer schedule, e.g. one page, whose first row is a later payment.
+ */
+public final class AmortizationSchedule
+{
+    public static final AmortizationSchedule EMPTY = new AmortizationSchedule(new int[0], AmortizationColumns.EMPTY);
+
+    private final int[] paymentDate;
+    private final AmortizationColumns columns;
+    private final double scale;
+    private final int firstPaymentNumber;
+    private final List<Row> rows = new RowList();
+
+    /**
+     * @param paymentDate payment dates as epoch days, see {@link LocalDate#toEpochDay()}
+     * @param columns     balance, principal, interest and accumulated interest of each payment
+     */
+    public AmortizationSchedule(int[] paymentDate, AmortizationColumns columns)
+    {
+        this(paymentDate, columns, 1);
+    }
+
+    /**
+     * @param paymentDate payment dates as epoch days, see {@link LocalDate#toEpochDay()}
+     * @param columns     balance, principal, interest and accumulated interest of each payment
+     * @param scale       factor applied to every numeric column, e.g. the balance of unit-balance columns
+     */
+    public AmortizationSchedule(int[] paymentDate, AmortizationColumns columns, double scale)
+    {
+        this(paymentDate, columns, scale, 1);
+    }
+
+    /**
+     * @param paymentDate        payment dates as epoch days, see {@link LocalDate#toEpochDay()}
+     * @param columns            balance, principal, interest and accumulated interest of each payment
+     * @param scale              factor applied to every numeric column, e.g. the balance of unit-balance columns
+     * @param firstPaymentNumber payment number of the first row, 1 unless this is a window of a longer schedule
+     */
+    public AmortizationSchedule(int[] paymentDate, AmortizationColumns columns, double scale, int firstPaymentNumber)
+    {
+        this.paymentDate = paymentDate;
+        this.columns = columns;
+        this.scale = scale;
+        this.firstPaymentNumber = firstPaymentNumber;
+    }
+
+    public int size() { return paymentDate.length; }
+
+    public AmortizationColumns columns() { return columns; }
+    public double scale() { return scale; }
+    public int firstPaymentNumber() { return firstPaymentNumber; }
+
+    public int paymentNumberAt(int index) { return firstPaymentNumber + index; }
+    public int paymentDateAt(int index) { return paymentDate[index]; }
+    public double balanceAt(int index) { return columns.balanceAt(index) * scale; }
+    public double principalPaidAt(int index) { return columns.principalPaidAt(index) * scale; }
+    public double interestPaidAt(int index) { return columns.interestPaidAt(index) * scale; }
+    public double accumulatedInterestAt(int index) { return columns.accumulatedInterestAt(index) * scale; }
+
+    /**
+     * Row view of the schedule, for templates and serialization.  Rows are created on access
+     * and read straight through to the columns.
+     * @return List of rows in payment order
+     */
+    public List<Row> getRows() { return rows; }
+
+    /**
+     * Copies the schedule into individual Payment objects.
+     * @return List of payments
+     */
+    public List<Payment> toPaymentList()
+    {
+        List<Payment> paymentList = new ArrayList<Payment>(size());
+        for (int i = 0; i < size(); i++)
+        {
+            paymentList.add(new Payment(paymentNumberAt(i), LocalDate.ofEpochDay(paymentDate[i]), balanceAt(i), principalPaidAt(i), interestPaidAt(i), accumulatedInterestAt(i)));
+        }
+        return paymentList;
+    }
+
+    /**
+     * One payment of the schedule, read from the columns.
+     */
+    public final class Row
+    {
+        private final int index;
+
+        private Row(int index)
+        {
+            this.index = index;
+        }
+
+        public int getPaymentNumber() { return paymentNumberAt(index); }
+        // ISO yyyy-MM-dd as in exported schedules, rather than a [year,month,day] array
+        @JsonFormat(shape = JsonFormat.Shape.STRING)
+        public LocalDate getPaymentDate() { return LocalDate.ofEpochDay(paymentDate[index]); }
+        public double getBalance() { return balanceAt(index); }
+        public double getPrincipalPaid() { return principalPaidAt(index); }
+        public double getInterestPaid() { return interestPaidAt(index); }
+        public double getAccumulatedInterest() { return accumulatedInterestAt(index); }
+
+        @Override
+        public String toString()
+        {
+            return "[" + getPaymentNumber() + "," + getPaymentDate() + "," + getBalance() + "," + getPrincipalPaid() + "," + getInterestPaid() + "," + getAccumulatedInterest() + "]";
+        }
+    }
+
+    private final class RowList extends AbstractList<Row> implements RandomAccess
+    {
+        @Override
+        public Row get(int index)
+        {
+            if (index < 0 || index >= size())
+            {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return new Row(index);
+        }
+
+        @Override
+        public int size()
+        {
+            return paymentDate.length;
+        }
+    }
+}
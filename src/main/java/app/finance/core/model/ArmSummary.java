@@ -0,0 +1,50 @@
+package app.finance.core.model;
+
+import java.util.List;
+
+/**
+ * Rate segments and lifetime totals of an adjustable rate loan.
+ */
+public class ArmSummary
+{
+    private final List<RateSegment> segments;
+    private final double totalInterest;
+    private final double finalBalance;
+    private final AmortizationSchedule schedule;
+
+    public ArmSummary(List<RateSegment> segments, double totalInterest, double finalBalance, AmortizationSchedule schedule)
+    {
+        this.segments = segments;
+        this.totalInterest = totalInterest;
+        this.finalBalance = finalBalance;
+        this.schedule = schedule;
+    }
+
+    public List<RateSegment> getSegments() { return this.segments; }
+    public double getTotalInterest() { return this.totalInterest; }
+    public double getFinalBalance() { return this.finalBalance; }
+
+    /**
+     * @return highest rate any segment resets to
+     */
+    public double getMaxInterestRate()
+    {
+        double max = Double.NEGATIVE_INFINITY;
+        for (RateSegment segment : segments)
+        {
+            max = Math.max(max, segment.getInterestRate());
+        }
+        return max;
+    }
+
+    /**
+     * @return the full schedule, or <code>null</code> unless a schedule was requested
+     */
+    public AmortizationSchedule getSchedule() { return this.schedule; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + segments.size() + "," + totalInterest + "," + finalBalance + "]";
+    }
+}
@@ -0,0 +1,68 @@
+package app.finance.core.model;
+
+import java.util.Arrays;
+
+/**
+ * Rate adjustment terms of an adjustable rate loan, e.g. a 5/1 ARM: the loan's interest rate holds for the fixed
+ * period, then resets every adjustment interval to a projected index plus the margin, limited by the caps.
+ * Rates, margin and caps are in percent, like the loan's interest rate.
+ */
+public class ArmTerms
+{
+    private int fixedPeriodInMonths = 60;
+    private int adjustmentIntervalInMonths = 12;
+    private double margin;
+    private double[] indexRates = new double[0];
+    private double initialCap = 2;
+    private double periodicCap = 2;
+    private double lifetimeCap = 5;
+    private double floorRate;
+
+    /**
+     * @return payments at the initial rate before the first reset
+     */
+    public int getFixedPeriodInMonths() { return this.fixedPeriodInMonths; }
+    public void setFixedPeriodInMonths(int fixedPeriodInMonths) { this.fixedPeriodInMonths = fixedPeriodInMonths; }
+
+    public int getAdjustmentIntervalInMonths() { return this.adjustmentIntervalInMonths; }
+    public void setAdjustmentIntervalInMonths(int adjustmentIntervalInMonths) { this.adjustmentIntervalInMonths = adjustmentIntervalInMonths; }
+
+    public double getMargin() { return this.margin; }
+    public void setMargin(double margin) { this.margin = margin; }
+
+    /**
+     * @return projected index rate at each reset, in order; the last one holds for any later resets
+     */
+    public double[] getIndexRates() { return this.indexRates; }
+    public void setIndexRates(double[] indexRates) { this.indexRates = indexRates; }
+
+    /**
+     * @return most the rate may move at the first reset
+     */
+    public double getInitialCap() { return this.initialCap; }
+    public void setInitialCap(double initialCap) { this.initialCap = initialCap; }
+
+    /**
+     * @return most the rate may move at each later reset
+     */
+    public double getPeriodicCap() { return this.periodicCap; }
+    public void setPeriodicCap(double periodicCap) { this.periodicCap = periodicCap; }
+
+    /**
+     * @return most the rate may ever exceed the initial rate
+     */
+    public double getLifetimeCap() { return this.lifetimeCap; }
+    public void setLifetimeCap(double lifetimeCap) { this.lifetimeCap = lifetimeCap; }
+
+    /**
+     * @return lowest rate the loan may reset to
+     */
+    public double getFloorRate() { return this.floorRate; }
+    public void setFloorRate(double floorRate) { this.floorRate = floorRate; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + fixedPeriodInMonths + "," + adjustmentIntervalInMonths + "," + margin + "," + Arrays.toString(indexRates) + "," + initialCap + "," + periodicCap + "," + lifetimeCap + "," + floorRate + "]";
+    }
+}
@@ -0,0 +1,68 @@
+package app.finance.core.model;
+
+import java.util.Arrays;
+
+/**
+ * Mean and percentiles of a simulated quantity over every path.
+ */
+public class Distribution
+{
+    private final double mean;
+    private final double min;
+    private final double p5;
+    private final double p25;
+    private final double p50;
+    private final double p75;
+    private final double p95;
+    private final double max;
+
+    /**
+     * Summarizes values in place, sorting them.
+     * @param values one value per path, at least one
+     * @return Distribution of the values, percentiles by nearest rank
+     */
+    public static Distribution of(double[] values)
+    {
+        Arrays.parallelSort(values);
+        double sum = 0;
+        for (double value : values)
+        {
+            sum += value;
+        }
+        return new Distribution(sum / values.length, values[0], percentile(values, 5), percentile(values, 25),
+                percentile(values, 50), percentile(values, 75), percentile(values, 95), values[values.length - 1]);
+    }
+
+    private static double percentile(double[] sorted, int percent)
+    {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    public Distribution(double mean, double min, double p5, double p25, double p50, double p75, double p95, double max)
+    {
+        this.mean = mean;
+        this.min = min;
+        this.p5 = p5;
+        this.p25 = p25;
+        this.p50 = p50;
+        this.p75 = p75;
+        this.p95 = p95;
+        this.max = max;
+    }
+
+    public double getMean() { return this.mean; }
+    public double getMin() { return this.min; }
+    public double getP5() { return this.p5; }
+    public double getP25() { return this.p25; }
+    public double getP50() { return this.p50; }
+    public double getP75() { return this.p75; }
+    public double getP95() { return this.p95; }
+    public double getMax() { return this.max; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + mean + "," + min + "," + p5 + "," + p25 + "," + p50 + "," + p75 + "," + p95 + "," + max + "]";
+    }
+}
@@ -0,0 +1,40 @@
+package app.finance.core.model;
+
+/**
+ * Principal paid on top of the regular payment: once, or every few months over a range of payments.
+ * Amounts are positive whatever the sign convention of the loan's payments.
+ */
+public class ExtraPayment
+{
+    private double amount;
+    private int startPeriod;
+    private int endPeriod;
+    private int intervalInMonths;
+
+    public double getAmount() { return this.amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+
+    /**
+     * @return payment number the first extra payment is made with
+     */
+    public int getStartPeriod() { return this.startPeriod; }
+    public void setStartPeriod(int startPeriod) { this.startPeriod = startPeriod; }
+
+    /**
+     * @return last payment number an extra payment may be made with; 0 for until the loan is paid off
+     */
+    public int getEndPeriod() { return this.endPeriod; }
+    public void setEndPeriod(int endPeriod) { this.endPeriod = endPeriod; }
+
+    /**
+     * @return months between extra payments, e.g. 1 for monthly or 12 for yearly; 0 for a single payment
+     */
+    public int getIntervalInMonths() { return this.intervalInMonths; }
+    public void setIntervalInMonths(int intervalInMonths) { this.intervalInMonths = intervalInMonths; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + amount + "," + startPeriod + "," + endPeriod + "," + intervalInMonths + "]";
+    }
+}
@@ -0,0 +1,44 @@
+package app.finance.core.model;
+
+import java.time.LocalDate;
+
+/**
+ * The inputs of one loan in a batch request, with an optional caller supplied id echoed in its result.
+ */
+public class LoanParameters
+{
+    private String id;
+    private LocalDate startDate;
+    private double initialBalance;
+    private double interestRate;
+    private int durationInMonths;
+    private double futureValue;
+    private int paymentType;
+
+    public String getId() { return this.id; }
+    public void setId(String id) { this.id = id; }
+
+    public LocalDate getStartDate() { return this.startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    public double getInitialBalance() { return this.initialBalance; }
+    public void setInitialBalance(double initialBalance) { this.initialBalance = initialBalance; }
+
+    public double getInterestRate() { return this.interestRate; }
+    public void setInterestRate(double interestRate) { this.interestRate = interestRate; }
+
+    public int getDurationInMonths() { return this.durationInMonths; }
+    public void setDurationInMonths(int durationInMonths) { this.durationInMonths = durationInMonths; }
+
+    public double getFutureValue() { return this.futureValue; }
+    public void setFutureValue(double futureValue) { this.futureValue = futureValue; }
+
+    public int getPaymentType() { return this.paymentType; }
+    public void setPaymentType(int paymentType) { this.paymentType = paymentType; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + id + "," + startDate + "," + initialBalance + "," + interestRate + "," + durationInMonths + "," + futureValue + "," + paymentType + "]";
+    }
+}
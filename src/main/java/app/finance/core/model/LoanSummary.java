@@ -0,0 +1,59 @@
+package app.finance.core.model;
+
+/**
+ * Payment and lifetime totals of one loan in a batch, or the reason it could not be calculated.
+ */
+public class LoanSummary
+{
+    private final String id;
+    private final double monthlyPayment;
+    private final double totalPrincipal;
+    private final double totalInterest;
+    private final double finalBalance;
+    private final AmortizationSchedule schedule;
+    private final String error;
+
+    public LoanSummary(String id, double monthlyPayment, double totalPrincipal, double totalInterest, double finalBalance, AmortizationSchedule schedule)
+    {
+        this.id = id;
+        this.monthlyPayment = monthlyPayment;
+        this.totalPrincipal = totalPrincipal;
+        this.totalInterest = totalInterest;
+        this.finalBalance = finalBalance;
+        this.schedule = schedule;
+        this.error = null;
+    }
+
+    public LoanSummary(String id, String error)
+    {
+        this.id = id;
+        this.monthlyPayment = Double.NaN;
+        this.totalPrincipal = Double.NaN;
+        this.totalInterest = Double.NaN;
+        this.finalBalance = Double.NaN;
+        this.schedule = null;
+        this.error = error;
+    }
+
+    public String getId() { return this.id; }
+    public double getMonthlyPayment() { return this.monthlyPayment; }
+    public double getTotalPrincipal() { return this.totalPrincipal; }
+    public double getTotalInterest() { return this.totalInterest; }
+    public double getFinalBalance() { return this.finalBalance; }
+
+    /**
+     * @return the full schedule, or <code>null</code> unless schedules were requested
+     */
+    public AmortizationSchedule getSchedule() { return this.schedule; }
+
+    /**
+     * @return why the loan could not be calculated, or <code>null</code>
+     */
+    public String getError() { return this.error; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + id + "," + monthlyPayment + "," + totalPrincipal + "," + totalInterest + "," + finalBalance + "," + error + "]";
+    }
+}
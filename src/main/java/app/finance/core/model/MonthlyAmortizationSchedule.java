@@ -2,26 +2,25 @@ package app.finance.core.model;
 
 import org.springframework.format.annotation.DateTimeFormat;
 
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
+import java.time.LocalDate;
 
 public class MonthlyAmortizationSchedule
 {
-    @DateTimeFormat(pattern = "MM/dd/yyyy") private Date startDate;
+    @DateTimeFormat(pattern = "MM/dd/yyyy") private LocalDate startDate;
     private double initialBalance;
     private double interestRate;
     private int durationInMonths;
     private double futureValue;
     private int paymentType;
     private double monthlyPayment;
-    private List<Payment> paymentList = new ArrayList<Payment>();
+    private AmortizationEngine engine = AmortizationEngine.RECURRENCE;
+    private AmortizationSchedule schedule = AmortizationSchedule.EMPTY;
 
-    public Date getStartDate()
+    public LocalDate getStartDate()
     {
         return this.startDate;
     }
-    public void setStartDate(Date startDate)
+    public void setStartDate(LocalDate startDate)
     {
         this.startDate = startDate;
     }
@@ -77,10 +76,11 @@ public class MonthlyAmortizationSchedule
     }
     public void setMonthlyPayment(double monthlyPayment) { this.monthlyPayment = monthlyPayment; }
 
-    public List<Payment> getPaymentList() { return this.paymentList; }
-    public void setPaymentList(List<Payment> paymentList) { this.paymentList = paymentList; }
+    public AmortizationEngine getEngine() { return this.engine; }
+    public void setEngine(AmortizationEngine engine) { this.engine = engine; }
 
-    public void addAllPayments(List<Payment> paymentList) { this.paymentList.addAll(paymentList); }
+    public AmortizationSchedule getSchedule() { return this.schedule; }
+    public void setSchedule(AmortizationSchedule schedule) { this.schedule = schedule; }
 
     @Override
     public String toString()
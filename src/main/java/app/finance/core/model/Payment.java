@@ -1,18 +1,18 @@
 package app.finance.core.model;
 
 import org.springframework.format.annotation.DateTimeFormat;
-import java.util.Date;
+import java.time.LocalDate;
 
 public class Payment
 {
     private int paymentNumber;
-    @DateTimeFormat(pattern = "MM/dd/yyyy") private Date paymentDate;
+    @DateTimeFormat(pattern = "MM/dd/yyyy") private LocalDate paymentDate;
     private double balance;
     private double principalPaid;
     private double interestPaid;
     private double accumulatedInterest;
 
-    public Payment(int paymentNumber, Date paymentDate, double balance, double principalPaid, double interestPaid, double accumulatedInterest)
+    public Payment(int paymentNumber, LocalDate paymentDate, double balance, double principalPaid, double interestPaid, double accumulatedInterest)
     {
         setPaymentNumber(paymentNumber);
         setPaymentDate(paymentDate);
@@ -25,11 +25,11 @@ public class Payment
     public int getPaymentNumber() { return this.paymentNumber; }
     public void setPaymentNumber(int paymentNumber) { this.paymentNumber = paymentNumber; }
 
-    public Date getPaymentDate()
+    public LocalDate getPaymentDate()
     {
         return this.paymentDate;
     }
-    public void setPaymentDate(Date paymentDate)
+    public void setPaymentDate(LocalDate paymentDate)
     {
         this.paymentDate = paymentDate;
     }
@@ -0,0 +1,28 @@
+package app.finance.core.model;
+
+/**
+ * A value of a loan over an inclusive range of periods, or at a single period when both ends are equal.
+ */
+public class PeriodValue
+{
+    private final int startPeriod;
+    private final int endPeriod;
+    private final double value;
+
+    public PeriodValue(int startPeriod, int endPeriod, double value)
+    {
+        this.startPeriod = startPeriod;
+        this.endPeriod = endPeriod;
+        this.value = value;
+    }
+
+    public int getStartPeriod() { return this.startPeriod; }
+    public int getEndPeriod() { return this.endPeriod; }
+    public double getValue() { return this.value; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + startPeriod + "," + endPeriod + "," + value + "]";
+    }
+}
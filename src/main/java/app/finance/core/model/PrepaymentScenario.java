@@ -0,0 +1,28 @@
+package app.finance.core.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A named set of extra payments to compare against the loan's regular schedule.
+ */
+public class PrepaymentScenario
+{
+    private String name;
+    private List<ExtraPayment> extraPayments = new ArrayList<ExtraPayment>();
+
+    public String getName() { return this.name; }
+    public void setName(String name) { this.name = name; }
+
+    /**
+     * @return extra payments of the scenario; empty, never null, when the request has none or sends null
+     */
+    public List<ExtraPayment> getExtraPayments() { return this.extraPayments; }
+    public void setExtraPayments(List<ExtraPayment> extraPayments) { this.extraPayments = (extraPayments == null) ? new ArrayList<ExtraPayment>() : extraPayments; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + name + "," + extraPayments + "]";
+    }
+}
@@ -0,0 +1,53 @@
+package app.finance.core.model;
+
+/**
+ * Payments of an adjustable rate loan between two rate resets, all at one rate and one monthly payment.
+ */
+public class RateSegment
+{
+    private final int startPeriod;
+    private final int endPeriod;
+    private final double interestRate;
+    private final double monthlyPayment;
+    private final double startingBalance;
+    private final double amortizedBalance;
+    private final double endingBalance;
+    private final double interestPaid;
+
+    public RateSegment(int startPeriod, int endPeriod, double interestRate, double monthlyPayment, double startingBalance, double amortizedBalance, double endingBalance, double interestPaid)
+    {
+        this.startPeriod = startPeriod;
+        this.endPeriod = endPeriod;
+        this.interestRate = interestRate;
+        this.monthlyPayment = monthlyPayment;
+        this.startingBalance = startingBalance;
+        this.amortizedBalance = amortizedBalance;
+        this.endingBalance = endingBalance;
+        this.interestPaid = interestPaid;
+    }
+
+    public int getStartPeriod() { return this.startPeriod; }
+    public int getEndPeriod() { return this.endPeriod; }
+    public double getInterestRate() { return this.interestRate; }
+    public double getMonthlyPayment() { return this.monthlyPayment; }
+
+    /**
+     * @return balance at the reset, before the segment's first payment
+     */
+    public double getStartingBalance() { return this.startingBalance; }
+
+    /**
+     * @return balance the segment's payment is amortized over, i.e. -FV of the payments before the reset; the
+     * starting balance, except for payments at the beginning of a period, whose balance column runs ahead of it
+     */
+    public double getAmortizedBalance() { return this.amortizedBalance; }
+    public double getEndingBalance() { return this.endingBalance; }
+    public double getInterestPaid() { return this.interestPaid; }
+    public double getPrincipalPaid() { return this.endingBalance - this.startingBalance; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + startPeriod + "," + endPeriod + "," + interestRate + "," + monthlyPayment + "," + startingBalance + "," + amortizedBalance + "," + endingBalance + "," + interestPaid + "]";
+    }
+}
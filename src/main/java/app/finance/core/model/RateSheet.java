@@ -0,0 +1,44 @@
+package app.finance.core.model;
+
+/**
+ * Monthly payment and total interest of one loan amount across a grid of interest rates and terms.
+ * <p/>
+ * Cells are held row-major by rate, so <code>monthlyPayment[i][j]</code> is the payment at
+ * <code>interestRates[i]</code> over <code>durationsInMonths[j]</code>, and serialize as nested arrays
+ * rather than one object per cell.
+ */
+public class RateSheet
+{
+    private final double initialBalance;
+    private final double futureValue;
+    private final int paymentType;
+    private final double[] interestRates;
+    private final int[] durationsInMonths;
+    private final double[][] monthlyPayment;
+    private final double[][] totalInterest;
+
+    public RateSheet(double initialBalance, double futureValue, int paymentType, double[] interestRates, int[] durationsInMonths, double[][] monthlyPayment, double[][] totalInterest)
+    {
+        this.initialBalance = initialBalance;
+        this.futureValue = futureValue;
+        this.paymentType = paymentType;
+        this.interestRates = interestRates;
+        this.durationsInMonths = durationsInMonths;
+        this.monthlyPayment = monthlyPayment;
+        this.totalInterest = totalInterest;
+    }
+
+    public double getInitialBalance() { return this.initialBalance; }
+    public double getFutureValue() { return this.futureValue; }
+    public int getPaymentType() { return this.paymentType; }
+    public double[] getInterestRates() { return this.interestRates; }
+    public int[] getDurationsInMonths() { return this.durationsInMonths; }
+    public double[][] getMonthlyPayment() { return this.monthlyPayment; }
+    public double[][] getTotalInterest() { return this.totalInterest; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + initialBalance + "," + futureValue + "," + paymentType + "," + interestRates.length + "," + durationsInMonths.length + "]";
+    }
+}
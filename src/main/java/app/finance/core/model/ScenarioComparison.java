@@ -0,0 +1,38 @@
+package app.finance.core.model;
+
+import java.util.List;
+
+/**
+ * Prepayment scenarios of one loan side by side with its regular schedule.
+ */
+public class ScenarioComparison
+{
+    private final double monthlyPayment;
+    private final ScenarioResult base;
+    private final List<ScenarioResult> scenarios;
+
+    public ScenarioComparison(double monthlyPayment, ScenarioResult base, List<ScenarioResult> scenarios)
+    {
+        this.monthlyPayment = monthlyPayment;
+        this.base = base;
+        this.scenarios = scenarios;
+    }
+
+    public double getMonthlyPayment() { return this.monthlyPayment; }
+
+    /**
+     * @return the regular schedule, without extra payments
+     */
+    public ScenarioResult getBase() { return this.base; }
+
+    /**
+     * @return one result per requested scenario, in request order
+     */
+    public List<ScenarioResult> getScenarios() { return this.scenarios; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + monthlyPayment + "," + base + "," + scenarios + "]";
+    }
+}
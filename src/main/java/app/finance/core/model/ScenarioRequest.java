@@ -0,0 +1,28 @@
+package app.finance.core.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A loan and the prepayment scenarios to compare against its regular schedule.
+ */
+public class ScenarioRequest
+{
+    private LoanParameters loan;
+    private List<PrepaymentScenario> scenarios = new ArrayList<PrepaymentScenario>();
+
+    public LoanParameters getLoan() { return this.loan; }
+    public void setLoan(LoanParameters loan) { this.loan = loan; }
+
+    /**
+     * @return scenarios to compare; empty, never null, when the request has none or sends null
+     */
+    public List<PrepaymentScenario> getScenarios() { return this.scenarios; }
+    public void setScenarios(List<PrepaymentScenario> scenarios) { this.scenarios = (scenarios == null) ? new ArrayList<PrepaymentScenario>() : scenarios; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + loan + "," + scenarios + "]";
+    }
+}
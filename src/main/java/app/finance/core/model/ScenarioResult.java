@@ -0,0 +1,62 @@
+package app.finance.core.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import java.time.LocalDate;
+
+/**
+ * Outcome of one prepayment scenario: when the loan is paid off and what it costs, against the regular schedule.
+ * Interest totals follow the sign convention of the schedule's interest column.
+ */
+public class ScenarioResult
+{
+    private final String name;
+    private final int payoffPeriod;
+    private final LocalDate payoffDate;
+    private final double totalInterest;
+    private final double totalExtraPaid;
+    private final int monthsSaved;
+    private final double interestSaved;
+    private final AmortizationSchedule schedule;
+
+    public ScenarioResult(String name, int payoffPeriod, LocalDate payoffDate, double totalInterest, double totalExtraPaid, int monthsSaved, double interestSaved, AmortizationSchedule schedule)
+    {
+        this.name = name;
+        this.payoffPeriod = payoffPeriod;
+        this.payoffDate = payoffDate;
+        this.totalInterest = totalInterest;
+        this.totalExtraPaid = totalExtraPaid;
+        this.monthsSaved = monthsSaved;
+        this.interestSaved = interestSaved;
+        this.schedule = schedule;
+    }
+
+    public String getName() { return this.name; }
+
+    /**
+     * @return number of the payment that pays the loan off
+     */
+    public int getPayoffPeriod() { return this.payoffPeriod; }
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING)
+    public LocalDate getPayoffDate() { return this.payoffDate; }
+    public double getTotalInterest() { return this.totalInterest; }
+    public double getTotalExtraPaid() { return this.totalExtraPaid; }
+    public int getMonthsSaved() { return this.monthsSaved; }
+
+    /**
+     * @return interest not paid compared to the regular schedule, positive when the scenario pays less
+     */
+    public double getInterestSaved() { return this.interestSaved; }
+
+    /**
+     * @return the scenario's schedule through its payoff, principal including extra payments, or
+     * <code>null</code> unless schedules were requested
+     */
+    public AmortizationSchedule getSchedule() { return this.schedule; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + name + "," + payoffPeriod + "," + payoffDate + "," + totalInterest + "," + totalExtraPaid + "," + monthsSaved + "," + interestSaved + "]";
+    }
+}
@@ -0,0 +1,25 @@
+package app.finance.core.model;
+
+/**
+ * Output formats of the schedule export endpoints.
+ */
+public enum ScheduleFormat
+{
+    /** One JSON array holding every row. */
+    JSON("application/json"),
+
+    /** One JSON object per line, see http://ndjson.org/ */
+    NDJSON("application/x-ndjson"),
+
+    /** Comma separated values with a header line. */
+    CSV("text/csv");
+
+    private final String contentType;
+
+    ScheduleFormat(String contentType)
+    {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() { return this.contentType; }
+}
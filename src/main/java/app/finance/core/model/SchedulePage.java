@@ -0,0 +1,58 @@
+package app.finance.core.model;
+
+import java.util.List;
+
+/**
+ * One page of an amortization schedule: the payments of the page and where it lies in the whole schedule.
+ */
+public class SchedulePage
+{
+    private final int page;
+    private final int size;
+    private final int totalPayments;
+    private final AmortizationSchedule schedule;
+
+    /**
+     * @param page          zero based page number
+     * @param size          payments per page; the last page may hold fewer
+     * @param totalPayments payments in the whole schedule
+     * @param schedule      payments of this page
+     */
+    public SchedulePage(int page, int size, int totalPayments, AmortizationSchedule schedule)
+    {
+        this.page = page;
+        this.size = size;
+        this.totalPayments = totalPayments;
+        this.schedule = schedule;
+    }
+
+    public int getPage() { return this.page; }
+    public int getSize() { return this.size; }
+    public int getTotalPayments() { return this.totalPayments; }
+    public int getTotalPages() { return (totalPayments + size - 1) / size; }
+    public boolean isFirst() { return page == 0; }
+    public boolean isLast() { return page >= getTotalPages() - 1; }
+
+    /**
+     * @return payment number of the first payment of the page
+     */
+    public int getFirstPaymentNumber() { return schedule.firstPaymentNumber(); }
+
+    /**
+     * @return payment number of the last payment of the page, one less than the first if the page is empty
+     */
+    public int getLastPaymentNumber() { return schedule.firstPaymentNumber() + schedule.size() - 1; }
+
+    public List<AmortizationSchedule.Row> getPayments() { return schedule.getRows(); }
+
+    /**
+     * @return the payments of the page as a schedule window, for rendering
+     */
+    public AmortizationSchedule schedule() { return this.schedule; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + page + "," + size + "," + totalPayments + "," + schedule.size() + "]";
+    }
+}
@@ -0,0 +1,73 @@
+package app.finance.core.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A schedule request as read from the form or API parameters: the loan, the page or export format asked
+ * for, and every value that could not be read, as messages rather than exceptions.
+ */
+public class ScheduleRequest
+{
+    /** Bits of the loan fields a schedule cannot do without, for {@link #given(int)}. */
+    public static final int START_DATE = 1;
+    public static final int INITIAL_BALANCE = 2;
+    public static final int INTEREST_RATE = 4;
+    public static final int DURATION_IN_MONTHS = 8;
+
+    private final MonthlyAmortizationSchedule loan = new MonthlyAmortizationSchedule();
+    private int page;
+    private Integer size;
+    private ScheduleFormat format = ScheduleFormat.JSON;
+    private List<String> errors = Collections.emptyList();
+    private int fieldsGiven;
+
+    public MonthlyAmortizationSchedule getLoan() { return this.loan; }
+
+    public int getPage() { return this.page; }
+    public void setPage(int page) { this.page = page; }
+
+    /**
+     * @return payments per page, <code>null</code> if not given
+     */
+    public Integer getSize() { return this.size; }
+    public void setSize(Integer size) { this.size = size; }
+
+    public ScheduleFormat getFormat() { return this.format; }
+    public void setFormat(ScheduleFormat format) { this.format = format; }
+
+    /**
+     * Records that a field was given a value, whether or not the value could be read.
+     * @param field one of {@link #START_DATE}, {@link #INITIAL_BALANCE}, {@link #INTEREST_RATE} or {@link #DURATION_IN_MONTHS}
+     */
+    public void given(int field) { fieldsGiven |= field; }
+    public boolean isGiven(int field) { return (fieldsGiven & field) != 0; }
+
+    public List<String> getErrors() { return this.errors; }
+    public boolean hasErrors() { return !errors.isEmpty(); }
+
+    /**
+     * @return every error, separated by "; "
+     */
+    public String getErrorMessage() { return String.join("; ", errors); }
+
+    /**
+     * Records a value that could not be read; the request carries on with the field's default.
+     * @param message e.g. "durationInMonths must be a whole number: 3x"
+     */
+    public void reject(String message)
+    {
+        if (errors.isEmpty())
+        {
+            errors = new ArrayList<String>(2);
+        }
+        errors.add(message);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + loan + "," + page + "," + size + "," + format + "," + errors + "]";
+    }
+}
@@ -0,0 +1,57 @@
+package app.finance.core.model;
+
+/**
+ * Distributions of a loan's cost and life over simulated rate paths.
+ */
+public class SimulationResult
+{
+    private final int paths;
+    private final long seed;
+    private final Distribution interestPaid;
+    private final Distribution payoffPeriod;
+    private final Distribution maxInterestRate;
+    private final double prepaidFraction;
+
+    public SimulationResult(int paths, long seed, Distribution interestPaid, Distribution payoffPeriod, Distribution maxInterestRate, double prepaidFraction)
+    {
+        this.paths = paths;
+        this.seed = seed;
+        this.interestPaid = interestPaid;
+        this.payoffPeriod = payoffPeriod;
+        this.maxInterestRate = maxInterestRate;
+        this.prepaidFraction = prepaidFraction;
+    }
+
+    public int getPaths() { return this.paths; }
+
+    /**
+     * @return seed that repeats this simulation
+     */
+    public long getSeed() { return this.seed; }
+
+    /**
+     * @return total interest paid until payoff, as positive amounts
+     */
+    public Distribution getInterestPaid() { return this.interestPaid; }
+
+    /**
+     * @return number of the payment that pays the loan off, by prepayment or at the end of its term
+     */
+    public Distribution getPayoffPeriod() { return this.payoffPeriod; }
+
+    /**
+     * @return highest rate the loan resets to before payoff
+     */
+    public Distribution getMaxInterestRate() { return this.maxInterestRate; }
+
+    /**
+     * @return share of paths prepaid before the end of the term
+     */
+    public double getPrepaidFraction() { return this.prepaidFraction; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + paths + "," + seed + "," + interestPaid + "," + payoffPeriod + "," + maxInterestRate + "," + prepaidFraction + "]";
+    }
+}
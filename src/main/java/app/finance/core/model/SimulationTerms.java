@@ -0,0 +1,64 @@
+package app.finance.core.model;
+
+/**
+ * Stochastic assumptions of a rate path simulation.  The index starts at initialIndex and moves at each reset
+ * by mean reversion towards longRunIndex plus a normal shock; the loan prepays in full in any month with the
+ * probability implied by its conditional prepayment rate (CPR), which rises with the refinance incentive.
+ * Rates and CPR are in percent.
+ */
+public class SimulationTerms
+{
+    private int paths = 10000;
+    private Long seed;
+    private double initialIndex = 3;
+    private double indexVolatility = 1;
+    private double meanReversion = 0.1;
+    private double longRunIndex = 3;
+    private double cpr = 6;
+    private double refinanceSensitivity = 10;
+
+    public int getPaths() { return this.paths; }
+    public void setPaths(int paths) { this.paths = paths; }
+
+    /**
+     * @return seed of the random numbers, which makes a simulation repeatable; <code>null</code> for a new one each time
+     */
+    public Long getSeed() { return this.seed; }
+    public void setSeed(Long seed) { this.seed = seed; }
+
+    public double getInitialIndex() { return this.initialIndex; }
+    public void setInitialIndex(double initialIndex) { this.initialIndex = initialIndex; }
+
+    /**
+     * @return standard deviation of the index over one year, in percentage points
+     */
+    public double getIndexVolatility() { return this.indexVolatility; }
+    public void setIndexVolatility(double indexVolatility) { this.indexVolatility = indexVolatility; }
+
+    /**
+     * @return fraction of the gap to the long run index closed per year; 0 for a random walk
+     */
+    public double getMeanReversion() { return this.meanReversion; }
+    public void setMeanReversion(double meanReversion) { this.meanReversion = meanReversion; }
+
+    public double getLongRunIndex() { return this.longRunIndex; }
+    public void setLongRunIndex(double longRunIndex) { this.longRunIndex = longRunIndex; }
+
+    /**
+     * @return yearly prepayment rate when refinancing would not lower the loan's rate
+     */
+    public double getCpr() { return this.cpr; }
+    public void setCpr(double cpr) { this.cpr = cpr; }
+
+    /**
+     * @return CPR added per percentage point the loan's rate exceeds the fully indexed rate
+     */
+    public double getRefinanceSensitivity() { return this.refinanceSensitivity; }
+    public void setRefinanceSensitivity(double refinanceSensitivity) { this.refinanceSensitivity = refinanceSensitivity; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + paths + "," + seed + "," + initialIndex + "," + indexVolatility + "," + meanReversion + "," + longRunIndex + "," + cpr + "," + refinanceSensitivity + "]";
+    }
+}
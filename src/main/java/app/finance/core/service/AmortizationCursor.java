@@ -0,0 +1,294 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Steps through the payments of a schedule one row at a time, holding only the current row, so a schedule
+ * of any length can be consumed or written out in constant memory.
+ * <p/>
+ * Obtain one from {@link AmortizationService#openCursor}; call {@link #next()} before reading each row.
+ */
+public final class AmortizationCursor
+{
+    /**
+     * Yearly rates are held by the exact cents engine as whole units of 1/100000 of a percent, which
+     * represents every rate quoted in 1/8 or 1/1000 point steps exactly.
+     */
+    static final long RATE_UNITS_PER_PERCENT = 100000;
+
+    /**
+     * Rate units per whole monthly rate: 100 percent, 12 months a year.
+     */
+    private static final long MONTHLY_RATE_DIVISOR = RATE_UNITS_PER_PERCENT * 100 * 12;
+
+    /**
+     * Largest amount, in currency units, the exact cents engine holds in cents.
+     */
+    static final double MAX_EXACT_CENTS_AMOUNT = 1e15;
+
+    /**
+     * Largest yearly rate, in percent, the exact cents engine holds in rate units.
+     */
+    static final double MAX_EXACT_CENTS_RATE = 1e6;
+
+    private final PaymentService paymentService;
+    private final PaymentDateSequencer dates;
+    private final AmortizationEngine engine;
+    private final double initialBalance;
+    private final int durationInMonths;
+    private final int paymentType;
+    private final double futureValue;
+    private final double r;
+    private final double pmt;
+    private final double growth;
+    private final double periodPayment;
+    private final double interestFactor;
+    private final long rateUnits;
+    private final long pmtCents;
+    private final long interestBaseOffsetCents;
+    private final long finalBalanceCents;
+
+    private double fvBalance;
+    private int paymentNumber;
+    private int paymentDate;
+    private double balance;
+    private double principalPaid;
+    private double interestPaid;
+    private double accumulatedInterest;
+    private long balanceCents;
+    private long accumulatedInterestCents;
+
+    AmortizationCursor(PaymentService paymentService, LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
+    {
+        this.paymentService = paymentService;
+        this.dates = (startDate == null) ? null : new PaymentDateSequencer(startDate, paymentType);
+        this.engine = (engine == null) ? AmortizationEngine.RECURRENCE : engine;
+        this.initialBalance = initialBalance;
+        this.durationInMonths = durationInMonths;
+        this.paymentType = paymentType;
+        this.futureValue = futureValue;
+        this.r = paymentService.getMonthlyInterestRate(interestRate);
+        double pmt = paymentService.pmt(r, durationInMonths, initialBalance, futureValue, paymentType);
+
+        // payments at the beginning of a period accrue one period less interest.
+        this.growth = 1 + r;
+        this.periodPayment = (paymentType == 1) ? pmt * growth : pmt;
+        this.interestFactor = (paymentType == 1) ? r / growth : r;
+
+        this.fvBalance = initialBalance;
+        this.balance = initialBalance;
+
+        if (this.engine == AmortizationEngine.EXACT_CENTS)
+        {
+            this.rateUnits = toRateUnits(interestRate);
+            this.pmtCents = toCents(pmt);
+            this.balanceCents = toCents(initialBalance);
+            this.balance = balanceCents / 100.0;
+            checkCentsRange(initialBalance, futureValue, interestRate);
+
+            // for payments at the beginning of a period the closed form engines charge interest on the
+            // balance less pv * r / (1 + r), the FV balance of stepRecurrence() discounted one period.
+            this.interestBaseOffsetCents = (paymentType == 1) ? divideHalfUp(Math.multiplyExact(balanceCents, rateUnits), MONTHLY_RATE_DIVISOR + rateUnits) : 0;
+
+            // where the closed form engines end, i.e. balance after the last payment = pv + CUMPRINC(1..N)
+            this.finalBalanceCents = (durationInMonths > 0) ? toCents(initialBalance + paymentService.cumprinc(r, durationInMonths, initialBalance, futureValue, paymentType, 1, durationInMonths)) : 0;
+            pmt = pmtCents / 100.0;
+        }
+        else
+        {
+            this.rateUnits = 0;
+            this.pmtCents = 0;
+            this.interestBaseOffsetCents = 0;
+            this.finalBalanceCents = 0;
+        }
+        this.pmt = pmt;
+    }
+
+    /**
+     * Advances to the next payment.  Every {@link AmortizationService#RECURRENCE_CHECKPOINT_INTERVAL} payments
+     * the cursor gives up if its thread has been interrupted, as a timed out calculation's thread is.
+     * @return <code>false</code> once every payment has been visited
+     * @throws CancellationException if the current thread has been interrupted
+     */
+    public boolean next()
+    {
+        if (paymentNumber >= durationInMonths)
+        {
+            return false;
+        }
+        paymentNumber++;
+        if (paymentNumber % AmortizationService.RECURRENCE_CHECKPOINT_INTERVAL == 0 && Thread.currentThread().isInterrupted())
+        {
+            throw new CancellationException("Calculation interrupted at payment " + paymentNumber);
+        }
+        if (dates != null)
+        {
+            paymentDate = dates.next();
+        }
+
+        if (engine == AmortizationEngine.EXACT_CENTS)
+        {
+            stepExactCents();
+            return true;
+        }
+        if (engine == AmortizationEngine.CLOSED_FORM)
+        {
+            principalPaid = paymentService.ppmt(r, paymentNumber, durationInMonths, initialBalance, futureValue, paymentType);
+            interestPaid = paymentService.ipmt(r, paymentNumber, durationInMonths, initialBalance, futureValue, paymentType);
+        }
+        else
+        {
+            stepRecurrence();
+        }
+        balance = balance + principalPaid;
+        accumulatedInterest += interestPaid;
+        return true;
+    }
+
+    /**
+     * Moves the cursor to just after a later payment without visiting the payments in between, so that
+     * segments of one schedule can be computed independently.  The recurrence re-anchors on the closed form
+     * FV exactly as at a checkpoint; balance and accumulated interest count from zero again, for the caller to
+     * offset by the sums of the skipped payments.
+     * <p/>
+     * Only for cursors opened without a start date, and not for the exact cents engine, whose rounding
+     * depends on every earlier row.
+     * @param paymentNumber payment to stand after, 0 for the start of the schedule
+     */
+    void skipTo(int paymentNumber)
+    {
+        if (dates != null || engine == AmortizationEngine.EXACT_CENTS)
+        {
+            throw new IllegalStateException("Cannot skip payments of a dated or exact cents cursor");
+        }
+        this.paymentNumber = paymentNumber;
+        this.balance = 0;
+        this.accumulatedInterest = 0;
+        this.fvBalance = (paymentNumber == 0) ? initialBalance : -paymentService.fv(r, paymentNumber, pmt, initialBalance, paymentType);
+    }
+
+    /**
+     * interest = balance * r, principal = pmt - interest.
+     * <p/>
+     * The running balance is the same quantity the closed form IPMT derives from FV(r, per-1, pmt, pv, type),
+     * so rows agree with the closed form engine.  Every {@link AmortizationService#RECURRENCE_CHECKPOINT_INTERVAL}
+     * periods the running balance is replaced by the closed form FV so that rounding error cannot accumulate
+     * over long terms.
+     */
+    private void stepRecurrence()
+    {
+        interestPaid = (r == 0) ? 0 : -fvBalance * interestFactor;
+        principalPaid = pmt - interestPaid;
+
+        // step the balance the closed form FV is based on, re-anchoring at checkpoints.
+        if (paymentNumber % AmortizationService.RECURRENCE_CHECKPOINT_INTERVAL == 0)
+        {
+            fvBalance = -paymentService.fv(r, paymentNumber, pmt, initialBalance, paymentType);
+        }
+        else
+        {
+            fvBalance = fvBalance * growth + periodPayment;
+        }
+    }
+
+    /**
+     * The recurrence of {@link #stepRecurrence()} in whole cents, without its checkpoints, which rounding
+     * each period makes unnecessary: interest is the rate applied to the balance, rounded half up to a cent,
+     * and principal is the rounded payment less interest.  The last payment repays whatever principal is
+     * left so the balance ends where the closed form engines end, to the cent.
+     */
+    private void stepExactCents()
+    {
+        long interestCents = -divideHalfUp(Math.multiplyExact(balanceCents - interestBaseOffsetCents, rateUnits), MONTHLY_RATE_DIVISOR);
+        long principalCents = (paymentNumber == durationInMonths) ? finalBalanceCents - balanceCents : pmtCents - interestCents;
+
+        balanceCents += principalCents;
+        accumulatedInterestCents += interestCents;
+
+        balance = balanceCents / 100.0;
+        principalPaid = principalCents / 100.0;
+        interestPaid = interestCents / 100.0;
+        accumulatedInterest = accumulatedInterestCents / 100.0;
+    }
+
+    /**
+     * The balance runs from pv to -fv without passing either, so interest is charged on at most the larger of
+     * them plus the discount of payments at the beginning of a period, which is no larger.  Rejects loans whose
+     * balance times the rate units could leave a long, leaving room for the offset and rounding, so that no row
+     * fails half way through a schedule.
+     * @throws IllegalArgumentException if the loan is too large to step in whole cents
+     */
+    private void checkCentsRange(double initialBalance, double futureValue, double interestRate)
+    {
+        long largestCents = Math.max(Math.abs(balanceCents), Math.abs(toCents(futureValue)));
+        if (largestCents > Long.MAX_VALUE / 4 / Math.max(Math.abs(rateUnits), 1))
+        {
+            throw new IllegalArgumentException("initialBalance " + initialBalance + " and futureValue " + futureValue
+                    + " are too large for exact cents at interestRate " + interestRate);
+        }
+    }
+
+    /**
+     * Rounds an amount to whole cents, half up, by its shortest decimal representation so that e.g. 1.005 is 101 cents.
+     * @throws IllegalArgumentException if the amount is not finite or is larger than {@link #MAX_EXACT_CENTS_AMOUNT}
+     */
+    static long toCents(double amount)
+    {
+        if (!(Math.abs(amount) <= MAX_EXACT_CENTS_AMOUNT))
+        {
+            throw new IllegalArgumentException("amount must be finite and at most " + MAX_EXACT_CENTS_AMOUNT + " for exact cents: " + amount);
+        }
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Rates at or below -1200% leave no balance to discount, so they are rejected with rates above
+     * {@link #MAX_EXACT_CENTS_RATE}.
+     * @see #RATE_UNITS_PER_PERCENT
+     * @throws IllegalArgumentException if the rate is out of range
+     */
+    static long toRateUnits(double interestRate)
+    {
+        if (!(interestRate > -100 * 12 && interestRate <= MAX_EXACT_CENTS_RATE))
+        {
+            throw new IllegalArgumentException("interestRate must be above -1200 and at most " + MAX_EXACT_CENTS_RATE + " for exact cents: " + interestRate);
+        }
+        return BigDecimal.valueOf(interestRate).setScale(5, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Integer division rounding half away from zero.
+     * @param dividend any value
+     * @param divisor  positive divisor
+     */
+    static long divideHalfUp(long dividend, long divisor)
+    {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) >= divisor - Math.abs(remainder))
+        {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    /**
+     * @return double monthly payment; rounded to whole cents by the exact cents engine
+     */
+    public double getMonthlyPayment() { return pmt; }
+
+    public int getPaymentNumber() { return paymentNumber; }
+
+    /**
+     * @return int epoch day of the current payment; 0 if the cursor was opened without a start date
+     */
+    public int getPaymentDate() { return paymentDate; }
+    public double getBalance() { return balance; }
+    public double getPrincipalPaid() { return principalPaid; }
+    public double getInterestPaid() { return interestPaid; }
+    public double getAccumulatedInterest() { return accumulatedInterest; }
+}
@@ -1,13 +1,17 @@
 package app.finance.core.service;
 
+import app.finance.core.model.AmortizationColumns;
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
 import app.finance.core.model.MonthlyAmortizationSchedule;
 import app.finance.core.model.Payment;
+import app.finance.core.model.SchedulePage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Service methods for calculating the payment amortization.
@@ -15,9 +19,61 @@ import java.util.List;
 @Service
 public class AmortizationService
 {
+    /**
+     * Number of periods the recurrence engine steps before re-anchoring its running balance
+     * against the closed form FV.  Between checkpoints the recurrence stays within 1e-9 of the
+     * closed form balance per unit of initial balance.
+     */
+    static final int RECURRENCE_CHECKPOINT_INTERVAL = 60;
+
+    /**
+     * Longest loan term accepted from a request, a century of monthly payments, so no request can ask for
+     * columns or a stream of unbounded length.
+     */
+    public static final int MAX_DURATION_IN_MONTHS = 1200;
+
+    /**
+     * Largest difference, per unit of loan value, allowed between a scaled unit-balance schedule and
+     * the closed form values for the actual balance before the unit-balance columns are shared.
+     */
+    static final double NORMALIZED_TOLERANCE = 1e-9;
+
+    /**
+     * Payments per segment of a schedule calculated in parallel; a whole number of recurrence checkpoint
+     * intervals, so each segment starts where the sequential recurrence re-anchors.
+     */
+    static final int PARALLEL_SEGMENT_LENGTH = 20 * RECURRENCE_CHECKPOINT_INTERVAL;
+
+    /**
+     * Segments cost a second pass over the running sums, so on a single processor one pass is always faster.
+     */
+    private static final int PARALLEL_PROCESSORS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Schedules with at least this many payments are calculated in parallel segments, except by the exact
+     * cents engine; 0 calculates every schedule in one pass.
+     */
+    @Value("${schedule.parallel.threshold:4800}")
+    private int parallelThreshold;
+
+    /**
+     * Payments per page when a page is requested without a size.
+     */
+    @Value("${schedule.page.size:60}")
+    private int defaultPageSize;
+
+    /**
+     * Most payments a single page may hold.
+     */
+    @Value("${schedule.page.maxSize:1200}")
+    private int maxPageSize;
+
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private ScheduleCache scheduleCache;
+
     /**
      * Modifies reference to monthlyAmortizationSchedule to resolve values of empty fields.
      * @param monthlyAmortizationSchedule object containing all required loan parameters and calculations
@@ -25,72 +81,406 @@ public class AmortizationService
     public void initializeUnknownFields(MonthlyAmortizationSchedule monthlyAmortizationSchedule)
     {
         // extract required parameters
-        Date startDate = monthlyAmortizationSchedule.getStartDate();
+        LocalDate startDate = monthlyAmortizationSchedule.getStartDate();
         double initialBalance = monthlyAmortizationSchedule.getInitialBalance();
         double interestRate = monthlyAmortizationSchedule.getInterestRate();
         int durationInMonths = monthlyAmortizationSchedule.getDurationInMonths();
         double futureValue = monthlyAmortizationSchedule.getFutureValue();
         int paymentType = monthlyAmortizationSchedule.getPaymentType();
+        AmortizationEngine engine = monthlyAmortizationSchedule.getEngine();
 
         // compute monthly payment
-        double monthlyPayment = paymentService.pmt(paymentService.getMonthlyInterestRate(interestRate), durationInMonths, initialBalance, futureValue, paymentType);
+        initializeMonthlyPayment(monthlyAmortizationSchedule);
+
+        // calculate detailed payment schedule
+        AmortizationSchedule schedule = getSchedule(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+        monthlyAmortizationSchedule.setSchedule(schedule);
+    }
+
+    /**
+     * Modifies reference to monthlyAmortizationSchedule to resolve values of empty fields, calculating only
+     * one page of its schedule, see {@link #getSchedulePage}.
+     * @param monthlyAmortizationSchedule object containing all required loan parameters and calculations
+     * @param page zero based page number
+     * @param size payments per page
+     * @return SchedulePage whose payments are also set as the schedule of monthlyAmortizationSchedule
+     */
+    public SchedulePage initializePage(MonthlyAmortizationSchedule monthlyAmortizationSchedule, int page, int size)
+    {
+        initializeMonthlyPayment(monthlyAmortizationSchedule);
+
+        SchedulePage schedulePage = getSchedulePage(monthlyAmortizationSchedule.getStartDate(), monthlyAmortizationSchedule.getInitialBalance(),
+                monthlyAmortizationSchedule.getDurationInMonths(), monthlyAmortizationSchedule.getPaymentType(), monthlyAmortizationSchedule.getInterestRate(),
+                monthlyAmortizationSchedule.getFutureValue(), monthlyAmortizationSchedule.getEngine(), page, size);
+        monthlyAmortizationSchedule.setSchedule(schedulePage.schedule());
+        return schedulePage;
+    }
+
+    private void initializeMonthlyPayment(MonthlyAmortizationSchedule monthlyAmortizationSchedule)
+    {
+        double r = paymentService.getMonthlyInterestRate(monthlyAmortizationSchedule.getInterestRate());
+        double monthlyPayment = paymentService.pmt(r, monthlyAmortizationSchedule.getDurationInMonths(), monthlyAmortizationSchedule.getInitialBalance(),
+                monthlyAmortizationSchedule.getFutureValue(), monthlyAmortizationSchedule.getPaymentType());
+        if (monthlyAmortizationSchedule.getEngine() == AmortizationEngine.EXACT_CENTS)
+        {
+            monthlyPayment = AmortizationCursor.toCents(monthlyPayment) / 100.0;
+        }
         monthlyAmortizationSchedule.setMonthlyPayment(monthlyPayment);
+    }
+
+    /**
+     * Calculates one page of the payment schedule given parameters, without calculating the payments before
+     * or after it, so a page costs time in proportion to its size rather than to the loan term.
+     * <p/>
+     * The cursor skips to the recurrence checkpoint at or before the page and steps from there, so principal
+     * and interest match the whole schedule row for row; balance and accumulated interest are offset by the
+     * closed form CUMPRINC and CUMIPMT of the skipped payments.  The exact cents engine rounds every row on
+     * the one before it, so it steps through every payment before the page.
+     * @param startDate loan start date
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param engine how the rows are computed; <code>null</code> selects the recurrence engine
+     * @param page zero based page number
+     * @param size payments per page, at most <code>schedule.page.maxSize</code>
+     * @return SchedulePage holding the payments of the page
+     */
+    public SchedulePage getSchedulePage(LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine, int page, int size)
+    {
+        if (size < 1 || size > maxPageSize)
+        {
+            throw new IllegalArgumentException("size must be between 1 and " + maxPageSize + ": " + size);
+        }
+        int totalPayments = Math.max(durationInMonths, 0);
+        long totalPages = (totalPayments + (long) size - 1) / size;
+        if (page < 0 || (page > 0 && page >= totalPages))
+        {
+            throw new IllegalArgumentException("page must be between 0 and " + Math.max(totalPages - 1, 0) + ": " + page);
+        }
+        if (engine == null)
+        {
+            engine = AmortizationEngine.RECURRENCE;
+        }
+
+        int first = page * size;
+        int count = Math.min(size, totalPayments - first);
+        double[] balance = new double[count];
+        double[] principalPaid = new double[count];
+        double[] interestPaid = new double[count];
+        double[] accumulatedInterest = new double[count];
 
-        // calculate detailed payment list
-        List<Payment> paymentList = calculatePaymentList(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue);
-        monthlyAmortizationSchedule.addAllPayments(paymentList);
+        AmortizationCursor cursor = openCursor(null, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+        double balanceBefore = 0;
+        double interestBefore = 0;
+        int paymentNumber = 0;
+        int checkpoint = first - first % RECURRENCE_CHECKPOINT_INTERVAL;
+        if (checkpoint > 0 && engine != AmortizationEngine.EXACT_CENTS)
+        {
+            double r = paymentService.getMonthlyInterestRate(interestRate);
+            cursor.skipTo(checkpoint);
+            balanceBefore = initialBalance + paymentService.cumprinc(r, durationInMonths, initialBalance, futureValue, paymentType, 1, checkpoint);
+            interestBefore = paymentService.cumipmt(r, durationInMonths, initialBalance, futureValue, paymentType, 1, checkpoint);
+            paymentNumber = checkpoint;
+        }
+        while (paymentNumber < first && cursor.next())
+        {
+            paymentNumber++;
+        }
+        for (int i = 0; i < count && cursor.next(); i++)
+        {
+            balance[i] = balanceBefore + cursor.getBalance();
+            principalPaid[i] = cursor.getPrincipalPaid();
+            interestPaid[i] = cursor.getInterestPaid();
+            accumulatedInterest[i] = interestBefore + cursor.getAccumulatedInterest();
+        }
+
+        int[] paymentDate = new int[count];
+        PaymentDateSequencer dates = new PaymentDateSequencer(startDate, paymentType);
+        dates.skip(first);
+        for (int i = 0; i < count; i++)
+        {
+            paymentDate[i] = dates.next();
+        }
+        AmortizationColumns columns = new AmortizationColumns(balance, principalPaid, interestPaid, accumulatedInterest);
+        return new SchedulePage(page, size, totalPayments, new AmortizationSchedule(paymentDate, columns, 1, first + 1));
     }
 
+    public int getDefaultPageSize() { return defaultPageSize; }
+    public int getMaxPageSize() { return maxPageSize; }
+
     /**
-     * Calculates the monthly payment and the list of payments given parameters.
+     * Returns the payment schedule given parameters, sharing columns already calculated for the same loan terms.
+     * <p/>
+     * Every column is linear in the initial balance for a fixed ratio of future value to initial balance, so
+     * columns are cached for a balance of 1.0 and scaled to the requested balance as rows are read.  Thousands
+     * of loan amounts at the same rate and term therefore share one calculation.  Exact cents schedules are
+     * always calculated for the requested balance.
+     * <p/>
+     * Terms whose unit-balance columns do not scale within {@link #NORMALIZED_TOLERANCE} are remembered as
+     * unshared, so later loans with those terms are calculated directly without checking again.
      * @param startDate loan start date
      * @param initialBalance loan initial balance
      * @param durationInMonths loan duration in months
      * @param paymentType loan payment type
      * @param interestRate loan interest rate
      * @param futureValue loan expected future value
-     * @return List of payments and the monthly payment amount
+     * @param engine how the rows are computed; <code>null</code> selects the recurrence engine
+     * @return AmortizationSchedule with one row per payment
      */
-    public List<Payment> calculatePaymentList(Date startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue)
+    public AmortizationSchedule getSchedule(LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
     {
-        List<Payment> paymentList = new ArrayList<Payment>();
-        Date loopDate = startDate;
-        double balance = initialBalance;
-        double accumulatedInterest = 0;
-        for (int paymentNumber = 1; paymentNumber <= durationInMonths; paymentNumber++)
+        if (engine == null)
+        {
+            engine = AmortizationEngine.RECURRENCE;
+        }
+        if (initialBalance == 0 || Double.isNaN(initialBalance) || Double.isInfinite(initialBalance) || engine == AmortizationEngine.EXACT_CENTS)
         {
-            if (paymentType == 0)
+            // nothing to scale by, or rounded to cents, which does not scale.
+            return calculateSchedule(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+        }
+
+        double futureValueRatio = futureValue / initialBalance;
+        ScheduleCache.Key key = new ScheduleCache.Key(interestRate, durationInMonths, futureValueRatio, paymentType, engine);
+        AmortizationColumns columns = scheduleCache.get(key);
+        if (columns == ScheduleCache.UNSHARED)
+        {
+            return calculateSchedule(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+        }
+        if (columns == null)
+        {
+            columns = calculateColumns(1, durationInMonths, paymentType, interestRate, futureValueRatio, engine);
+            if (!isWithinTolerance(columns, initialBalance, durationInMonths, paymentType, interestRate, futureValue))
             {
-                loopDate = addOneMonth(loopDate);
+                // the scaled error is the same fraction of any balance, so the terms are never worth checking again
+                scheduleCache.put(key, ScheduleCache.UNSHARED);
+                return calculateSchedule(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
             }
-            double principalPaid = paymentService.ppmt(paymentService.getMonthlyInterestRate(interestRate), paymentNumber, durationInMonths, initialBalance, futureValue, paymentType);
-            double interestPaid = paymentService.ipmt(paymentService.getMonthlyInterestRate(interestRate), paymentNumber, durationInMonths, initialBalance, futureValue, paymentType);
-            balance = balance + principalPaid;
-            accumulatedInterest += interestPaid;
+            scheduleCache.put(key, columns);
+        }
 
-            Payment payment = new Payment(paymentNumber, loopDate, balance, principalPaid, interestPaid, accumulatedInterest);
+        // only the payment dates depend on the start date
+        return projectDates(startDate, paymentType, columns, initialBalance);
+    }
 
-            paymentList.add(payment);
+    /**
+     * Checks the first row, the row at every recurrence checkpoint and the last row of unit-balance columns,
+     * scaled to the requested balance, against closed form PPMT and IPMT for that balance.  Recurrence error
+     * peaks just before a checkpoint re-anchors it, so the checkpoints see an error anywhere in the columns.
+     */
+    private boolean isWithinTolerance(AmortizationColumns columns, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue)
+    {
+        if (columns.size() == 0)
+        {
+            return true;
+        }
+        double r = paymentService.getMonthlyInterestRate(interestRate);
+        double tolerance = NORMALIZED_TOLERANCE * Math.max(Math.abs(initialBalance), Math.abs(futureValue));
+        for (int per = 1; per <= durationInMonths; per = nextCheckedPeriod(per, durationInMonths))
+        {
+            double principalPaid = paymentService.ppmt(r, per, durationInMonths, initialBalance, futureValue, paymentType);
+            double interestPaid = paymentService.ipmt(r, per, durationInMonths, initialBalance, futureValue, paymentType);
+            if (!(Math.abs(columns.principalPaidAt(per - 1) * initialBalance - principalPaid) <= tolerance
+                    && Math.abs(columns.interestPaidAt(per - 1) * initialBalance - interestPaid) <= tolerance))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
 
-            if (paymentType == 1)
+    private static int nextCheckedPeriod(int per, int durationInMonths)
+    {
+        if (per == durationInMonths)
+        {
+            return per + 1;
+        }
+        return Math.min(per - per % RECURRENCE_CHECKPOINT_INTERVAL + RECURRENCE_CHECKPOINT_INTERVAL, durationInMonths);
+    }
+
+    /**
+     * Calculates the list of payments given parameters, using the selected engine.
+     * @param startDate loan start date
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param engine how the rows are computed; <code>null</code> selects the recurrence engine
+     * @return List of payments
+     */
+    public List<Payment> calculatePaymentList(LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
+    {
+        return calculateSchedule(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine).toPaymentList();
+    }
+
+    /**
+     * Calculates the list of payments given parameters, evaluating PPMT and IPMT in closed form for every period.
+     * @param startDate loan start date
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @return List of payments
+     */
+    public List<Payment> calculatePaymentList(LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue)
+    {
+        return calculatePaymentList(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, AmortizationEngine.CLOSED_FORM);
+    }
+
+    /**
+     * Calculates the columnar payment schedule given parameters, using the selected engine.
+     * @param startDate loan start date
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param engine how the rows are computed; <code>null</code> selects the recurrence engine
+     * @return AmortizationSchedule with one row per payment
+     */
+    public AmortizationSchedule calculateSchedule(LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
+    {
+        AmortizationColumns columns = calculateColumns(initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+        return projectDates(startDate, paymentType, columns);
+    }
+
+    /**
+     * Calculates the start date independent columns of a payment schedule, using the selected engine.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param engine how the rows are computed; <code>null</code> selects the recurrence engine
+     * @return AmortizationColumns with one row per payment
+     */
+    public AmortizationColumns calculateColumns(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
+    {
+        if (parallelThreshold > 0 && durationInMonths >= parallelThreshold && engine != AmortizationEngine.EXACT_CENTS && PARALLEL_PROCESSORS > 1)
+        {
+            return calculateColumnsInSegments(initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+        }
+
+        int size = Math.max(durationInMonths, 0);
+        double[] balance = new double[size];
+        double[] principalPaid = new double[size];
+        double[] interestPaid = new double[size];
+        double[] accumulatedInterest = new double[size];
+
+        AmortizationCursor cursor = openCursor(null, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+        for (int i = 0; cursor.next(); i++)
+        {
+            balance[i] = cursor.getBalance();
+            principalPaid[i] = cursor.getPrincipalPaid();
+            interestPaid[i] = cursor.getInterestPaid();
+            accumulatedInterest[i] = cursor.getAccumulatedInterest();
+        }
+        return new AmortizationColumns(balance, principalPaid, interestPaid, accumulatedInterest);
+    }
+
+    /**
+     * Calculates the columns of a long schedule as independent segments on the common fork-join pool.
+     * <p/>
+     * Each segment opens its own cursor and skips to its first payment, where the recurrence re-anchors on
+     * closed form FV exactly as the sequential recurrence does at that checkpoint, so principal and interest
+     * match a single pass row for row.  Balance and accumulated interest are running sums: each segment sums
+     * from zero, then is offset by the totals of the segments before it.  Offsetting keeps the balance a sum
+     * of the principal column, which is better conditioned than closed form CUMPRINC over long terms.
+     */
+    AmortizationColumns calculateColumnsInSegments(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
+    {
+        int size = durationInMonths;
+        int segments = (size + PARALLEL_SEGMENT_LENGTH - 1) / PARALLEL_SEGMENT_LENGTH;
+        double[] balance = new double[size];
+        double[] principalPaid = new double[size];
+        double[] interestPaid = new double[size];
+        double[] accumulatedInterest = new double[size];
+
+        IntStream.range(0, segments).parallel().forEach(segment ->
+        {
+            int start = segment * PARALLEL_SEGMENT_LENGTH;
+            int end = Math.min(start + PARALLEL_SEGMENT_LENGTH, size);
+            AmortizationCursor cursor = openCursor(null, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+            if (start > 0)
             {
-                loopDate = addOneMonth(loopDate);
+                cursor.skipTo(start);
             }
+            for (int i = start; i < end && cursor.next(); i++)
+            {
+                balance[i] = cursor.getBalance();
+                principalPaid[i] = cursor.getPrincipalPaid();
+                interestPaid[i] = cursor.getInterestPaid();
+                accumulatedInterest[i] = cursor.getAccumulatedInterest();
+            }
+        });
+
+        // prefix sums of the segment totals, i.e. balance and interest paid before each segment starts;
+        // the first segment already starts from the initial balance.
+        double[] balanceBefore = new double[segments];
+        double[] interestBefore = new double[segments];
+        for (int segment = 1; segment < segments; segment++)
+        {
+            int last = segment * PARALLEL_SEGMENT_LENGTH - 1;
+            balanceBefore[segment] = balanceBefore[segment - 1] + balance[last];
+            interestBefore[segment] = interestBefore[segment - 1] + accumulatedInterest[last];
         }
-        return paymentList;
+        IntStream.range(1, segments).parallel().forEach(segment ->
+        {
+            int start = segment * PARALLEL_SEGMENT_LENGTH;
+            int end = Math.min(start + PARALLEL_SEGMENT_LENGTH, size);
+            for (int i = start; i < end; i++)
+            {
+                balance[i] += balanceBefore[segment];
+                accumulatedInterest[i] += interestBefore[segment];
+            }
+        });
+        return new AmortizationColumns(balance, principalPaid, interestPaid, accumulatedInterest);
     }
 
     /**
-     * Adds a month to a date, for purposes of putting a date on each Payment object.
-     * @param date any arbitrary date
-     * @return Date a date one month later
+     * Opens a cursor over the payments of a schedule, computing each row only as it is reached.
+     * @param startDate loan start date, or <code>null</code> to leave payment dates unset
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param engine how the rows are computed; <code>null</code> selects the recurrence engine
+     * @return AmortizationCursor positioned before the first payment
+     */
+    public AmortizationCursor openCursor(LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
+    {
+        return new AmortizationCursor(paymentService, startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, engine);
+    }
+
+    /**
+     * Dates the rows of calculated columns, which is all that depends on the start date.
+     * @param startDate loan start date
+     * @param paymentType loan payment type
+     * @param columns calculated columns, possibly shared
+     * @return AmortizationSchedule with one row per payment
+     */
+    public AmortizationSchedule projectDates(LocalDate startDate, int paymentType, AmortizationColumns columns)
+    {
+        return projectDates(startDate, paymentType, columns, 1);
+    }
+
+    /**
+     * Dates the rows of calculated columns and scales them to a loan balance.
+     * @param startDate loan start date
+     * @param paymentType loan payment type
+     * @param columns calculated columns, possibly shared
+     * @param scale factor applied to every numeric column as rows are read
+     * @return AmortizationSchedule with one row per payment
      */
-    private Date addOneMonth(Date date)
+    public AmortizationSchedule projectDates(LocalDate startDate, int paymentType, AmortizationColumns columns, double scale)
     {
-        Calendar cal = Calendar.getInstance();
-        cal.setTime(date);
-        cal.add(Calendar.MONTH, 1);
-        return cal.getTime();
+        int[] paymentDate = new int[columns.size()];
+        PaymentDateSequencer.fill(paymentDate, startDate, paymentType);
+        return new AmortizationSchedule(paymentDate, columns, scale);
     }
 
 }
@@ -0,0 +1,209 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationColumns;
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.ArmSummary;
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.PeriodValue;
+import app.finance.core.model.RateSegment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Amortizes adjustable rate loans as a sequence of fixed rate segments.  At each reset the payment is
+ * re-derived with PMT for the balance and the payments that remain, so every segment is the beginning of an
+ * ordinary fixed rate loan and its balance and interest follow in closed form from CUMPRINC and CUMIPMT.
+ * Summaries and balances therefore cost one evaluation per segment rather than one per payment.
+ * <p/>
+ * The balance carried into a segment is -FV of the payments before it, the balance interest accrues on, so a
+ * loan whose rate never changes gets the same payment and rows as the fixed rate schedule.
+ */
+@Service
+public class ArmService
+{
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AmortizationService amortizationService;
+
+    /**
+     * Splits a loan into rate segments at its resets, in closed form.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate during the fixed period
+     * @param futureValue loan expected future value
+     * @param terms rate adjustment terms
+     * @return List of segments in payment order, covering every payment
+     */
+    public List<RateSegment> segments(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, ArmTerms terms)
+    {
+        return segments(initialBalance, durationInMonths, paymentType, interestRate, futureValue, terms, durationInMonths);
+    }
+
+    /**
+     * Segments up to and including the one a given payment falls in.
+     */
+    private List<RateSegment> segments(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, ArmTerms terms, int throughPeriod)
+    {
+        checkTerms(durationInMonths, terms);
+        if (terms.getFixedPeriodInMonths() < durationInMonths && (terms.getIndexRates() == null || terms.getIndexRates().length == 0))
+        {
+            throw new IllegalArgumentException("indexRates must hold at least one projected index rate for the loan's resets");
+        }
+        int interval = terms.getAdjustmentIntervalInMonths();
+        double[] indexRates = terms.getIndexRates();
+        double maxRate = interestRate + terms.getLifetimeCap();
+
+        List<RateSegment> segments = new ArrayList<RateSegment>(1 + Math.max(durationInMonths - terms.getFixedPeriodInMonths(), 0) / interval + 1);
+        double balance = initialBalance;
+        double amortizedBalance = initialBalance;
+        double rate = interestRate;
+        int startPeriod = 1;
+        int endPeriod = Math.min(terms.getFixedPeriodInMonths(), durationInMonths);
+        for (int reset = 0; ; reset++)
+        {
+            int remaining = durationInMonths - startPeriod + 1;
+            int length = endPeriod - startPeriod + 1;
+            double r = paymentService.getMonthlyInterestRate(rate);
+            double pmt = paymentService.pmt(r, remaining, amortizedBalance, futureValue, paymentType);
+            double endingBalance = balance + paymentService.cumprinc(r, remaining, amortizedBalance, futureValue, paymentType, 1, length);
+            double interestPaid = paymentService.cumipmt(r, remaining, amortizedBalance, futureValue, paymentType, 1, length);
+            segments.add(new RateSegment(startPeriod, endPeriod, rate, pmt, balance, amortizedBalance, endingBalance, interestPaid));
+            if (endPeriod >= throughPeriod)
+            {
+                return segments;
+            }
+
+            rate = resetRate(terms, maxRate, rate, indexRates[Math.min(reset, indexRates.length - 1)], reset);
+
+            balance = endingBalance;
+            amortizedBalance = -paymentService.fv(r, length, pmt, amortizedBalance, paymentType);
+            startPeriod = endPeriod + 1;
+            endPeriod = Math.min(endPeriod + interval, durationInMonths);
+        }
+    }
+
+    /**
+     * The fully indexed rate at a reset, moved no further than the cap allows and kept between the floor and
+     * lifetime cap.
+     * @param terms rate adjustment terms
+     * @param maxRate initial rate plus the lifetime cap
+     * @param rate rate before the reset
+     * @param indexRate index rate at the reset
+     * @param reset 0 for the first reset
+     * @return double rate after the reset
+     */
+    static double resetRate(ArmTerms terms, double maxRate, double rate, double indexRate, int reset)
+    {
+        double cap = (reset == 0) ? terms.getInitialCap() : terms.getPeriodicCap();
+        double fullyIndexed = indexRate + terms.getMargin();
+        return Math.max(Math.min(Math.max(Math.min(fullyIndexed, rate + cap), rate - cap), maxRate), terms.getFloorRate());
+    }
+
+    /**
+     * Summarizes an adjustable rate loan, optionally with its full schedule.
+     * @param startDate loan start date, only needed for the schedule
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate during the fixed period
+     * @param futureValue loan expected future value
+     * @param terms rate adjustment terms
+     * @param includeSchedule whether to calculate every payment
+     * @return ArmSummary with the segments and lifetime totals
+     */
+    public ArmSummary summarize(LocalDate startDate, double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, ArmTerms terms, boolean includeSchedule)
+    {
+        List<RateSegment> segments = segments(initialBalance, durationInMonths, paymentType, interestRate, futureValue, terms);
+        double totalInterest = 0;
+        for (RateSegment segment : segments)
+        {
+            totalInterest += segment.getInterestPaid();
+        }
+        double finalBalance = segments.get(segments.size() - 1).getEndingBalance();
+        AmortizationSchedule schedule = includeSchedule ? schedule(startDate, durationInMonths, paymentType, futureValue, segments) : null;
+        return new ArmSummary(segments, totalInterest, finalBalance, schedule);
+    }
+
+    /**
+     * Balance after a given payment: closed form within the segment the payment falls in, without
+     * evaluating the segments after it.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate during the fixed period
+     * @param futureValue loan expected future value
+     * @param terms rate adjustment terms
+     * @param period payment number, 0 for the initial balance
+     * @return PeriodValue holding the balance
+     */
+    public PeriodValue balanceAt(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, ArmTerms terms, int period)
+    {
+        if (period < 0 || period > durationInMonths)
+        {
+            throw new IllegalArgumentException("period must be between 0 and " + durationInMonths + ": " + period);
+        }
+        if (period == 0)
+        {
+            checkTerms(durationInMonths, terms);
+            return new PeriodValue(0, 0, initialBalance);
+        }
+        List<RateSegment> segments = segments(initialBalance, durationInMonths, paymentType, interestRate, futureValue, terms, period);
+        RateSegment segment = segments.get(segments.size() - 1);
+        int remaining = durationInMonths - segment.getStartPeriod() + 1;
+        double r = paymentService.getMonthlyInterestRate(segment.getInterestRate());
+        double balance = segment.getStartingBalance()
+                + paymentService.cumprinc(r, remaining, segment.getAmortizedBalance(), futureValue, paymentType, 1, period - segment.getStartPeriod() + 1);
+        return new PeriodValue(period, period, balance);
+    }
+
+    /**
+     * Steps each segment with a recurrence cursor over its own fixed rate loan, offsetting balance and
+     * accumulated interest by the segments before it.
+     */
+    private AmortizationSchedule schedule(LocalDate startDate, int durationInMonths, int paymentType, double futureValue, List<RateSegment> segments)
+    {
+        double[] balance = new double[durationInMonths];
+        double[] principalPaid = new double[durationInMonths];
+        double[] interestPaid = new double[durationInMonths];
+        double[] accumulatedInterest = new double[durationInMonths];
+        double interestBefore = 0;
+        for (RateSegment segment : segments)
+        {
+            int remaining = durationInMonths - segment.getStartPeriod() + 1;
+            double balanceOffset = segment.getStartingBalance() - segment.getAmortizedBalance();
+            AmortizationCursor cursor = amortizationService.openCursor(null, segment.getAmortizedBalance(), remaining, paymentType, segment.getInterestRate(), futureValue, AmortizationEngine.RECURRENCE);
+            for (int i = segment.getStartPeriod() - 1; i < segment.getEndPeriod() && cursor.next(); i++)
+            {
+                balance[i] = balanceOffset + cursor.getBalance();
+                principalPaid[i] = cursor.getPrincipalPaid();
+                interestPaid[i] = cursor.getInterestPaid();
+                accumulatedInterest[i] = interestBefore + cursor.getAccumulatedInterest();
+            }
+            interestBefore += segment.getInterestPaid();
+        }
+        return amortizationService.projectDates(startDate, paymentType, new AmortizationColumns(balance, principalPaid, interestPaid, accumulatedInterest));
+    }
+
+    static void checkTerms(int durationInMonths, ArmTerms terms)
+    {
+        if (durationInMonths <= 0 || durationInMonths > AmortizationService.MAX_DURATION_IN_MONTHS)
+        {
+            throw new IllegalArgumentException("durationInMonths must be between 1 and " + AmortizationService.MAX_DURATION_IN_MONTHS + ": " + durationInMonths);
+        }
+        if (terms.getFixedPeriodInMonths() < 1 || terms.getAdjustmentIntervalInMonths() < 1)
+        {
+            throw new IllegalArgumentException("fixedPeriodInMonths and adjustmentIntervalInMonths must be positive: " + terms);
+        }
+        if (!(terms.getInitialCap() >= 0 && terms.getPeriodicCap() >= 0 && terms.getLifetimeCap() >= 0))
+        {
+            throw new IllegalArgumentException("caps must not be negative: " + terms);
+        }
+    }
+}
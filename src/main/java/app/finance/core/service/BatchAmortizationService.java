@@ -0,0 +1,289 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.LoanParameters;
+import app.finance.core.model.LoanSummary;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+
+/**
+ * Summarizes many loans per request.  Loans are read incrementally and summarized a batch at a time,
+ * with each batch split across cores, so memory is bounded by the batch size rather than the request.
+ */
+@Service
+public class BatchAmortizationService
+{
+    private static final ObjectReader LOAN_READER = new ObjectMapper().registerModule(new JavaTimeModule()).readerFor(LoanParameters.class);
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AmortizationService amortizationService;
+
+    /**
+     * Summarizes one batch of loans in parallel on the common fork-join pool.
+     * @param loans loans of one batch
+     * @param includeSchedules whether each summary carries the loan's full schedule
+     * @return List of summaries in the same order as the loans
+     */
+    public List<LoanSummary> summarize(List<LoanParameters> loans, boolean includeSchedules)
+    {
+        return loans.parallelStream()
+                .map(loan -> summarize(loan, includeSchedules))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Summarizes one loan in closed form.  Invalid loans produce a summary carrying the error rather than an exception.
+     * @param loan loan parameters
+     * @param includeSchedule whether the summary carries the loan's full schedule
+     * @return LoanSummary with the monthly payment and lifetime totals
+     */
+    public LoanSummary summarize(LoanParameters loan, boolean includeSchedule)
+    {
+        int durationInMonths = loan.getDurationInMonths();
+        int paymentType = loan.getPaymentType();
+        if (durationInMonths <= 0 || durationInMonths > AmortizationService.MAX_DURATION_IN_MONTHS)
+        {
+            return new LoanSummary(loan.getId(), "durationInMonths must be between 1 and " + AmortizationService.MAX_DURATION_IN_MONTHS + ": " + durationInMonths);
+        }
+        if (paymentType != 0 && paymentType != 1)
+        {
+            return new LoanSummary(loan.getId(), "paymentType must be 0 or 1: " + paymentType);
+        }
+
+        double initialBalance = loan.getInitialBalance();
+        double interestRate = loan.getInterestRate();
+        double futureValue = loan.getFutureValue();
+        double r = paymentService.getMonthlyInterestRate(interestRate);
+        double monthlyPayment = paymentService.pmt(r, durationInMonths, initialBalance, futureValue, paymentType);
+        double totalInterest = paymentService.cumipmt(r, durationInMonths, initialBalance, futureValue, paymentType, 1, durationInMonths);
+        double totalPrincipal = durationInMonths * monthlyPayment - totalInterest;
+
+        AmortizationSchedule schedule = null;
+        if (includeSchedule)
+        {
+            LocalDate startDate = (loan.getStartDate() == null) ? LocalDate.now() : loan.getStartDate();
+            schedule = amortizationService.getSchedule(startDate, initialBalance, durationInMonths, paymentType, interestRate, futureValue, null);
+        }
+        return new LoanSummary(loan.getId(), monthlyPayment, totalPrincipal, totalInterest, initialBalance + totalPrincipal, schedule);
+    }
+
+    /**
+     * Reads loans lazily from a JSON array of objects, or from newline delimited JSON objects.
+     * @param in request body
+     * @return Iterator over loans; malformed input fails with IllegalArgumentException
+     * @throws IOException if the body cannot be read
+     */
+    public Iterator<LoanParameters> readJson(InputStream in) throws IOException
+    {
+        final MappingIterator<LoanParameters> loans = LOAN_READER.readValues(in);
+        return new Iterator<LoanParameters>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                try
+                {
+                    return loans.hasNextValue();
+                }
+                catch (IOException e)
+                {
+                    throw new IllegalArgumentException("malformed loan JSON: " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public LoanParameters next()
+            {
+                try
+                {
+                    return loans.nextValue();
+                }
+                catch (IOException e)
+                {
+                    throw new IllegalArgumentException("malformed loan JSON: " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads loans lazily from CSV with a header line naming the columns, any of id, startDate (yyyy-MM-dd),
+     * initialBalance, interestRate, durationInMonths, futureValue and paymentType, in any order.
+     * Fields may be quoted as in RFC 4180, so ids can hold commas, quotes and line breaks, as the
+     * CSV batch results write them.
+     * @param in request body
+     * @return Iterator over loans; malformed input fails with IllegalArgumentException
+     * @throws IOException if the body cannot be read
+     */
+    public Iterator<LoanParameters> readCsv(Reader in) throws IOException
+    {
+        final BufferedReader records = (in instanceof BufferedReader) ? (BufferedReader) in : new BufferedReader(in);
+        List<String> header = readCsvRecord(records);
+        final String[] columns = new String[(header == null) ? 0 : header.size()];
+        for (int i = 0; i < columns.length; i++)
+        {
+            columns[i] = header.get(i).trim();
+        }
+        return new Iterator<LoanParameters>()
+        {
+            private List<String> record = readDataRecord();
+
+            @Override
+            public boolean hasNext()
+            {
+                return record != null;
+            }
+
+            @Override
+            public LoanParameters next()
+            {
+                if (record == null)
+                {
+                    throw new NoSuchElementException();
+                }
+                LoanParameters loan = parseCsvRecord(columns, record);
+                record = readDataRecord();
+                return loan;
+            }
+
+            private List<String> readDataRecord()
+            {
+                try
+                {
+                    List<String> next = readCsvRecord(records);
+                    while (next != null && next.size() == 1 && next.get(0).trim().isEmpty())
+                    {
+                        next = readCsvRecord(records);
+                    }
+                    return next;
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads one CSV record, which spans several lines when a quoted field holds line breaks.  A field is quoted
+     * when it starts with a double quote, and a doubled quote inside it stands for one quote; records end with
+     * CRLF, LF or CR.
+     * @return fields of the record, or <code>null</code> at the end of the input
+     */
+    static List<String> readCsvRecord(BufferedReader in) throws IOException
+    {
+        int c = in.read();
+        if (c < 0)
+        {
+            return null;
+        }
+        List<String> fields = new ArrayList<String>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true)
+        {
+            if (quoted)
+            {
+                if (c < 0)
+                {
+                    throw new IllegalArgumentException("malformed loan CSV: unterminated quoted field " + field);
+                }
+                if (c == '"')
+                {
+                    in.mark(1);
+                    if (in.read() == '"')
+                    {
+                        field.append('"');
+                    }
+                    else
+                    {
+                        in.reset();
+                        quoted = false;
+                    }
+                }
+                else
+                {
+                    field.append((char) c);
+                }
+            }
+            else if (c == '"' && field.length() == 0)
+            {
+                quoted = true;
+            }
+            else if (c == ',')
+            {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else if (c == '\n' || c == '\r' || c < 0)
+            {
+                if (c == '\r')
+                {
+                    in.mark(1);
+                    if (in.read() != '\n')
+                    {
+                        in.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            else
+            {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+
+    private LoanParameters parseCsvRecord(String[] columns, List<String> values)
+    {
+        LoanParameters loan = new LoanParameters();
+        for (int i = 0; i < columns.length && i < values.size(); i++)
+        {
+            String value = values.get(i).trim();
+            if (value.isEmpty())
+            {
+                continue;
+            }
+            try
+            {
+                switch (columns[i])
+                {
+                    case "id": loan.setId(value); break;
+                    case "startDate": loan.setStartDate(LocalDate.parse(value)); break;
+                    case "initialBalance": loan.setInitialBalance(Double.parseDouble(value)); break;
+                    case "interestRate": loan.setInterestRate(Double.parseDouble(value)); break;
+                    case "durationInMonths": loan.setDurationInMonths(Integer.parseInt(value)); break;
+                    case "futureValue": loan.setFutureValue(Double.parseDouble(value)); break;
+                    case "paymentType": loan.setPaymentType(Integer.parseInt(value)); break;
+                    default: break;
+                }
+            }
+            catch (RuntimeException e)
+            {
+                throw new IllegalArgumentException("malformed loan CSV " + columns[i] + ": " + value, e);
+            }
+        }
+        return loan;
+    }
+}
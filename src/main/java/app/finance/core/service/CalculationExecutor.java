@@ -0,0 +1,161 @@
+package app.finance.core.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs calculations for request handlers on a fixed pool of threads with a bounded queue, so a burst of long
+ * schedules waits here instead of holding the container's request threads, which stay free for the form and
+ * other cheap requests.
+ * <p/>
+ * A calculation submitted while every thread is busy and the queue is full is refused at once with a
+ * RejectedExecutionException, which handlers answer with 503; one still unfinished after the timeout ends
+ * with a TimeoutException.  When <code>calculation.async</code> is false, calculations run on the calling
+ * request thread and nothing is queued or refused.
+ * <p/>
+ * A timeout also interrupts the calculation's thread.  Schedule cursors and simulations check for that at
+ * their checkpoints and stop with a CancellationException, freeing the thread within a few milliseconds;
+ * segments of one schedule already running on the common fork-join pool finish their own segment first.
+ */
+@Service
+public class CalculationExecutor
+{
+    private final boolean async;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+
+    private final RequestMetrics.Histogram queueWait = new RequestMetrics.Histogram(RequestMetrics.PHASE_BUCKET_SECONDS, 1e9);
+    private final LongAdder submittedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * @param async         whether calculations leave the request thread
+     * @param threads       calculation threads; 0 for one per available processor
+     * @param queueCapacity calculations waiting for a thread before further ones are refused
+     * @param timeoutMs     longest a request waits for its calculation, from submission
+     */
+    @Autowired
+    CalculationExecutor(@Value("${calculation.async:true}") boolean async,
+                        @Value("${calculation.threads:0}") int threads,
+                        @Value("${calculation.queueCapacity:64}") int queueCapacity,
+                        @Value("${calculation.timeoutMs:30000}") long timeoutMs)
+    {
+        if (threads < 0 || queueCapacity < 1 || timeoutMs < 1)
+        {
+            throw new IllegalArgumentException("Invalid calculation executor settings: " + threads + "," + queueCapacity + "," + timeoutMs);
+        }
+        int poolSize = (threads == 0) ? Runtime.getRuntime().availableProcessors() : threads;
+        this.async = async;
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new CalculationThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Starts a calculation whose result completes the returned DeferredResult, either with its value or with
+     * the exception it threw.
+     * @param calculation work to run, which must not depend on the request thread
+     * @param <T> result type, e.g. a view name or a response body
+     * @return DeferredResult for the handler to return
+     * @throws RejectedExecutionException if every thread is busy and the queue is full
+     */
+    public <T> DeferredResult<T> submit(Callable<T> calculation)
+    {
+        DeferredResult<T> result = new DeferredResult<T>(timeoutMs);
+        if (!async)
+        {
+            complete(result, calculation);
+            return result;
+        }
+
+        long submitted = System.nanoTime();
+        Future<?> future;
+        try
+        {
+            future = executor.submit(() ->
+            {
+                queueWait.record(System.nanoTime() - submitted);
+                if (!result.isSetOrExpired())
+                {
+                    complete(result, calculation);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            rejectedCount.increment();
+            throw new RejectedExecutionException("Calculation queue is full, " + executor.getQueue().size() + " calculations waiting");
+        }
+        submittedCount.increment();
+
+        result.onTimeout(() ->
+        {
+            timeoutCount.increment();
+            future.cancel(true);
+            result.setErrorResult(new TimeoutException("Calculation did not finish within " + timeoutMs + " ms"));
+        });
+        return result;
+    }
+
+    private static <T> void complete(DeferredResult<T> result, Callable<T> calculation)
+    {
+        try
+        {
+            result.setResult(calculation.call());
+        }
+        catch (Exception e)
+        {
+            result.setErrorResult(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown()
+    {
+        executor.shutdownNow();
+    }
+
+    public boolean isAsync() { return async; }
+    public int getPoolSize() { return executor.getMaximumPoolSize(); }
+    public int getQueueCapacity() { return executor.getQueue().size() + executor.getQueue().remainingCapacity(); }
+    public int getActiveCount() { return executor.getActiveCount(); }
+    public int getQueuedCount() { return executor.getQueue().size(); }
+    public long getSubmittedCount() { return submittedCount.sum(); }
+    public long getRejectedCount() { return rejectedCount.sum(); }
+    public long getTimeoutCount() { return timeoutCount.sum(); }
+
+    RequestMetrics.Histogram getQueueWait() { return queueWait; }
+
+    @Override
+    public String toString()
+    {
+        return "[" + getPoolSize() + "," + getActiveCount() + "," + getQueuedCount() + "," + getSubmittedCount() + "," + getRejectedCount() + "," + getTimeoutCount() + "]";
+    }
+
+    private static final class CalculationThreadFactory implements ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "calculation-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package app.finance.core.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Table of compounding factors (1 + r)^k per distinct periodic rate, so repeated payment calculations at the
+ * same rate look factors up rather than evaluating Math.pow again.  Quoted rates come from a small set, so
+ * a few hundred rates cover most requests.
+ * <p/>
+ * Each rate's factors are filled lazily up to the highest period asked for, doubling as needed, and are the
+ * exact Math.pow values, so results are unchanged by the table.  Memory is bounded by at most maxRates rates,
+ * least recently used first out, of at most maxPeriods + 1 factors each, and by maxBytes, against which each
+ * rate is charged the 8 * (maxPeriods + 1) bytes it can grow to; periods beyond maxPeriods are computed
+ * directly.  Every call looks its rate up in the table, so an evicted rate's factors are released at once
+ * rather than held by the threads that last used it.
+ */
+@Service
+public class CompoundingFactorTable
+{
+    private final int maxPeriods;
+    private final LruCache<Double, Factors> cache;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    /**
+     * @param maxRates   most rates held at once; 0 disables the table
+     * @param maxPeriods highest period held for each rate
+     * @param maxBytes   most heap held by the factors of all rates
+     */
+    @Autowired
+    CompoundingFactorTable(@Value("${compounding.factors.maxRates:256}") int maxRates,
+                           @Value("${compounding.factors.maxPeriods:1200}") int maxPeriods,
+                           @Value("${compounding.factors.maxBytes:4194304}") long maxBytes)
+    {
+        this.maxPeriods = (maxRates > 0) ? maxPeriods : -1;
+        this.cache = new LruCache<Double, Factors>(maxRates, maxBytes, factors -> 8L * (this.maxPeriods + 1));
+    }
+
+    /**
+     * @param r    periodic interest rate represented as a decimal.
+     * @param nper number of periods.
+     * @return <code>double</code> equal to Math.pow(1 + r, nper).
+     */
+    public double factor(double r, int nper)
+    {
+        if (nper < 0 || nper > maxPeriods)
+        {
+            return Math.pow(1 + r, nper);
+        }
+        return forRate(r).at(nper);
+    }
+
+    /**
+     * Adds r to the table, e.g. as soon as a yearly rate is converted, so the calls that follow at that rate
+     * find its factors.
+     * @param r periodic interest rate represented as a decimal.
+     */
+    public void prepare(double r)
+    {
+        if (maxPeriods >= 0)
+        {
+            forRate(r);
+        }
+    }
+
+    private Factors forRate(double r)
+    {
+        Factors factors = cache.get(r);
+        if (factors == null)
+        {
+            missCount.increment();
+            factors = new Factors(r);
+            cache.put(r, factors);
+        }
+        else
+        {
+            hitCount.increment();
+        }
+        return factors;
+    }
+
+    public void clear() { cache.clear(); }
+
+    public int size() { return cache.size(); }
+    public long getHitCount() { return hitCount.sum(); }
+    public long getMissCount() { return missCount.sum(); }
+    public long getEvictionCount() { return cache.getEvictionCount(); }
+
+    /**
+     * @return heap reserved by the rates held, charging each rate its full length
+     */
+    public long getWeight() { return cache.getWeight(); }
+
+    public int getMaxRates() { return cache.getMaxEntries(); }
+    public long getMaxBytes() { return cache.getMaxWeight(); }
+    public int getMaxPeriods() { return maxPeriods; }
+
+    /**
+     * Factors of one rate.  A filled array is never modified, only replaced by a longer copy, so readers
+     * need no lock.
+     */
+    private final class Factors
+    {
+        private final double rate;
+        private volatile double[] factors = {1};
+
+        private Factors(double rate)
+        {
+            this.rate = rate;
+        }
+
+        private double at(int nper)
+        {
+            double[] factors = this.factors;
+            if (nper >= factors.length)
+            {
+                factors = grow(nper);
+            }
+            return factors[nper];
+        }
+
+        private synchronized double[] grow(int nper)
+        {
+            double[] factors = this.factors;
+            if (nper < factors.length)
+            {
+                return factors;
+            }
+            int length = Math.min(Math.max(nper, 2 * factors.length), maxPeriods) + 1;
+            double[] grown = Arrays.copyOf(factors, length);
+            for (int k = factors.length; k < length; k++)
+            {
+                grown[k] = Math.pow(1 + rate, k);
+            }
+            this.factors = grown;
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package app.finance.core.service;
+
+import app.finance.core.model.PeriodValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers questions about single periods or ranges of periods of a loan in closed form, without
+ * building its amortization schedule.  Values match the corresponding rows of
+ * {@link AmortizationService#calculateSchedule}.
+ */
+@Service
+public class LoanQueryService
+{
+    /** Balances within half a cent of the target count as reaching it, absorbing floating point residue. */
+    static final double PAYOFF_TOLERANCE = 0.005;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    /**
+     * Balance after a given payment, in constant time.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param period payment number, 0 for the initial balance
+     * @return PeriodValue holding the balance
+     */
+    public PeriodValue balanceAt(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, int period)
+    {
+        checkPeriods(durationInMonths, 0, period, period);
+        return new PeriodValue(period, period, balance(initialBalance, durationInMonths, paymentType, interestRate, futureValue, period));
+    }
+
+    /**
+     * Interest paid from one payment through another, in constant time.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param startPeriod first payment number to include
+     * @param endPeriod last payment number to include
+     * @return PeriodValue holding the interest paid
+     */
+    public PeriodValue cumulativeInterest(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, int startPeriod, int endPeriod)
+    {
+        checkPeriods(durationInMonths, 1, startPeriod, endPeriod);
+        double r = paymentService.getMonthlyInterestRate(interestRate);
+        return new PeriodValue(startPeriod, endPeriod, paymentService.cumipmt(r, durationInMonths, initialBalance, futureValue, paymentType, startPeriod, endPeriod));
+    }
+
+    /**
+     * Principal paid from one payment through another, in constant time.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param startPeriod first payment number to include
+     * @param endPeriod last payment number to include
+     * @return PeriodValue holding the principal paid
+     */
+    public PeriodValue cumulativePrincipal(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, int startPeriod, int endPeriod)
+    {
+        checkPeriods(durationInMonths, 1, startPeriod, endPeriod);
+        double r = paymentService.getMonthlyInterestRate(interestRate);
+        return new PeriodValue(startPeriod, endPeriod, paymentService.cumprinc(r, durationInMonths, initialBalance, futureValue, paymentType, startPeriod, endPeriod));
+    }
+
+    /**
+     * First payment after which the balance is at or below a target, within {@link #PAYOFF_TOLERANCE}, by
+     * binary search over closed form balances, in logarithmic time.  Assumes the balance does not increase
+     * from one payment to the next, as for any loan that amortizes.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate
+     * @param futureValue loan expected future value
+     * @param targetBalance balance to reach
+     * @return PeriodValue holding the payment number and the balance after it, or <code>null</code> if the
+     * balance stays above the target for the whole loan
+     */
+    public PeriodValue payoffPeriod(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, double targetBalance)
+    {
+        checkPeriods(durationInMonths, 0, 0, 0);
+        if (initialBalance - targetBalance <= PAYOFF_TOLERANCE)
+        {
+            return new PeriodValue(0, 0, initialBalance);
+        }
+        if (balance(initialBalance, durationInMonths, paymentType, interestRate, futureValue, durationInMonths) - targetBalance > PAYOFF_TOLERANCE)
+        {
+            return null;
+        }
+
+        // invariant: balance at low is above the target, balance at high is at or below it.
+        int low = 0;
+        int high = durationInMonths;
+        while (high - low > 1)
+        {
+            int mid = (low + high) >>> 1;
+            if (balance(initialBalance, durationInMonths, paymentType, interestRate, futureValue, mid) - targetBalance > PAYOFF_TOLERANCE)
+            {
+                low = mid;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return new PeriodValue(high, high, balance(initialBalance, durationInMonths, paymentType, interestRate, futureValue, high));
+    }
+
+    /**
+     * The balance column of the schedule is the initial balance plus every principal payment so far.
+     */
+    private double balance(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, int period)
+    {
+        if (period == 0)
+        {
+            return initialBalance;
+        }
+        double r = paymentService.getMonthlyInterestRate(interestRate);
+        return initialBalance + paymentService.cumprinc(r, durationInMonths, initialBalance, futureValue, paymentType, 1, period);
+    }
+
+    private void checkPeriods(int durationInMonths, int firstPeriod, int startPeriod, int endPeriod)
+    {
+        if (durationInMonths <= 0 || durationInMonths > AmortizationService.MAX_DURATION_IN_MONTHS)
+        {
+            throw new IllegalArgumentException("durationInMonths must be between 1 and " + AmortizationService.MAX_DURATION_IN_MONTHS + ": " + durationInMonths);
+        }
+        if (startPeriod < firstPeriod || endPeriod < startPeriod || endPeriod > durationInMonths)
+        {
+            throw new IllegalArgumentException("periods must satisfy " + firstPeriod + " <= start <= end <= " + durationInMonths + ": " + startPeriod + ".." + endPeriod);
+        }
+    }
+}
@@ -0,0 +1,728 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.model.ScheduleFormat;
+import app.finance.core.model.ScheduleRequest;
+import org.springframework.stereotype.Service;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Reads the schedule form's fields straight from the request bytes, form encoded or as a flat JSON object,
+ * without reflective data binding or a String per value.  The fields are startDate (MM/dd/yyyy as in the
+ * form, or yyyy-MM-dd), initialBalance, interestRate, durationInMonths, futureValue and paymentType, plus
+ * engine, page, size and format; other names are ignored, and an empty or null value leaves the default.
+ * startDate, initialBalance, interestRate and durationInMonths are required.
+ * <p/>
+ * Numbers are accumulated digit by digit.  One of at most 15 significant digits scaled by at most 10^22 is
+ * one exact multiplication or division, so it rounds as Double.parseDouble would; longer ones are handed to
+ * Double.parseDouble.  A value that cannot be read is recorded as an error on the request and parsing goes
+ * on, so every bad value is reported at once and bad input never throws.
+ * <p/>
+ * Form encoded bytes are percent-decoded in place, so the caller's array is overwritten.  Bodies are read
+ * into a buffer kept per thread.
+ */
+@Service
+public class LoanRequestParser
+{
+    /** Longest request body read; the form's fields take a few hundred bytes. */
+    static final int MAX_BODY_BYTES = 8192;
+
+    private static final int INITIAL_BODY_BYTES = 1024;
+    private static final long INVALID = Long.MIN_VALUE;
+    private static final AmortizationEngine[] ENGINES = AmortizationEngine.values();
+    private static final ScheduleFormat[] FORMATS = ScheduleFormat.values();
+
+    // 10^22 is the largest power of ten exact as a double, and 10^15 - 1 the largest 15 digit mantissa
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ThreadLocal<byte[]> bodies = ThreadLocal.withInitial(() -> new byte[INITIAL_BODY_BYTES]);
+
+    /**
+     * Reads the query string, then a form encoded or JSON body, whose values win.  If a filter has already
+     * read a form body into the request parameters, those are read instead.
+     * @param request current request, whose body has not been read
+     * @return ScheduleRequest with the values read and any errors, including a missing required field
+     * @throws IOException if the body cannot be read
+     */
+    public ScheduleRequest parse(HttpServletRequest request) throws IOException
+    {
+        return parse(request, null);
+    }
+
+    /**
+     * As {@link #parse(HttpServletRequest)}, but a missing startDate is taken as the given date.
+     * @param request current request, whose body has not been read
+     * @param defaultStartDate start date of a loan given none, or <code>null</code> to require one
+     * @return ScheduleRequest with the values read and any errors, including a missing required field
+     * @throws IOException if the body cannot be read
+     */
+    public ScheduleRequest parse(HttpServletRequest request, LocalDate defaultStartDate) throws IOException
+    {
+        ScheduleRequest into = read(request);
+        if (defaultStartDate != null && !into.isGiven(ScheduleRequest.START_DATE))
+        {
+            into.getLoan().setStartDate(defaultStartDate);
+            into.given(ScheduleRequest.START_DATE);
+        }
+        requireLoanFields(into);
+        return into;
+    }
+
+    /**
+     * Rejects each of startDate, initialBalance, interestRate and durationInMonths that was given no value.
+     * A value given but unreadable has been rejected already, so it is not reported twice.
+     */
+    static void requireLoanFields(ScheduleRequest into)
+    {
+        if (!into.isGiven(ScheduleRequest.START_DATE)) into.reject("startDate is required");
+        if (!into.isGiven(ScheduleRequest.INITIAL_BALANCE)) into.reject("initialBalance is required");
+        if (!into.isGiven(ScheduleRequest.INTEREST_RATE)) into.reject("interestRate is required");
+        if (!into.isGiven(ScheduleRequest.DURATION_IN_MONTHS)) into.reject("durationInMonths is required");
+    }
+
+    private ScheduleRequest read(HttpServletRequest request) throws IOException
+    {
+        ScheduleRequest into = new ScheduleRequest();
+        String query = request.getQueryString();
+        if (query != null)
+        {
+            byte[] bytes = query.getBytes(StandardCharsets.ISO_8859_1);
+            parseForm(bytes, 0, bytes.length, into);
+        }
+
+        String contentType = request.getContentType();
+        boolean json = startsWithIgnoreCase(contentType, "application/json");
+        if (!json && !startsWithIgnoreCase(contentType, "application/x-www-form-urlencoded"))
+        {
+            return into;
+        }
+        byte[] body = bodies.get();
+        int length = 0;
+        InputStream in = request.getInputStream();
+        for (int read; (read = in.read(body, length, body.length - length)) > 0; )
+        {
+            length += read;
+            if (length == body.length)
+            {
+                if (length > MAX_BODY_BYTES)
+                {
+                    into.reject("request body must not exceed " + MAX_BODY_BYTES + " bytes");
+                    return into;
+                }
+                body = Arrays.copyOf(body, Math.min(2 * body.length, MAX_BODY_BYTES + 1));
+                bodies.set(body);
+            }
+        }
+
+        if (json)
+        {
+            parseJson(body, 0, length, into);
+        }
+        else if (length > 0)
+        {
+            parseForm(body, 0, length, into);
+        }
+        else
+        {
+            // the parameters hold the query string too, so start over from them
+            into = new ScheduleRequest();
+            parseParameters(request.getParameterMap(), into);
+        }
+        return into;
+    }
+
+    /**
+     * Reads form encoded name=value pairs separated by '&amp;', decoding them in place.
+     */
+    public void parseForm(byte[] bytes, int from, int to, ScheduleRequest into)
+    {
+        int start = from;
+        while (start < to)
+        {
+            int end = indexOf(bytes, (byte) '&', start, to);
+            int equals = indexOf(bytes, (byte) '=', start, end);
+            if (equals < end)
+            {
+                int nameEnd = decode(bytes, start, equals);
+                int valueEnd = decode(bytes, equals + 1, end);
+                setField(bytes, start, nameEnd, bytes, equals + 1, valueEnd, into);
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Reads a JSON object whose values are numbers, strings or null.  Values of other names may be anything,
+     * and are skipped.
+     */
+    public void parseJson(byte[] bytes, int from, int to, ScheduleRequest into)
+    {
+        int i = skipWhitespace(bytes, from, to);
+        if (i == to || bytes[i] != '{')
+        {
+            into.reject("request body must be a JSON object");
+            return;
+        }
+        i = skipWhitespace(bytes, i + 1, to);
+        if (i < to && bytes[i] == '}')
+        {
+            return;
+        }
+        while (i < to && bytes[i] == '"')
+        {
+            int nameFrom = i + 1;
+            int nameEnd = endOfString(bytes, nameFrom, to);
+            if (nameEnd < 0)
+            {
+                break;
+            }
+            int nameTo = unescape(bytes, nameFrom, nameEnd);
+            i = skipWhitespace(bytes, nameEnd + 1, to);
+            if (i == to || bytes[i] != ':')
+            {
+                break;
+            }
+            i = skipWhitespace(bytes, i + 1, to);
+            if (i == to)
+            {
+                break;
+            }
+
+            int valueFrom = i;
+            int valueTo;
+            if (bytes[i] == '"')
+            {
+                int end = endOfString(bytes, i + 1, to);
+                if (end < 0)
+                {
+                    break;
+                }
+                valueFrom = i + 1;
+                valueTo = unescape(bytes, valueFrom, end);
+                i = end + 1;
+            }
+            else if (bytes[i] == '{' || bytes[i] == '[')
+            {
+                i = skipNested(bytes, i, to);
+                if (i < 0)
+                {
+                    into.reject("malformed JSON: unterminated value of " + text(bytes, nameFrom, nameTo));
+                    return;
+                }
+                valueTo = i;
+            }
+            else
+            {
+                while (i < to && bytes[i] != ',' && bytes[i] != '}' && !isWhitespace(bytes[i]))
+                {
+                    i++;
+                }
+                valueTo = i;
+                if (matches(bytes, valueFrom, valueTo, "null"))
+                {
+                    valueTo = valueFrom;
+                }
+            }
+            setField(bytes, nameFrom, nameTo, bytes, valueFrom, valueTo, into);
+
+            i = skipWhitespace(bytes, i, to);
+            if (i < to && bytes[i] == '}')
+            {
+                return;
+            }
+            if (i == to || bytes[i] != ',')
+            {
+                break;
+            }
+            i = skipWhitespace(bytes, i + 1, to);
+        }
+        into.reject("malformed JSON at offset " + (i - from));
+    }
+
+    private void parseParameters(Map<String, String[]> parameters, ScheduleRequest into)
+    {
+        for (Map.Entry<String, String[]> parameter : parameters.entrySet())
+        {
+            byte[] name = parameter.getKey().getBytes(StandardCharsets.UTF_8);
+            for (String value : parameter.getValue())
+            {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                setField(name, 0, name.length, bytes, 0, bytes.length, into);
+            }
+        }
+    }
+
+    private static void setField(byte[] names, int nameFrom, int nameTo, byte[] bytes, int from, int to, ScheduleRequest into)
+    {
+        while (from < to && bytes[from] == ' ')
+        {
+            from++;
+        }
+        while (to > from && bytes[to - 1] == ' ')
+        {
+            to--;
+        }
+        if (from == to)
+        {
+            return;
+        }
+
+        MonthlyAmortizationSchedule loan = into.getLoan();
+        if (matches(names, nameFrom, nameTo, "initialBalance"))
+        {
+            into.given(ScheduleRequest.INITIAL_BALANCE);
+            double value = readNumber("initialBalance", bytes, from, to, into);
+            if (!Double.isNaN(value)) loan.setInitialBalance(value);
+        }
+        else if (matches(names, nameFrom, nameTo, "interestRate"))
+        {
+            into.given(ScheduleRequest.INTEREST_RATE);
+            double value = readNumber("interestRate", bytes, from, to, into);
+            if (!Double.isNaN(value)) loan.setInterestRate(value);
+        }
+        else if (matches(names, nameFrom, nameTo, "durationInMonths"))
+        {
+            into.given(ScheduleRequest.DURATION_IN_MONTHS);
+            long value = readWholeNumber("durationInMonths", 1, AmortizationService.MAX_DURATION_IN_MONTHS, bytes, from, to, into);
+            if (value != INVALID) loan.setDurationInMonths((int) value);
+        }
+        else if (matches(names, nameFrom, nameTo, "futureValue"))
+        {
+            double value = readNumber("futureValue", bytes, from, to, into);
+            if (!Double.isNaN(value)) loan.setFutureValue(value);
+        }
+        else if (matches(names, nameFrom, nameTo, "paymentType"))
+        {
+            long value = readWholeNumber("paymentType", 0, 1, bytes, from, to, into);
+            if (value != INVALID) loan.setPaymentType((int) value);
+        }
+        else if (matches(names, nameFrom, nameTo, "startDate"))
+        {
+            into.given(ScheduleRequest.START_DATE);
+            LocalDate value = parseDate(bytes, from, to);
+            if (value == null) into.reject("startDate must be a date as MM/dd/yyyy or yyyy-MM-dd: " + text(bytes, from, to));
+            else loan.setStartDate(value);
+        }
+        else if (matches(names, nameFrom, nameTo, "engine"))
+        {
+            AmortizationEngine value = parseEnum(ENGINES, bytes, from, to);
+            if (value == null) into.reject("engine must be one of " + Arrays.toString(ENGINES) + ": " + text(bytes, from, to));
+            else loan.setEngine(value);
+        }
+        else if (matches(names, nameFrom, nameTo, "page"))
+        {
+            long value = readWholeNumber("page", 0, Integer.MAX_VALUE, bytes, from, to, into);
+            if (value != INVALID) into.setPage((int) value);
+        }
+        else if (matches(names, nameFrom, nameTo, "size"))
+        {
+            // a page never holds more than a whole schedule; schedule.page.maxSize may limit it further
+            long value = readWholeNumber("size", 1, AmortizationService.MAX_DURATION_IN_MONTHS, bytes, from, to, into);
+            if (value != INVALID) into.setSize((int) value);
+        }
+        else if (matches(names, nameFrom, nameTo, "format"))
+        {
+            ScheduleFormat value = parseEnum(FORMATS, bytes, from, to);
+            if (value == null) into.reject("format must be one of " + Arrays.toString(FORMATS) + ": " + text(bytes, from, to));
+            else into.setFormat(value);
+        }
+    }
+
+    private static double readNumber(String field, byte[] bytes, int from, int to, ScheduleRequest into)
+    {
+        double value = parseDouble(bytes, from, to);
+        if (Double.isNaN(value) || Double.isInfinite(value))
+        {
+            into.reject(field + " must be a number: " + text(bytes, from, to));
+            return Double.NaN;
+        }
+        return value;
+    }
+
+    private static long readWholeNumber(String field, int min, int max, byte[] bytes, int from, int to, ScheduleRequest into)
+    {
+        long value = parseLong(bytes, from, to);
+        if (value == INVALID || value < min || value > max)
+        {
+            into.reject(field + " must be a whole number from " + min + " to " + max + ": " + text(bytes, from, to));
+            return INVALID;
+        }
+        return value;
+    }
+
+    /**
+     * Decimal number with an optional sign, fraction and exponent, e.g. -1.25e3.
+     * @return double value; NaN if the bytes are not such a number
+     */
+    static double parseDouble(byte[] bytes, int from, int to)
+    {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+'))
+        {
+            negative = (bytes[i] == '-');
+            i++;
+        }
+
+        // significant digits go into the mantissa, as long as they fit, and the point into the exponent
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+        int digitsFrom = i;
+        for (; i < to && isDigit(bytes[i]); i++)
+        {
+            if (digits < MAX_EXACT_DIGITS)
+            {
+                mantissa = mantissa * 10 + (bytes[i] - '0');
+                digits += (mantissa == 0) ? 0 : 1;
+            }
+            else
+            {
+                exponent++;
+                exact &= (bytes[i] == '0');
+            }
+        }
+        boolean anyDigit = (i > digitsFrom);
+        if (i < to && bytes[i] == '.')
+        {
+            for (i++; i < to && isDigit(bytes[i]); i++)
+            {
+                anyDigit = true;
+                if (digits < MAX_EXACT_DIGITS)
+                {
+                    mantissa = mantissa * 10 + (bytes[i] - '0');
+                    digits += (mantissa == 0) ? 0 : 1;
+                    exponent--;
+                }
+                else
+                {
+                    exact &= (bytes[i] == '0');
+                }
+            }
+        }
+        if (!anyDigit)
+        {
+            return Double.NaN;
+        }
+        if (i < to && (bytes[i] == 'e' || bytes[i] == 'E'))
+        {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (bytes[i] == '-' || bytes[i] == '+'))
+            {
+                negativeExponent = (bytes[i] == '-');
+                i++;
+            }
+            int exponentFrom = i;
+            int e = 0;
+            for (; i < to && isDigit(bytes[i]); i++)
+            {
+                e = Math.min(e * 10 + (bytes[i] - '0'), 100000);
+            }
+            if (i == exponentFrom)
+            {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if (i != to)
+        {
+            return Double.NaN;
+        }
+
+        if (!exact || exponent < -22 || exponent > 22)
+        {
+            // the grammar is already checked, so this cannot throw
+            return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+        }
+        double value = (exponent >= 0) ? mantissa * EXACT_POWERS_OF_TEN[exponent] : mantissa / EXACT_POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Whole number with an optional sign, of at most 18 digits.
+     * @return long value; {@link #INVALID} if the bytes are not such a number
+     */
+    static long parseLong(byte[] bytes, int from, int to)
+    {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == '-' || bytes[i] == '+'))
+        {
+            negative = (bytes[i] == '-');
+            i++;
+        }
+        if (i == to || to - i > 18)
+        {
+            return INVALID;
+        }
+        long value = 0;
+        for (; i < to; i++)
+        {
+            if (!isDigit(bytes[i]))
+            {
+                return INVALID;
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Date as MM/dd/yyyy or yyyy-MM-dd, which must exist in the calendar.
+     * @return LocalDate; <code>null</code> if the bytes are not such a date
+     */
+    static LocalDate parseDate(byte[] bytes, int from, int to)
+    {
+        if (to - from != 10)
+        {
+            return null;
+        }
+        int year;
+        int month;
+        int day;
+        if (bytes[from + 2] == '/' && bytes[from + 5] == '/')
+        {
+            month = digits(bytes, from, 2);
+            day = digits(bytes, from + 3, 2);
+            year = digits(bytes, from + 6, 4);
+        }
+        else if (bytes[from + 4] == '-' && bytes[from + 7] == '-')
+        {
+            year = digits(bytes, from, 4);
+            month = digits(bytes, from + 5, 2);
+            day = digits(bytes, from + 8, 2);
+        }
+        else
+        {
+            return null;
+        }
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year)))
+        {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * @return value of a fixed number of digits; -1 if any is not a digit
+     */
+    private static int digits(byte[] bytes, int from, int count)
+    {
+        int value = 0;
+        for (int i = from; i < from + count; i++)
+        {
+            if (!isDigit(bytes[i]))
+            {
+                return -1;
+            }
+            value = value * 10 + (bytes[i] - '0');
+        }
+        return value;
+    }
+
+    private static <E extends Enum<E>> E parseEnum(E[] values, byte[] bytes, int from, int to)
+    {
+        for (E value : values)
+        {
+            if (matches(bytes, from, to, value.name()))
+            {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decodes '+' and %XY escapes in place.
+     * @return end of the decoded bytes
+     */
+    private static int decode(byte[] bytes, int from, int to)
+    {
+        int out = from;
+        for (int i = from; i < to; i++)
+        {
+            byte b = bytes[i];
+            if (b == '+')
+            {
+                b = ' ';
+            }
+            else if (b == '%' && i + 2 < to && hexDigit(bytes[i + 1]) >= 0 && hexDigit(bytes[i + 2]) >= 0)
+            {
+                b = (byte) (hexDigit(bytes[i + 1]) << 4 | hexDigit(bytes[i + 2]));
+                i += 2;
+            }
+            bytes[out++] = b;
+        }
+        return out;
+    }
+
+    /**
+     * Replaces JSON escapes in place; \\u escapes beyond ASCII, which no field can hold, become '?'.
+     * @return end of the unescaped bytes
+     */
+    private static int unescape(byte[] bytes, int from, int to)
+    {
+        int out = from;
+        for (int i = from; i < to; i++)
+        {
+            byte b = bytes[i];
+            if (b == '\\' && i + 1 < to)
+            {
+                b = bytes[++i];
+                switch (b)
+                {
+                    case 'b': b = '\b'; break;
+                    case 'f': b = '\f'; break;
+                    case 'n': b = '\n'; break;
+                    case 'r': b = '\r'; break;
+                    case 't': b = '\t'; break;
+                    case 'u':
+                        int c = (i + 4 < to) ? digitsHex(bytes, i + 1) : -1;
+                        b = (c >= 0 && c < 0x80) ? (byte) c : (byte) '?';
+                        i += (c >= 0) ? 4 : 0;
+                        break;
+                    default: break;
+                }
+            }
+            bytes[out++] = b;
+        }
+        return out;
+    }
+
+    private static int digitsHex(byte[] bytes, int from)
+    {
+        int value = 0;
+        for (int i = from; i < from + 4; i++)
+        {
+            int digit = hexDigit(bytes[i]);
+            if (digit < 0)
+            {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    /**
+     * @return index of the quote closing a JSON string that starts at from; -1 if it is not closed
+     */
+    private static int endOfString(byte[] bytes, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (bytes[i] == '\\')
+            {
+                i++;
+            }
+            else if (bytes[i] == '"')
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index after the object or array that starts at from; -1 if it is not closed
+     */
+    private static int skipNested(byte[] bytes, int from, int to)
+    {
+        int depth = 0;
+        for (int i = from; i < to; i++)
+        {
+            byte b = bytes[i];
+            if (b == '"')
+            {
+                i = endOfString(bytes, i + 1, to);
+                if (i < 0)
+                {
+                    return -1;
+                }
+            }
+            else if (b == '{' || b == '[')
+            {
+                depth++;
+            }
+            else if ((b == '}' || b == ']') && --depth == 0)
+            {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] bytes, int from, int to)
+    {
+        while (from < to && isWhitespace(bytes[from]))
+        {
+            from++;
+        }
+        return from;
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from, int to)
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (bytes[i] == b)
+            {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static boolean matches(byte[] bytes, int from, int to, String name)
+    {
+        if (to - from != name.length())
+        {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++)
+        {
+            if (bytes[from + i] != name.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase(String text, String prefix)
+    {
+        return text != null && text.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    private static boolean isDigit(byte b) { return b >= '0' && b <= '9'; }
+
+    private static boolean isWhitespace(byte b) { return b == ' ' || b == '\t' || b == '\n' || b == '\r'; }
+
+    private static int hexDigit(byte b)
+    {
+        if (b >= '0' && b <= '9') return b - '0';
+        if (b >= 'a' && b <= 'f') return b - 'a' + 10;
+        if (b >= 'A' && b <= 'F') return b - 'A' + 10;
+        return -1;
+    }
+
+    private static String text(byte[] bytes, int from, int to)
+    {
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package app.finance.core.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least recently used cache bounded both by number of entries and by an estimated total weight in bytes.
+ * <p/>
+ * All operations lock the cache; values are computed by callers outside the lock, so two threads missing
+ * on the same key may both compute it and the last put wins.  Cached values must be immutable.
+ *
+ * @param <K> key type, with value based equals and hashCode
+ * @param <V> immutable value type
+ */
+public final class LruCache<K, V>
+{
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<K, V>(16, 0.75f, true);
+
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maxEntries most entries held at once; 0 disables caching
+     * @param maxWeight  most total weight held at once, as estimated by the weigher
+     * @param weigher    estimates the retained size of a value in bytes
+     */
+    public LruCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher)
+    {
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    /**
+     * Looks up a value, counting a hit or a miss and marking it most recently used.
+     * @param key lookup key
+     * @return cached value, or <code>null</code> if absent
+     */
+    public synchronized V get(K key)
+    {
+        V value = entries.get(key);
+        if (value == null)
+        {
+            missCount++;
+        }
+        else
+        {
+            hitCount++;
+        }
+        return value;
+    }
+
+    /**
+     * Adds a value, evicting least recently used entries until both bounds hold again.
+     * A value heavier than the whole weight bound is not cached.
+     * @param key lookup key
+     * @param value immutable value
+     */
+    public synchronized void put(K key, V value)
+    {
+        long valueWeight = weigher.applyAsLong(value);
+        if (maxEntries <= 0 || valueWeight > maxWeight)
+        {
+            return;
+        }
+        V previous = entries.put(key, value);
+        if (previous != null)
+        {
+            weight -= weigher.applyAsLong(previous);
+        }
+        weight += valueWeight;
+
+        Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext())
+        {
+            weight -= weigher.applyAsLong(eldest.next().getValue());
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized void clear()
+    {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getWeight() { return weight; }
+    public synchronized long getHitCount() { return hitCount; }
+    public synchronized long getMissCount() { return missCount; }
+    public synchronized long getEvictionCount() { return evictionCount; }
+
+    public int getMaxEntries() { return maxEntries; }
+    public long getMaxWeight() { return maxWeight; }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "[" + entries.size() + "," + weight + "," + hitCount + "," + missCount + "," + evictionCount + "]";
+    }
+}
@@ -0,0 +1,467 @@
+package app.finance.core.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.Locale;
+
+/**
+ * Formats and parses numbers like a currency or percent {@link DecimalFormat} of one locale, writing the
+ * digits straight into a caller's StringBuilder.
+ * <p/>
+ * The locale's symbols, prefixes and suffixes are copied out of a DecimalFormat once, at construction,
+ * and never change, so one writer can be shared by any number of threads without locking.  Values are
+ * rounded half even, as DecimalFormat rounds them; a value whose rounding cannot be decided from its
+ * double product, or whose scaled value is too large to have spare precision, is rounded through BigDecimal
+ * instead.
+ */
+public final class NumberWriter
+{
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L,
+        10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+        1000000000000000L, 10000000000000000L, 100000000000000000L, 1000000000000000000L
+    };
+
+    // doubles up to 2^53 are exact integers, and 10^22 is the largest exact power of ten
+    private static final double MAX_EXACT_LONG = 9007199254740992.0;
+    // below 2^49 a scaled value is within 1/16 of a unit of its shortest decimal digits
+    private static final double MAX_FAST_SCALED = 562949953421312.0;
+    private static final BigDecimal ONE_HALF = new BigDecimal("0.5");
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final String positivePrefix;
+    private final String positiveSuffix;
+    private final String negativePrefix;
+    private final String negativeSuffix;
+    private final int multiplier;
+    private final int minimumIntegerDigits;
+    private final int minimumFractionDigits;
+    private final int maximumFractionDigits;
+    private final int groupingSize;
+    private final char groupingSeparator;
+    private final char decimalSeparator;
+    private final char zeroDigit;
+    private final String nan;
+    private final String infinity;
+
+    private NumberWriter(DecimalFormat format, char decimalSeparator)
+    {
+        DecimalFormatSymbols symbols = format.getDecimalFormatSymbols();
+        this.positivePrefix = format.getPositivePrefix();
+        this.positiveSuffix = format.getPositiveSuffix();
+        this.negativePrefix = format.getNegativePrefix();
+        this.negativeSuffix = format.getNegativeSuffix();
+        this.multiplier = format.getMultiplier();
+        this.minimumIntegerDigits = Math.min(format.getMinimumIntegerDigits(), POWERS_OF_TEN.length - 1);
+        this.minimumFractionDigits = format.getMinimumFractionDigits();
+        this.maximumFractionDigits = format.getMaximumFractionDigits();
+        this.groupingSize = format.isGroupingUsed() ? format.getGroupingSize() : 0;
+        this.groupingSeparator = symbols.getGroupingSeparator();
+        this.decimalSeparator = decimalSeparator;
+        this.zeroDigit = symbols.getZeroDigit();
+        this.nan = symbols.getNaN();
+        this.infinity = symbols.getInfinity();
+
+        if (maximumFractionDigits > 6 || minimumFractionDigits > maximumFractionDigits)
+        {
+            throw new IllegalArgumentException("Unsupported fraction digits: " + minimumFractionDigits + "," + maximumFractionDigits);
+        }
+    }
+
+    /**
+     * Writer for the locale's currency format.
+     * @param locale locale whose currency symbol and separators are used
+     * @param minimumFractionDigits fewest digits written after the decimal separator
+     * @param maximumFractionDigits most digits written after the decimal separator, at most 6
+     * @return NumberWriter matching <code>NumberFormat.getCurrencyInstance(locale)</code>
+     */
+    public static NumberWriter currency(Locale locale, int minimumFractionDigits, int maximumFractionDigits)
+    {
+        DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+        format.setMinimumFractionDigits(minimumFractionDigits);
+        format.setMaximumFractionDigits(maximumFractionDigits);
+        return new NumberWriter(format, format.getDecimalFormatSymbols().getMonetaryDecimalSeparator());
+    }
+
+    /**
+     * Writer for the locale's percent format, which writes 0.07 as 7%.
+     * @param locale locale whose percent sign and separators are used
+     * @param minimumFractionDigits fewest digits written after the decimal separator
+     * @param maximumFractionDigits most digits written after the decimal separator, at most 6
+     * @return NumberWriter matching <code>NumberFormat.getPercentInstance(locale)</code>
+     */
+    public static NumberWriter percent(Locale locale, int minimumFractionDigits, int maximumFractionDigits)
+    {
+        DecimalFormat format = (DecimalFormat) NumberFormat.getPercentInstance(locale);
+        format.setMinimumFractionDigits(minimumFractionDigits);
+        format.setMaximumFractionDigits(maximumFractionDigits);
+        return new NumberWriter(format, format.getDecimalFormatSymbols().getDecimalSeparator());
+    }
+
+    /**
+     * Appends the formatted value, allocating nothing unless the builder has to grow or the value
+     * needs the BigDecimal path described above.
+     * @param number value to format
+     * @param out destination
+     * @return the destination, for chaining
+     */
+    public StringBuilder append(double number, StringBuilder out)
+    {
+        if (Double.isNaN(number))
+        {
+            return out.append(nan);
+        }
+
+        // DecimalFormat keeps the sign of values that round to zero, including -0.0
+        boolean negative = number < 0.0 || (number == 0.0 && 1 / number < 0.0);
+        double value = Math.abs(number * multiplier);
+        out.append(negative ? negativePrefix : positivePrefix);
+
+        if (Double.isInfinite(value))
+        {
+            out.append(infinity);
+        }
+        else
+        {
+            double scaled = value * EXACT_POWERS_OF_TEN[maximumFractionDigits];
+            double floor = Math.floor(scaled);
+            if (scaled < MAX_FAST_SCALED && Math.abs(scaled - floor - 0.5) > Math.ulp(scaled))
+            {
+                long units = (long) (scaled - floor < 0.5 ? floor : floor + 1);
+                long integer = divideByPowerOfTen(units, maximumFractionDigits);
+                appendDigits(integer, units - integer * POWERS_OF_TEN[maximumFractionDigits], out);
+            }
+            else
+            {
+                appendDigits(round(value), out);
+            }
+        }
+
+        return out.append(negative ? negativeSuffix : positiveSuffix);
+    }
+
+    /**
+     * Formats a value into a new string.
+     * @param number value to format
+     * @return String as written by {@link #append(double, StringBuilder)}
+     */
+    public String format(double number)
+    {
+        return append(number, new StringBuilder(24)).toString();
+    }
+
+    /**
+     * Parses a value written in this format, the way <code>DecimalFormat.parse</code> does: the positive or
+     * negative prefix and suffix must surround the digits, grouping separators may appear among the integer
+     * digits, and any text after the suffix is ignored.  Values of up to 15 significant digits are converted
+     * without allocating.
+     * @param text text to parse
+     * @return double value, divided by the format's multiplier
+     * @throws ParseException if the text does not start with a number in this format
+     */
+    public double parse(CharSequence text) throws ParseException
+    {
+        boolean positive = startsWith(text, 0, positivePrefix);
+        boolean negative = startsWith(text, 0, negativePrefix);
+        if (positive && negative)
+        {
+            positive = positivePrefix.length() >= negativePrefix.length();
+            negative = !positive;
+        }
+        if (!positive && !negative)
+        {
+            throw unparseable(text, 0);
+        }
+
+        int start = positive ? positivePrefix.length() : negativePrefix.length();
+        int position = start;
+        double value;
+        if (startsWith(text, position, infinity))
+        {
+            position += infinity.length();
+            value = Double.POSITIVE_INFINITY;
+        }
+        else
+        {
+            // digits are gathered into a long while they fit; any further digits only move the exponent
+            long significand = 0;
+            int exponent = 0;
+            boolean exact = true;
+            boolean sawDigit = false;
+            boolean sawDecimalSeparator = false;
+            for (; position < text.length(); position++)
+            {
+                char c = text.charAt(position);
+                int digit = digit(c);
+                if (digit >= 0)
+                {
+                    sawDigit = true;
+                    if (significand <= (Long.MAX_VALUE - digit) / 10)
+                    {
+                        significand = significand * 10 + digit;
+                        exponent -= sawDecimalSeparator ? 1 : 0;
+                    }
+                    else
+                    {
+                        exact &= digit == 0;
+                        exponent += sawDecimalSeparator ? 0 : 1;
+                    }
+                }
+                else if (c == decimalSeparator && !sawDecimalSeparator)
+                {
+                    sawDecimalSeparator = true;
+                }
+                else if (c != groupingSeparator || groupingSize == 0 || sawDecimalSeparator)
+                {
+                    break;
+                }
+            }
+            if (!sawDigit)
+            {
+                throw unparseable(text, start);
+            }
+            while (exponent < 0 && significand != 0 && significand % 10 == 0)
+            {
+                significand /= 10;
+                exponent++;
+            }
+            value = toDouble(significand, exponent, exact, text, start, position);
+        }
+
+        if (!startsWith(text, position, positive ? positiveSuffix : negativeSuffix))
+        {
+            throw unparseable(text, position);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Converts parsed digits as DecimalFormat does: whole numbers that fit a long are divided by the
+     * multiplier in long arithmetic when it divides them, everything else as a double.
+     */
+    private double toDouble(long significand, int exponent, boolean exact, CharSequence text, int start, int end)
+    {
+        if (exact && exponent >= 0 && exponent < POWERS_OF_TEN.length && significand <= Long.MAX_VALUE / POWERS_OF_TEN[exponent])
+        {
+            long whole = significand * POWERS_OF_TEN[exponent];
+            return whole % multiplier == 0 ? (double) (whole / multiplier) : (double) whole / multiplier;
+        }
+
+        double value;
+        if (exact && significand < MAX_EXACT_LONG && exponent >= -22 && exponent <= 22)
+        {
+            // both operands are exact, so a single multiply or divide rounds correctly
+            value = exponent < 0 ? significand / EXACT_POWERS_OF_TEN[-exponent] : significand * EXACT_POWERS_OF_TEN[exponent];
+        }
+        else
+        {
+            value = new BigDecimal(normalize(text, start, end)).doubleValue();
+        }
+        return value / multiplier;
+    }
+
+    private void appendDigits(long integer, long fraction, StringBuilder out)
+    {
+        int integerDigits = minimumIntegerDigits;
+        while (integerDigits < POWERS_OF_TEN.length && integer >= POWERS_OF_TEN[integerDigits])
+        {
+            integerDigits++;
+        }
+
+        if (zeroDigit == '0')
+        {
+            // whole groups go through StringBuilder.append(long), which writes digits in pairs
+            int leadingDigits = groupingSize > 0 ? (integerDigits - 1) % groupingSize + 1 : integerDigits;
+            int remainingDigits = integerDigits - leadingDigits;
+            long leading = divideByPowerOfTen(integer, remainingDigits);
+            appendPadded(leading, leadingDigits, out);
+            integer -= leading * POWERS_OF_TEN[remainingDigits];
+            while (remainingDigits > 0)
+            {
+                remainingDigits -= groupingSize;
+                long group = divideByPowerOfTen(integer, remainingDigits);
+                out.append(groupingSeparator);
+                appendPadded(group, groupingSize, out);
+                integer -= group * POWERS_OF_TEN[remainingDigits];
+            }
+        }
+        else
+        {
+            for (int i = integerDigits - 1; i >= 0; i--)
+            {
+                out.append((char) (zeroDigit + (integer / POWERS_OF_TEN[i]) % 10));
+                appendGroupingSeparator(i, out);
+            }
+        }
+        appendFraction(fraction, out);
+    }
+
+    /**
+     * Rounds as DecimalFormat does: the shortest decimal digits of the value, half even, except that a tie in
+     * those digits is broken by the exact binary value when the two differ.
+     */
+    private BigDecimal round(double value)
+    {
+        BigDecimal shortest = BigDecimal.valueOf(value);
+        BigDecimal units = shortest.movePointRight(maximumFractionDigits);
+        if (units.subtract(new BigDecimal(units.toBigInteger())).compareTo(ONE_HALF) == 0)
+        {
+            BigDecimal exact = new BigDecimal(value);
+            if (exact.compareTo(shortest) != 0)
+            {
+                return exact.setScale(maximumFractionDigits, RoundingMode.HALF_EVEN);
+            }
+        }
+        return shortest.setScale(maximumFractionDigits, RoundingMode.HALF_EVEN);
+    }
+
+    private void appendDigits(BigDecimal rounded, StringBuilder out)
+    {
+        String digits = rounded.unscaledValue().toString();
+        int integerEnd = digits.length() - maximumFractionDigits;
+        int integerDigits = Math.max(integerEnd, minimumIntegerDigits);
+        for (int i = integerDigits - 1; i >= 0; i--)
+        {
+            int index = integerEnd - 1 - i;
+            out.append(index >= 0 ? (char) (zeroDigit + digits.charAt(index) - '0') : zeroDigit);
+            appendGroupingSeparator(i, out);
+        }
+
+        long fraction = 0;
+        for (int i = Math.max(integerEnd, 0); i < digits.length(); i++)
+        {
+            fraction = fraction * 10 + digits.charAt(i) - '0';
+        }
+        appendFraction(fraction, out);
+    }
+
+    private void appendGroupingSeparator(int digitsRemaining, StringBuilder out)
+    {
+        if (groupingSize > 0 && digitsRemaining > 0 && digitsRemaining % groupingSize == 0)
+        {
+            out.append(groupingSeparator);
+        }
+    }
+
+    private void appendFraction(long fraction, StringBuilder out)
+    {
+        int fractionDigits = maximumFractionDigits;
+        while (fractionDigits > minimumFractionDigits && fraction % 10 == 0)
+        {
+            fraction /= 10;
+            fractionDigits--;
+        }
+        if (fractionDigits > 0)
+        {
+            out.append(decimalSeparator);
+            if (zeroDigit == '0')
+            {
+                appendPadded(fraction, fractionDigits, out);
+            }
+            else
+            {
+                for (int i = fractionDigits - 1; i >= 0; i--)
+                {
+                    out.append((char) (zeroDigit + (fraction / POWERS_OF_TEN[i]) % 10));
+                }
+            }
+        }
+    }
+
+    /**
+     * Divides by a constant for the common exponents, which compiles to a multiplication rather than a
+     * hardware division.
+     */
+    private static long divideByPowerOfTen(long value, int exponent)
+    {
+        switch (exponent)
+        {
+            case 0: return value;
+            case 1: return value / 10;
+            case 2: return value / 100;
+            case 3: return value / 1000;
+            case 4: return value / 10000;
+            case 6: return value / 1000000;
+            case 9: return value / 1000000000;
+            case 12: return value / 1000000000000L;
+            default: return value / POWERS_OF_TEN[exponent];
+        }
+    }
+
+    /**
+     * Appends a value of at most <code>digits</code> ASCII digits, zero padded on the left to that width.
+     */
+    private static void appendPadded(long value, int digits, StringBuilder out)
+    {
+        for (int i = digits - 1; i > 0 && value < POWERS_OF_TEN[i]; i--)
+        {
+            out.append('0');
+        }
+        if (digits > 0)
+        {
+            out.append(value);
+        }
+    }
+
+    /**
+     * Digits of a parsed number in BigDecimal syntax, for values too long to convert exactly in a double.
+     */
+    private String normalize(CharSequence text, int start, int end)
+    {
+        StringBuilder digits = new StringBuilder(end - start);
+        for (int i = start; i < end; i++)
+        {
+            char c = text.charAt(i);
+            int digit = digit(c);
+            if (digit >= 0)
+            {
+                digits.append((char) ('0' + digit));
+            }
+            else if (c == decimalSeparator)
+            {
+                digits.append('.');
+            }
+        }
+        return digits.toString();
+    }
+
+    private int digit(char c)
+    {
+        int digit = Character.digit(c, 10);
+        return digit < 0 && c >= zeroDigit && c <= zeroDigit + 9 ? c - zeroDigit : digit;
+    }
+
+    private static boolean startsWith(CharSequence text, int offset, String prefix)
+    {
+        if (text.length() - offset < prefix.length())
+        {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++)
+        {
+            if (text.charAt(offset + i) != prefix.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ParseException unparseable(CharSequence text, int errorOffset)
+    {
+        return new ParseException("Unparseable number: \"" + text + "\"", errorOffset);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + positivePrefix + "," + positiveSuffix + "," + minimumFractionDigits + "," + maximumFractionDigits + "]";
+    }
+}
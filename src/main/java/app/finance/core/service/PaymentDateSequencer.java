@@ -0,0 +1,90 @@
+package app.finance.core.service;
+
+import java.time.LocalDate;
+import java.time.Year;
+
+/**
+ * Generates the monthly payment dates of a schedule as epoch days, one after another.
+ * <p/>
+ * Every date is the start date's day of month, clamped to the length of the month it falls in, so a loan
+ * starting Jan 31 pays on Feb 28 (or 29), then Mar 31, and never drifts to an earlier day.
+ */
+public final class PaymentDateSequencer
+{
+    private static final int[] DAYS_IN_MONTH = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private final int dayOfMonth;
+    private int year;
+    private int month;
+    private long firstOfMonth;
+
+    /**
+     * @param startDate loan start date
+     * @param paymentType when payment is made: beginning of period is 1; end, 0.
+     */
+    public PaymentDateSequencer(LocalDate startDate, int paymentType)
+    {
+        dayOfMonth = startDate.getDayOfMonth();
+        year = startDate.getYear();
+        month = startDate.getMonthValue();
+        firstOfMonth = startDate.toEpochDay() - (dayOfMonth - 1);
+
+        // payments at the end of a period fall one month after the period starts.
+        if (paymentType == 0)
+        {
+            advanceMonth();
+        }
+    }
+
+    /**
+     * @return int epoch day of the next payment
+     */
+    public int next()
+    {
+        int paymentDate = (int) (firstOfMonth + Math.min(dayOfMonth, lengthOfMonth(year, month)) - 1);
+        advanceMonth();
+        return paymentDate;
+    }
+
+    /**
+     * Passes over payments without generating their dates, in constant time.
+     * @param payments number of payments to pass over
+     */
+    public void skip(int payments)
+    {
+        int months = year * 12 + (month - 1) + payments;
+        year = Math.floorDiv(months, 12);
+        month = Math.floorMod(months, 12) + 1;
+        firstOfMonth = LocalDate.of(year, month, 1).toEpochDay();
+    }
+
+    /**
+     * Fills the date column of a schedule in one pass.
+     * @param paymentDate column to fill with epoch days, one per payment
+     * @param startDate loan start date
+     * @param paymentType when payment is made: beginning of period is 1; end, 0.
+     */
+    public static void fill(int[] paymentDate, LocalDate startDate, int paymentType)
+    {
+        PaymentDateSequencer sequencer = new PaymentDateSequencer(startDate, paymentType);
+        for (int i = 0; i < paymentDate.length; i++)
+        {
+            paymentDate[i] = sequencer.next();
+        }
+    }
+
+    private void advanceMonth()
+    {
+        firstOfMonth += lengthOfMonth(year, month);
+        if (++month > 12)
+        {
+            month = 1;
+            year++;
+        }
+    }
+
+    private static int lengthOfMonth(int year, int month)
+    {
+        return (month == 2 && Year.isLeap(year)) ? 29 : DAYS_IN_MONTH[month];
+    }
+}
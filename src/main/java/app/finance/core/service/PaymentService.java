@@ -5,9 +5,10 @@ package app.finance.core.service;
 // http://www.tvmcalcs.com/index.php/tvm/formulas/regular_annuity_formulas
 // http://www.experts-exchange.com/articles/1948/A-Guide-to-the-PMT-FV-IPMT-and-PPMT-Functions.html
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.Locale;
 
 /**
  * Calculates payments and values of a loan amortization.
@@ -15,20 +16,29 @@ import java.text.ParseException;
 @Service
 public class PaymentService
 {
-    private final NumberFormat nfPercent;
-    private final NumberFormat nfCurrency;
+    private static final ThreadLocal<StringBuilder> FORMAT_BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(32));
 
+    private final NumberWriter percentWriter;
+    private final NumberWriter currencyWriter;
+    private final CompoundingFactorTable compoundingFactorTable;
+
+    /**
+     * Payment service without a factor table, evaluating every compounding factor directly.
+     */
     PaymentService()
     {
-        // establish percentage formatter.
-        nfPercent = NumberFormat.getPercentInstance();
-        nfPercent.setMinimumFractionDigits(2);
-        nfPercent.setMaximumFractionDigits(4);
+        this(new CompoundingFactorTable(0, 0, 0));
+    }
 
-        // establish currency formatter.
-        nfCurrency = NumberFormat.getCurrencyInstance();
-        nfCurrency.setMinimumFractionDigits(2);
-        nfCurrency.setMaximumFractionDigits(2);
+    @Autowired
+    PaymentService(CompoundingFactorTable compoundingFactorTable)
+    {
+        this.compoundingFactorTable = compoundingFactorTable;
+
+        // establish percentage and currency formatters, immutable and so shared by all request threads.
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        percentWriter = NumberWriter.percent(locale, 2, 4);
+        currencyWriter = NumberWriter.currency(locale, 2, 2);
     }
 
     /**
@@ -39,7 +49,19 @@ public class PaymentService
      */
     public String formatCurrency(double number)
     {
-        return nfCurrency.format(number);
+        return currencyWriter.append(number, formatBuffer()).toString();
+    }
+
+    /**
+     * Append passed number value as a monetary string, without allocating.
+     *
+     * @param number
+     * @param out destination
+     * @return the destination, for chaining
+     */
+    public StringBuilder formatCurrency(double number, StringBuilder out)
+    {
+        return currencyWriter.append(number, out);
     }
 
     /**
@@ -50,7 +72,19 @@ public class PaymentService
      */
     public String formatPercent(double number)
     {
-        return nfPercent.format(number);
+        return percentWriter.append(number, formatBuffer()).toString();
+    }
+
+    /**
+     * Append passed number value as a percent string, without allocating.
+     *
+     * @param number
+     * @param out destination
+     * @return the destination, for chaining
+     */
+    public StringBuilder formatPercent(double number, StringBuilder out)
+    {
+        return percentWriter.append(number, out);
     }
 
     /**
@@ -62,7 +96,14 @@ public class PaymentService
      */
     public double stringToPercent(String s) throws ParseException
     {
-        return nfPercent.parse(s).doubleValue();
+        return percentWriter.parse(s);
+    }
+
+    private static StringBuilder formatBuffer()
+    {
+        StringBuilder buffer = FORMAT_BUFFERS.get();
+        buffer.setLength(0);
+        return buffer;
     }
 
     /**
@@ -73,7 +114,11 @@ public class PaymentService
      */
     public double getMonthlyInterestRate(double interestRate)
     {
-        return interestRate / 100 / 12;
+        double r = interestRate / 100 / 12;
+
+        // calculations at this rate usually follow, so have its compounding factors at hand.
+        compoundingFactorTable.prepare(r);
+        return r;
     }
 
     /**
@@ -88,13 +133,30 @@ public class PaymentService
      * @return <code>double</code> representing periodic payment amount.
      */
     public double pmt(double r, int nper, double pv, double fv, int type)
+    {
+        return pmtForFactor(r, nper, compoundingFactorTable.factor(r, nper), pv, fv, type);
+    }
+
+    /**
+     * Form of {@link #pmt(double, int, double, double, int)} taking the compounding factor (1 + r)^N
+     * from the caller, e.g. from a table of powers shared by many loans at the same rate.
+     *
+     * @param r      periodic interest rate represented as a decimal.
+     * @param nper   number of total payments or periods.
+     * @param factor (1 + r)^nper.
+     * @param pv     present value -- borrowed or invested principal.
+     * @param fv     future value of loan or annuity.
+     * @param type   when payment is made: beginning of period is 1; end, 0.
+     * @return <code>double</code> representing periodic payment amount.
+     */
+    public double pmtForFactor(double r, int nper, double factor, double pv, double fv, int type)
     {
         if (r == 0) {
             return -(pv + fv) / nper;
         }
 
         // i.e., pmt = r / ((1 + r)^N - 1) * -(pv * (1 + r)^N + fv)
-        double pmt = r / (Math.pow(1 + r, nper) - 1) * -(pv * Math.pow(1 + r, nper) + fv);
+        double pmt = r / (factor - 1) * -(pv * factor + fv);
 
         // account for payments at beginning of period versus end.
         if (type == 1) {
@@ -132,6 +194,54 @@ public class PaymentService
         return pmt(r, nper, pv, 0, 0);
     }
 
+    /**
+     * Bulk form of {@link #pmt(double, int, double, double, int)} over columns of rates, terms and principals,
+     * such as every cell of a rate sheet.
+     * <p/>
+     * The work is split into two tight loops: one evaluating (1 + r)^N once per element, where the scalar
+     * form evaluates it twice, and one branch-free arithmetic pass the JIT can auto-vectorize, with the
+     * zero-rate case applied as a select rather than a branch.  Each element is the same expression over the
+     * same Math.pow result as the scalar form, so results are bit-for-bit identical to calling pmt() per element.
+     *
+     * @param r    periodic interest rates represented as decimals.
+     * @param nper numbers of total payments or periods.
+     * @param pv   present values -- borrowed or invested principals.
+     * @param fv   future value of every loan or annuity.
+     * @param type when payment is made: beginning of period is 1; end, 0.
+     * @param out  receives the periodic payment amounts; may not alias the inputs.
+     * @throws IllegalArgumentException if the arrays differ in length.
+     */
+    public void pmt(double[] r, int[] nper, double[] pv, double fv, int type, double[] out)
+    {
+        int n = out.length;
+        if (r.length != n || nper.length != n || pv.length != n) {
+            throw new IllegalArgumentException("column lengths differ: " + r.length + "," + nper.length + "," + pv.length + "," + n);
+        }
+
+        // (1 + r)^N, the only transcendental call.
+        for (int i = 0; i < n; i++) {
+            out[i] = Math.pow(1 + r[i], nper[i]);
+        }
+
+        // i.e., pmt = r / ((1 + r)^N - 1) * -(pv * (1 + r)^N + fv), or -(pv + fv) / N when r is 0.
+        if (type == 1) {
+            for (int i = 0; i < n; i++) {
+                double ri = r[i];
+                double growth = out[i];
+                double pmt = ri / (growth - 1) * -(pv[i] * growth + fv) / (1 + ri);
+                out[i] = (ri == 0) ? -(pv[i] + fv) / nper[i] : pmt;
+            }
+        }
+        else {
+            for (int i = 0; i < n; i++) {
+                double ri = r[i];
+                double growth = out[i];
+                double pmt = ri / (growth - 1) * -(pv[i] * growth + fv);
+                out[i] = (ri == 0) ? -(pv[i] + fv) / nper[i] : pmt;
+            }
+        }
+    }
+
     /**
      * Emulates FV(interest_rate, number_payments, payment, PV, Type) function, which calculates
      * future value or principal at period N.
@@ -147,6 +257,25 @@ public class PaymentService
     {
         if (r == 0) return pv;
 
+        return fvForFactor(r, nper, compoundingFactorTable.factor(r, nper), c, pv, type);
+    }
+
+    /**
+     * Form of {@link #fv(double, int, double, double, int)} taking the compounding factor (1 + r)^N
+     * from the caller, e.g. for a rate used only once, which is not worth a place in the table.
+     *
+     * @param r      periodic interest rate represented as a decimal.
+     * @param nper   number of total payments or periods.
+     * @param factor (1 + r)^nper.
+     * @param c      periodic payment amount.
+     * @param pv     present value -- borrowed or invested principal.
+     * @param type   when payment is made: beginning of period is 1; end, 0.
+     * @return <code>double</code> representing future principal value.
+     */
+    public double fvForFactor(double r, int nper, double factor, double c, double pv, int type)
+    {
+        if (r == 0) return pv;
+
         // account for payments at beginning of period versus end.
         // since we are going in reverse, we multiply by 1 plus interest rate.
         if (type == 1) {
@@ -154,7 +283,7 @@ public class PaymentService
         }
 
         // fv = -(((1 + r)^N - 1) / r * c + pv * (1 + r)^N);
-        double fv = -((Math.pow(1 + r, nper) - 1) / r * c + pv * Math.pow(1 + r, nper));
+        double fv = -((factor - 1) / r * c + pv * factor);
 
         // return results to caller.
         return fv;
@@ -223,4 +352,118 @@ public class PaymentService
         return pmt(r, nper, pv, fv, type) - ipmt(r, per, nper, pv, fv, type);
     }
 
-}
\ No newline at end of file
+    /**
+     * Emulates CUMIPMT(interest_rate, number_payments, PV, start_period, end_period, Type) function, extended
+     * with FV, which calculates the interest paid between two periods inclusive without visiting each period.
+     *
+     * @param r           periodic interest rate represented as a decimal.
+     * @param nper        number of total payments or periods.
+     * @param pv          present value -- borrowed or invested principal.
+     * @param fv          future value of loan or annuity.
+     * @param type        when payment is made: beginning of period is 1; end, 0.
+     * @param startPeriod first period (payment number) to include.
+     * @param endPeriod   last period (payment number) to include.
+     * @return <code>double</code> representing the sum of ipmt() over the periods.
+     * @see #ipmt(double, int, int, double, double, int)
+     */
+    public double cumipmt(double r, int nper, double pv, double fv, int type, int startPeriod, int endPeriod)
+    {
+        if (r == 0) return 0;
+
+        double c = pmt(r, nper, pv, fv, type);
+        return interestThrough(r, endPeriod, c, pv, type) - interestThrough(r, startPeriod - 1, c, pv, type);
+    }
+
+    /**
+     * Form of {@link #cumipmt(double, int, double, double, int, int, int)} taking the compounding factor
+     * (1 + r)^N from the caller as {@link #pmtForFactor(double, int, double, double, double, int)} does.
+     *
+     * @param r           periodic interest rate represented as a decimal.
+     * @param nper        number of total payments or periods.
+     * @param factor      (1 + r)^nper.
+     * @param pv          present value -- borrowed or invested principal.
+     * @param fv          future value of loan or annuity.
+     * @param type        when payment is made: beginning of period is 1; end, 0.
+     * @param startPeriod first period (payment number) to include.
+     * @param endPeriod   last period (payment number) to include.
+     * @return <code>double</code> representing the sum of ipmt() over the periods.
+     */
+    public double cumipmtForFactor(double r, int nper, double factor, double pv, double fv, int type, int startPeriod, int endPeriod)
+    {
+        if (r == 0) return 0;
+
+        double c = pmtForFactor(r, nper, factor, pv, fv, type);
+        return interestThrough(r, endPeriod, c, pv, type) - interestThrough(r, startPeriod - 1, c, pv, type);
+    }
+
+    /**
+     * Interest paid over the whole loan, i.e. cumipmt() from period 1 through nper, taking the compounding
+     * factor (1 + r)^N from the caller as {@link #pmtForFactor(double, int, double, double, double, int)} does.
+     *
+     * @param r      periodic interest rate represented as a decimal.
+     * @param nper   number of total payments or periods.
+     * @param factor (1 + r)^nper.
+     * @param pv     present value -- borrowed or invested principal.
+     * @param fv     future value of loan or annuity.
+     * @param type   when payment is made: beginning of period is 1; end, 0.
+     * @return <code>double</code> representing the sum of ipmt() over every period.
+     * @see #cumipmt(double, int, double, double, int, int, int)
+     */
+    public double cumipmtForFactor(double r, int nper, double factor, double pv, double fv, int type)
+    {
+        if (r == 0) return 0;
+
+        // the balance runs from pv to -fv, so whatever the payments add beyond that is interest.
+        // i.e., nper * pmt + pv + fv, with the payment carried to period end as fv() does for type 1.
+        double c = pmtForFactor(r, nper, factor, pv, fv, type);
+        if (type == 1) {
+            return (nper * c * (1 + r) + pv + fv) / (1 + r);
+        }
+        return nper * c + pv + fv;
+    }
+
+    /**
+     * Emulates CUMPRINC(interest_rate, number_payments, PV, start_period, end_period, Type) function, extended
+     * with FV, which calculates the principal paid between two periods inclusive without visiting each period.
+     *
+     * @param r           periodic interest rate represented as a decimal.
+     * @param nper        number of total payments or periods.
+     * @param pv          present value -- borrowed or invested principal.
+     * @param fv          future value of loan or annuity.
+     * @param type        when payment is made: beginning of period is 1; end, 0.
+     * @param startPeriod first period (payment number) to include.
+     * @param endPeriod   last period (payment number) to include.
+     * @return <code>double</code> representing the sum of ppmt() over the periods.
+     * @see #ppmt(double, int, int, double, double, int)
+     */
+    public double cumprinc(double r, int nper, double pv, double fv, int type, int startPeriod, int endPeriod)
+    {
+        // every period pays pmt, split between principal and interest.
+        return (endPeriod - startPeriod + 1) * pmt(r, nper, pv, fv, type) - cumipmt(r, nper, pv, fv, type, startPeriod, endPeriod);
+    }
+
+    /**
+     * Sum of ipmt() for periods 1 through per, from the geometric series of the fv() balances it is based on.
+     */
+    private double interestThrough(double r, int per, double c, double pv, int type)
+    {
+        if (per <= 0) return 0;
+
+        // account for payments at beginning of period versus end, as fv() does.
+        if (type == 1) {
+            c *= (1 + r);
+        }
+
+        // sum of fv(r, k, c, pv, type) for k = 0..per-1, times r
+        // i.e., -(pv * ((1 + r)^per - 1) + c * (((1 + r)^per - 1) / r - per))
+        double growth = Math.expm1(per * Math.log1p(r));
+        double interest = -(pv * growth + c * (growth / r - per));
+
+        // account for payments at beginning of period versus end, as ipmt() does.
+        if (type == 1) {
+            interest /= (1 + r);
+        }
+        return interest;
+    }
+
+}
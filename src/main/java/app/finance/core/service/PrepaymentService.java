@@ -0,0 +1,280 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationColumns;
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.ExtraPayment;
+import app.finance.core.model.LoanParameters;
+import app.finance.core.model.PrepaymentScenario;
+import app.finance.core.model.ScenarioComparison;
+import app.finance.core.model.ScenarioResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Re-amortizes a loan under extra principal payments, which keep the regular payment and shorten the term.
+ * <p/>
+ * Every scenario starts from the loan's regular schedule, shared through the schedule cache.  A scenario
+ * matches that schedule row for row until its first extra payment, so those rows are read from it rather
+ * than recalculated, and the recurrence only runs from the first period where the scenario diverges.
+ */
+@Service
+public class PrepaymentService
+{
+    /** Most scenarios compared in one request. */
+    static final int MAX_SCENARIOS = 100;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private AmortizationService amortizationService;
+
+    /**
+     * Evaluates every scenario against the loan's regular schedule.
+     * @param loan loan parameters; startDate defaults to today
+     * @param scenarios scenarios to compare, at most {@link #MAX_SCENARIOS}
+     * @param includeSchedules whether each result carries its schedule through payoff
+     * @return ScenarioComparison with one result per scenario, in order
+     */
+    public ScenarioComparison compare(LoanParameters loan, List<PrepaymentScenario> scenarios, boolean includeSchedules)
+    {
+        if (scenarios.size() > MAX_SCENARIOS)
+        {
+            throw new IllegalArgumentException("at most " + MAX_SCENARIOS + " scenarios may be compared: " + scenarios.size());
+        }
+        BaseSchedule base = openBase(loan);
+
+        List<ScenarioResult> results = new ArrayList<ScenarioResult>(scenarios.size());
+        for (PrepaymentScenario scenario : scenarios)
+        {
+            results.add(evaluate(base, scenario, firstExtraPeriod(base, scenario), includeSchedules));
+        }
+        PrepaymentScenario regular = new PrepaymentScenario();
+        regular.setName("base");
+        return new ScenarioComparison(base.pmt, evaluate(base, regular, base.durationInMonths + 1, includeSchedules), results);
+    }
+
+    /**
+     * Calculates the loan's regular schedule, or takes it from the schedule cache.
+     */
+    BaseSchedule openBase(LoanParameters loan)
+    {
+        int durationInMonths = loan.getDurationInMonths();
+        int paymentType = loan.getPaymentType();
+        if (durationInMonths <= 0 || durationInMonths > AmortizationService.MAX_DURATION_IN_MONTHS)
+        {
+            throw new IllegalArgumentException("durationInMonths must be between 1 and " + AmortizationService.MAX_DURATION_IN_MONTHS + ": " + durationInMonths);
+        }
+        if (paymentType != 0 && paymentType != 1)
+        {
+            throw new IllegalArgumentException("paymentType must be 0 or 1: " + paymentType);
+        }
+        LocalDate startDate = (loan.getStartDate() == null) ? LocalDate.now() : loan.getStartDate();
+        AmortizationSchedule schedule = amortizationService.getSchedule(startDate, loan.getInitialBalance(), durationInMonths, paymentType,
+                loan.getInterestRate(), loan.getFutureValue(), AmortizationEngine.RECURRENCE);
+        double r = paymentService.getMonthlyInterestRate(loan.getInterestRate());
+        BaseSchedule base = new BaseSchedule(loan, schedule, r, paymentService.pmt(r, durationInMonths, loan.getInitialBalance(), loan.getFutureValue(), paymentType));
+        if (base.direction == 0)
+        {
+            throw new IllegalArgumentException("the loan ends at its initial balance, leaving nothing to prepay: " + loan);
+        }
+        return base;
+    }
+
+    /**
+     * First payment a scenario adds principal to, i.e. the first row where it differs from the base schedule.
+     * @return int payment number; one past the last payment if the scenario pays nothing extra
+     */
+    int firstExtraPeriod(BaseSchedule base, PrepaymentScenario scenario)
+    {
+        int first = base.durationInMonths + 1;
+        for (ExtraPayment extraPayment : scenario.getExtraPayments())
+        {
+            double amount = extraPayment.getAmount();
+            int startPeriod = extraPayment.getStartPeriod();
+            if (!(amount >= 0) || Double.isInfinite(amount))
+            {
+                throw new IllegalArgumentException("extra payment amount must be a finite number and must not be negative: " + amount);
+            }
+            if (startPeriod < 1 || startPeriod > base.durationInMonths)
+            {
+                throw new IllegalArgumentException("extra payment startPeriod must be between 1 and " + base.durationInMonths + ": " + startPeriod);
+            }
+            if (extraPayment.getIntervalInMonths() < 0 || (extraPayment.getEndPeriod() != 0 && extraPayment.getEndPeriod() < startPeriod))
+            {
+                throw new IllegalArgumentException("extra payment must recur at least monthly from startPeriod through endPeriod: " + extraPayment);
+            }
+            if (amount > 0)
+            {
+                first = Math.min(first, startPeriod);
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Copies the base schedule's totals through the period before the first extra payment, then steps the
+     * recurrence of {@link AmortizationCursor} from there with each period's extra principal added to the
+     * payment, until the balance reaches the base schedule's final balance.  The payment that gets there is
+     * cut to exactly what remains.
+     * @param firstExtraPeriod first period that differs from the base schedule
+     */
+    ScenarioResult evaluate(BaseSchedule base, PrepaymentScenario scenario, int firstExtraPeriod, boolean includeSchedule)
+    {
+        AmortizationSchedule baseSchedule = base.schedule;
+        int n = base.durationInMonths;
+        int reused = firstExtraPeriod - 1;
+
+        double balance = (reused == 0) ? base.initialBalance : baseSchedule.balanceAt(reused - 1);
+        double accumulatedInterest = (reused == 0) ? 0 : baseSchedule.accumulatedInterestAt(reused - 1);
+        double fvBalance = (reused == 0) ? base.initialBalance : -paymentService.fv(base.r, reused, base.pmt, base.initialBalance, base.paymentType);
+
+        double[] balanceColumn = null;
+        double[] principalColumn = null;
+        double[] interestColumn = null;
+        double[] accumulatedInterestColumn = null;
+        if (includeSchedule)
+        {
+            balanceColumn = new double[n];
+            principalColumn = new double[n];
+            interestColumn = new double[n];
+            accumulatedInterestColumn = new double[n];
+            for (int i = 0; i < Math.min(reused, n); i++)
+            {
+                balanceColumn[i] = baseSchedule.balanceAt(i);
+                principalColumn[i] = baseSchedule.principalPaidAt(i);
+                interestColumn[i] = baseSchedule.interestPaidAt(i);
+                accumulatedInterestColumn[i] = baseSchedule.accumulatedInterestAt(i);
+            }
+        }
+
+        double[] extra = extraByPeriod(scenario, firstExtraPeriod, n);
+        double totalExtraPaid = 0;
+        int payoffPeriod = n;
+        for (int period = firstExtraPeriod; period <= n; period++)
+        {
+            double interestPaid = (base.r == 0) ? 0 : -fvBalance * base.interestFactor;
+            double principalPaid = base.pmt - interestPaid;
+            double extraPaid = base.paymentSign * extra[period];
+
+            // pay off once the regular and extra principal reach the final balance.
+            boolean paidOff = (balance + principalPaid + extraPaid - base.finalBalance) * base.direction <= LoanQueryService.PAYOFF_TOLERANCE || period == n;
+            if (paidOff)
+            {
+                double remaining = base.finalBalance - balance;
+                extraPaid = ((remaining - principalPaid) * base.direction < 0) ? remaining - principalPaid : 0;
+                principalPaid = remaining - extraPaid;
+            }
+
+            balance += principalPaid + extraPaid;
+            accumulatedInterest += interestPaid;
+            totalExtraPaid += Math.abs(extraPaid);
+            fvBalance = fvBalance * base.growth + (base.pmt + extraPaid) * base.paymentGrowth;
+            if (includeSchedule)
+            {
+                balanceColumn[period - 1] = balance;
+                principalColumn[period - 1] = principalPaid + extraPaid;
+                interestColumn[period - 1] = interestPaid;
+                accumulatedInterestColumn[period - 1] = accumulatedInterest;
+            }
+            if (paidOff)
+            {
+                payoffPeriod = period;
+                break;
+            }
+        }
+        if (firstExtraPeriod > n)
+        {
+            accumulatedInterest = baseSchedule.accumulatedInterestAt(n - 1);
+        }
+
+        AmortizationSchedule schedule = null;
+        if (includeSchedule)
+        {
+            int[] paymentDate = new int[payoffPeriod];
+            for (int i = 0; i < payoffPeriod; i++)
+            {
+                paymentDate[i] = baseSchedule.paymentDateAt(i);
+            }
+            schedule = new AmortizationSchedule(paymentDate, new AmortizationColumns(Arrays.copyOf(balanceColumn, payoffPeriod),
+                    Arrays.copyOf(principalColumn, payoffPeriod), Arrays.copyOf(interestColumn, payoffPeriod), Arrays.copyOf(accumulatedInterestColumn, payoffPeriod)));
+        }
+        double interestSaved = Math.abs(base.totalInterest) - Math.abs(accumulatedInterest);
+        return new ScenarioResult(scenario.getName(), payoffPeriod, LocalDate.ofEpochDay(baseSchedule.paymentDateAt(payoffPeriod - 1)),
+                accumulatedInterest, totalExtraPaid, n - payoffPeriod, interestSaved, schedule);
+    }
+
+    /**
+     * Extra principal of each period from the first extra payment through the last payment, indexed by payment number.
+     */
+    private static double[] extraByPeriod(PrepaymentScenario scenario, int firstExtraPeriod, int durationInMonths)
+    {
+        double[] extra = new double[durationInMonths + 1];
+        if (firstExtraPeriod > durationInMonths)
+        {
+            return extra;
+        }
+        for (ExtraPayment extraPayment : scenario.getExtraPayments())
+        {
+            int interval = extraPayment.getIntervalInMonths();
+            int endPeriod = (interval == 0) ? extraPayment.getStartPeriod()
+                    : (extraPayment.getEndPeriod() == 0) ? durationInMonths : Math.min(extraPayment.getEndPeriod(), durationInMonths);
+            // an interval longer than the loan is a single payment; bounding it keeps period from overflowing
+            int step = Math.min(Math.max(interval, 1), durationInMonths);
+            for (int period = extraPayment.getStartPeriod(); period <= endPeriod; period += step)
+            {
+                extra[period] += extraPayment.getAmount();
+            }
+        }
+        return extra;
+    }
+
+    /**
+     * A loan's regular schedule and the constants of its recurrence, shared by every scenario of one comparison.
+     */
+    static final class BaseSchedule
+    {
+        final AmortizationSchedule schedule;
+        final double initialBalance;
+        final int durationInMonths;
+        final int paymentType;
+        final double r;
+        final double pmt;
+        final double growth;
+        final double paymentGrowth;
+        final double interestFactor;
+        final double finalBalance;
+        final double totalInterest;
+
+        /** Sign of the payments, which extra payments share. */
+        final double paymentSign;
+
+        /** +1 if the balance falls towards its final value, -1 if it rises. */
+        final double direction;
+
+        private BaseSchedule(LoanParameters loan, AmortizationSchedule schedule, double r, double pmt)
+        {
+            this.schedule = schedule;
+            this.initialBalance = loan.getInitialBalance();
+            this.durationInMonths = loan.getDurationInMonths();
+            this.paymentType = loan.getPaymentType();
+            this.r = r;
+            this.pmt = pmt;
+
+            // payments at the beginning of a period accrue one period less interest, as in AmortizationCursor.
+            this.growth = 1 + r;
+            this.paymentGrowth = (paymentType == 1) ? growth : 1;
+            this.interestFactor = (paymentType == 1) ? r / growth : r;
+
+            this.finalBalance = schedule.balanceAt(durationInMonths - 1);
+            this.totalInterest = schedule.accumulatedInterestAt(durationInMonths - 1);
+            this.direction = Math.signum(initialBalance - finalBalance);
+            this.paymentSign = -direction;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package app.finance.core.service;
+
+import app.finance.core.model.RateSheet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
+import java.util.stream.IntStream;
+
+/**
+ * Builds rate sheets: the payment and total interest of one loan amount over a grid of rates and terms.
+ * <p/>
+ * Every cell of a row shares its rate, so each row evaluates one Math.pow and derives the compounding
+ * factor (1 + r)^N of every term from a small table of its squares, rather than one Math.pow per cell.
+ * Rows are independent and are computed in parallel on the common fork-join pool.  The shared
+ * {@link CompoundingFactorTable} is left alone, so a sheet of many rates neither evicts its rates nor
+ * contends for its lock.
+ */
+@Service
+public class RateSheetService
+{
+    static final int MAX_RATES = 1000;
+    static final int MAX_DURATIONS = 120;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    /**
+     * @param initialBalance    amount borrowed
+     * @param futureValue       balance remaining after the last payment
+     * @param paymentType       when payment is made: beginning of period is 1; end, 0
+     * @param minInterestRate   first yearly rate of the sheet, as a whole number percent
+     * @param maxInterestRate   last yearly rate of the sheet, included when a whole number of steps away
+     * @param interestRateStep  distance between consecutive rates
+     * @param durationsInMonths terms of the sheet's columns, in the order given
+     * @return RateSheet with one row per rate and one column per term
+     * @throws IllegalArgumentException if the grid is empty, too large, or the loan terms are invalid
+     */
+    public RateSheet calculate(double initialBalance, double futureValue, int paymentType, double minInterestRate, double maxInterestRate, double interestRateStep, int[] durationsInMonths)
+    {
+        if (Double.isNaN(initialBalance) || Double.isInfinite(initialBalance) || Double.isNaN(futureValue) || Double.isInfinite(futureValue))
+        {
+            throw new IllegalArgumentException("initialBalance and futureValue must be finite: " + initialBalance + "," + futureValue);
+        }
+        if (paymentType != 0 && paymentType != 1)
+        {
+            throw new IllegalArgumentException("paymentType must be 0 or 1: " + paymentType);
+        }
+        if (durationsInMonths.length == 0 || durationsInMonths.length > MAX_DURATIONS)
+        {
+            throw new IllegalArgumentException("between 1 and " + MAX_DURATIONS + " durations are required: " + durationsInMonths.length);
+        }
+        int gcd = 0;
+        for (int durationInMonths : durationsInMonths)
+        {
+            if (durationInMonths <= 0 || durationInMonths > AmortizationService.MAX_DURATION_IN_MONTHS)
+            {
+                throw new IllegalArgumentException("durationInMonths must be between 1 and " + AmortizationService.MAX_DURATION_IN_MONTHS + ": " + durationInMonths);
+            }
+            gcd = gcd(gcd, durationInMonths);
+        }
+        double[] interestRates = interestRates(minInterestRate, maxInterestRate, interestRateStep);
+
+        // every term is a multiple of the gcd, so only powers of (1 + r)^gcd are ever needed.
+        int step = gcd;
+        int maxMultiple = 0;
+        for (int durationInMonths : durationsInMonths)
+        {
+            maxMultiple = Math.max(maxMultiple, durationInMonths / step);
+        }
+        int squares = 32 - Integer.numberOfLeadingZeros(maxMultiple);
+
+        double[][] monthlyPayment = new double[interestRates.length][durationsInMonths.length];
+        double[][] totalInterest = new double[interestRates.length][durationsInMonths.length];
+        IntStream.range(0, interestRates.length).parallel().forEach(i ->
+        {
+            // as getMonthlyInterestRate, but without preparing the shared compounding factor table: a sheet's
+            // rates are one-off and would evict the quoted rates the table holds, and its powers come from below.
+            double r = interestRates[i] / 100 / 12;
+
+            // powers[k] = (1 + r)^(gcd * 2^k)
+            double[] powers = new double[squares];
+            powers[0] = Math.pow(1 + r, step);
+            for (int k = 1; k < squares; k++)
+            {
+                powers[k] = powers[k - 1] * powers[k - 1];
+            }
+
+            for (int j = 0; j < durationsInMonths.length; j++)
+            {
+                int durationInMonths = durationsInMonths[j];
+                double factor = 1;
+                for (int multiple = durationInMonths / step, k = 0; multiple != 0; multiple >>>= 1, k++)
+                {
+                    if ((multiple & 1) != 0)
+                    {
+                        factor *= powers[k];
+                    }
+                }
+                monthlyPayment[i][j] = paymentService.pmtForFactor(r, durationInMonths, factor, initialBalance, futureValue, paymentType);
+                totalInterest[i][j] = paymentService.cumipmtForFactor(r, durationInMonths, factor, initialBalance, futureValue, paymentType);
+            }
+        });
+        return new RateSheet(initialBalance, futureValue, paymentType, interestRates, durationsInMonths, monthlyPayment, totalInterest);
+    }
+
+    /**
+     * Rates from min to max in decimal steps, so e.g. 5.1 + 3 * 0.1 is 5.4 rather than 5.3999999999999995.
+     */
+    private static double[] interestRates(double minInterestRate, double maxInterestRate, double interestRateStep)
+    {
+        if (!(interestRateStep > 0) || !(minInterestRate >= 0) || !(maxInterestRate >= minInterestRate) || Double.isInfinite(maxInterestRate))
+        {
+            throw new IllegalArgumentException("rates must satisfy 0 <= min <= max and step > 0: " + minInterestRate + ".." + maxInterestRate + " by " + interestRateStep);
+        }
+        BigDecimal min = BigDecimal.valueOf(minInterestRate);
+        BigDecimal step = BigDecimal.valueOf(interestRateStep);
+        BigDecimal count = BigDecimal.valueOf(maxInterestRate).subtract(min).divideToIntegralValue(step);
+        if (count.compareTo(BigDecimal.valueOf(MAX_RATES)) >= 0)
+        {
+            throw new IllegalArgumentException("at most " + MAX_RATES + " rates are allowed: " + minInterestRate + ".." + maxInterestRate + " by " + interestRateStep);
+        }
+
+        double[] interestRates = new double[count.intValue() + 1];
+        for (int i = 0; i < interestRates.length; i++)
+        {
+            interestRates[i] = min.add(step.multiply(BigDecimal.valueOf(i))).doubleValue();
+        }
+        return interestRates;
+    }
+
+    private static int gcd(int a, int b)
+    {
+        while (b != 0)
+        {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,316 @@
+package app.finance.core.service;
+
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.Distribution;
+import app.finance.core.model.SimulationResult;
+import app.finance.core.model.SimulationTerms;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Monte Carlo simulation of an adjustable rate loan under random index paths and prepayment.
+ * <p/>
+ * Each path walks the loan's rate segments as {@link ArmService} does, in closed form: at every reset the
+ * index takes a random step, the rate is reset within the caps and the payment is re-derived with PMT.  Within a
+ * segment the month the loan prepays, if any, is drawn once from the geometric distribution of the segment's
+ * monthly prepayment probability, so a path costs one evaluation per segment rather than one per payment.
+ * <p/>
+ * Paths are split in halves across the service's own fork-join pool down to blocks of {@link #PATHS_PER_TASK},
+ * each with its own SplittableRandom split from its parent's, and write their results into primitive arrays.  The
+ * split depends only on the number of paths, so a seed repeats a simulation whatever the number of threads.
+ * The pool is separate from the common pool, which batch summaries and segmented schedules share, so a large
+ * simulation neither waits behind them nor holds up their segments; its <code>simulation.threads</code>
+ * workers are in addition to the calculation executor's.  A caller interrupted while it waits, as a timed out
+ * calculation is, stops the workers before their next path.
+ */
+@Service
+public class RateSimulationService
+{
+    /** Paths simulated by one task without splitting further. */
+    static final int PATHS_PER_TASK = 512;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    /**
+     * Most paths one simulation may run.
+     */
+    @Value("${simulation.maxPaths:200000}")
+    private int maxPaths;
+
+    /**
+     * Fork-join workers shared by all simulations; 0 for one per available processor.
+     */
+    @Value("${simulation.threads:0}")
+    private int threads;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void startPool()
+    {
+        if (threads < 0)
+        {
+            throw new IllegalArgumentException("simulation.threads must not be negative: " + threads);
+        }
+        int parallelism = (threads == 0) ? Runtime.getRuntime().availableProcessors() : threads;
+        pool = new ForkJoinPool(parallelism, forkJoinPool ->
+        {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("simulation-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    void shutdown()
+    {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Simulates the loan on the simulation pool.
+     * @param initialBalance loan initial balance
+     * @param durationInMonths loan duration in months
+     * @param paymentType loan payment type
+     * @param interestRate loan interest rate during the fixed period
+     * @param futureValue loan expected future value
+     * @param terms rate adjustment terms; indexRates are ignored in favor of simulated ones
+     * @param simulation index and prepayment assumptions
+     * @return SimulationResult with percentile summaries over every path
+     */
+    public SimulationResult simulate(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, ArmTerms terms, SimulationTerms simulation)
+    {
+        return simulate(initialBalance, durationInMonths, paymentType, interestRate, futureValue, terms, simulation, pool);
+    }
+
+    SimulationResult simulate(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, ArmTerms terms, SimulationTerms simulation, ForkJoinPool pool)
+    {
+        ArmService.checkTerms(durationInMonths, terms);
+        int paths = simulation.getPaths();
+        if (paths < 1 || paths > maxPaths)
+        {
+            throw new IllegalArgumentException("paths must be between 1 and " + maxPaths + ": " + paths);
+        }
+        if (!(simulation.getIndexVolatility() >= 0 && simulation.getMeanReversion() >= 0 && simulation.getRefinanceSensitivity() >= 0
+                && simulation.getCpr() >= 0 && simulation.getCpr() < 100))
+        {
+            throw new IllegalArgumentException("volatility, mean reversion and refinance sensitivity must not be negative, and cpr must be at least 0 and below 100: " + simulation);
+        }
+
+        long seed = (simulation.getSeed() == null) ? ThreadLocalRandom.current().nextLong() : simulation.getSeed();
+        LoanPaths loanPaths = new LoanPaths(initialBalance, durationInMonths, paymentType, interestRate, futureValue, terms, simulation, paths);
+        PathTask task = new PathTask(loanPaths, 0, paths, new SplittableRandom(seed));
+        pool.execute(task);
+        try
+        {
+            // unlike invoke, get answers the caller's interrupt, which a timed out simulation receives
+            task.get();
+        }
+        catch (InterruptedException e)
+        {
+            loanPaths.cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Simulation interrupted");
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error)
+            {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        int prepaid = 0;
+        for (boolean pathPrepaid : loanPaths.prepaid)
+        {
+            if (pathPrepaid)
+            {
+                prepaid++;
+            }
+        }
+        return new SimulationResult(paths, seed, Distribution.of(loanPaths.interestPaid), Distribution.of(loanPaths.payoffPeriod),
+                Distribution.of(loanPaths.maxInterestRate), (double) prepaid / paths);
+    }
+
+    /**
+     * One loan's terms and assumptions, and the results of its paths by path number.
+     */
+    private final class LoanPaths
+    {
+        final double initialBalance;
+        final int durationInMonths;
+        final int paymentType;
+        final double interestRate;
+        final double futureValue;
+        final ArmTerms terms;
+        final SimulationTerms simulation;
+        final double maxRate;
+        /** Set when the caller gives up on the simulation; paths not yet simulated are skipped. */
+        volatile boolean cancelled;
+
+        final double[] interestPaid;
+        final double[] payoffPeriod;
+        final double[] maxInterestRate;
+        final boolean[] prepaid;
+
+        LoanPaths(double initialBalance, int durationInMonths, int paymentType, double interestRate, double futureValue, ArmTerms terms, SimulationTerms simulation, int paths)
+        {
+            this.initialBalance = initialBalance;
+            this.durationInMonths = durationInMonths;
+            this.paymentType = paymentType;
+            this.interestRate = interestRate;
+            this.futureValue = futureValue;
+            this.terms = terms;
+            this.simulation = simulation;
+            this.maxRate = interestRate + terms.getLifetimeCap();
+            this.interestPaid = new double[paths];
+            this.payoffPeriod = new double[paths];
+            this.maxInterestRate = new double[paths];
+            this.prepaid = new boolean[paths];
+        }
+
+        /**
+         * Walks one path segment by segment, as {@link ArmService#segments} does for a given index path.
+         */
+        void simulate(int path, SplittableRandom random)
+        {
+            int n = durationInMonths;
+            double amortizedBalance = initialBalance;
+            double rate = interestRate;
+            double index = simulation.getInitialIndex();
+            double highestRate = rate;
+            double interest = 0;
+            int payoff = n;
+            int startPeriod = 1;
+            int endPeriod = Math.min(terms.getFixedPeriodInMonths(), n);
+            for (int reset = 0; ; reset++)
+            {
+                int remaining = n - startPeriod + 1;
+                int length = endPeriod - startPeriod + 1;
+                // as getMonthlyInterestRate, but simulated rates are rarely repeated, so their powers are computed
+                // here rather than filling and churning the shared compounding factor table.
+                double r = rate / 100 / 12;
+                double factor = Math.pow(1 + r, remaining);
+
+                // prepayment speeds up while refinancing at the fully indexed rate would lower the rate.
+                double cpr = Math.min(simulation.getCpr() + simulation.getRefinanceSensitivity() * Math.max(rate - index - terms.getMargin(), 0), 99.99);
+                int prepaidAfter = monthsToPrepayment(random, -Math.expm1(Math.log1p(-cpr / 100) / 12));
+                if (prepaidAfter <= length)
+                {
+                    interest += paymentService.cumipmtForFactor(r, remaining, factor, amortizedBalance, futureValue, paymentType, 1, prepaidAfter);
+                    payoff = startPeriod + prepaidAfter - 1;
+                    // a loan that prepays with its last payment pays off in the same month as one that does not
+                    prepaid[path] = true;
+                    break;
+                }
+                interest += paymentService.cumipmtForFactor(r, remaining, factor, amortizedBalance, futureValue, paymentType, 1, length);
+                if (endPeriod == n)
+                {
+                    break;
+                }
+
+                double pmt = paymentService.pmtForFactor(r, remaining, factor, amortizedBalance, futureValue, paymentType);
+                amortizedBalance = -paymentService.fvForFactor(r, length, Math.pow(1 + r, length), pmt, amortizedBalance, paymentType);
+
+                // mean reverting step of the index over the segment, then the reset within the caps.
+                double years = length / 12.0;
+                index += simulation.getMeanReversion() * (simulation.getLongRunIndex() - index) * years
+                        + simulation.getIndexVolatility() * Math.sqrt(years) * nextGaussian(random);
+                rate = ArmService.resetRate(terms, maxRate, rate, index, reset);
+                highestRate = Math.max(highestRate, rate);
+
+                startPeriod = endPeriod + 1;
+                endPeriod = Math.min(endPeriod + terms.getAdjustmentIntervalInMonths(), n);
+            }
+            interestPaid[path] = Math.abs(interest);
+            payoffPeriod[path] = payoff;
+            maxInterestRate[path] = highestRate;
+        }
+    }
+
+    /**
+     * Months until the loan prepays, counting the month it does, for a monthly prepayment probability.
+     * @return int at least 1; Integer.MAX_VALUE if the loan never prepays
+     */
+    static int monthsToPrepayment(SplittableRandom random, double monthlyProbability)
+    {
+        if (!(monthlyProbability > 0))
+        {
+            return Integer.MAX_VALUE;
+        }
+        double months = Math.floor(Math.log(1 - random.nextDouble()) / Math.log1p(-monthlyProbability));
+        return (months >= Integer.MAX_VALUE - 1) ? Integer.MAX_VALUE : 1 + (int) months;
+    }
+
+    /**
+     * Standard normal deviate by the polar method, as Random.nextGaussian but without keeping the second deviate.
+     */
+    static double nextGaussian(SplittableRandom random)
+    {
+        double v1;
+        double v2;
+        double s;
+        do
+        {
+            v1 = 2 * random.nextDouble() - 1;
+            v2 = 2 * random.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        }
+        while (s >= 1 || s == 0);
+        return v1 * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    private static final class PathTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final LoanPaths loanPaths;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        PathTask(LoanPaths loanPaths, int from, int to, SplittableRandom random)
+        {
+            this.loanPaths = loanPaths;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from <= PATHS_PER_TASK)
+            {
+                for (int path = from; path < to; path++)
+                {
+                    if (loanPaths.cancelled)
+                    {
+                        throw new CancellationException("Simulation interrupted before path " + path);
+                    }
+                    loanPaths.simulate(path, random);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PathTask(loanPaths, from, middle, random.split()), new PathTask(loanPaths, middle, to, random));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package app.finance.core.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timers per phase of a schedule request, i.e. data binding, calculation and rendering, a histogram of
+ * schedule lengths, and the counters of the schedule cache, compounding factor table and calculation
+ * executor, written out in the Prometheus text exposition format.
+ * <p/>
+ * Recording is a bucket search and two uncontended adds.  When <code>metrics.enabled</code> is false the
+ * interceptor is not registered and every record method returns at its first check.
+ */
+@Service
+public class RequestMetrics
+{
+    /**
+     * Request attribute carrying the calculation time of the current request, so the interceptor can tell
+     * binding from calculation within the handler.
+     */
+    public static final String CALCULATION_NANOS = RequestMetrics.class.getName() + ".calculationNanos";
+
+    static final double[] PHASE_BUCKET_SECONDS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5};
+    static final double[] SCHEDULE_LENGTH_BUCKETS = {12, 60, 120, 180, 240, 300, 360, 480, 600, 1200};
+
+    private final boolean enabled;
+    private final Histogram binding = new Histogram(PHASE_BUCKET_SECONDS, 1e9);
+    private final Histogram calculation = new Histogram(PHASE_BUCKET_SECONDS, 1e9);
+    private final Histogram rendering = new Histogram(PHASE_BUCKET_SECONDS, 1e9);
+    private final Histogram scheduleLength = new Histogram(SCHEDULE_LENGTH_BUCKETS, 1);
+
+    @Autowired
+    private ScheduleCache scheduleCache;
+
+    @Autowired
+    private CompoundingFactorTable compoundingFactorTable;
+
+    @Autowired
+    private CalculationExecutor calculationExecutor;
+
+    @Autowired
+    RequestMetrics(@Value("${metrics.enabled:true}") boolean enabled)
+    {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    /**
+     * @return long start time for {@link #recordCalculation}, or 0 when disabled
+     */
+    public long startTimer()
+    {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the calculation phase of a request begun at {@link #startTimer()}, and the length of the
+     * schedule it produced.
+     * @param request current request, which carries the time to the interceptor
+     * @param startNanos value of startTimer()
+     * @param paymentCount rows in the calculated schedule
+     */
+    public void recordCalculation(HttpServletRequest request, long startNanos, int paymentCount)
+    {
+        if (!enabled) return;
+
+        long nanos = System.nanoTime() - startNanos;
+        calculation.record(nanos);
+        scheduleLength.record(paymentCount);
+        request.setAttribute(CALCULATION_NANOS, nanos);
+    }
+
+    public void recordBinding(long nanos)
+    {
+        if (enabled) binding.record(nanos);
+    }
+
+    public void recordRendering(long nanos)
+    {
+        if (enabled) rendering.record(nanos);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format, version 0.0.4.
+     * @param out destination, left open
+     * @throws IOException if writing fails
+     */
+    public void writePrometheus(Writer out) throws IOException
+    {
+        out.write("# HELP mortgage_request_phase_seconds Time spent per phase of schedule requests.\n");
+        out.write("# TYPE mortgage_request_phase_seconds histogram\n");
+        binding.write(out, "mortgage_request_phase_seconds", "phase=\"binding\",");
+        calculation.write(out, "mortgage_request_phase_seconds", "phase=\"calculation\",");
+        rendering.write(out, "mortgage_request_phase_seconds", "phase=\"rendering\",");
+
+        out.write("# HELP mortgage_calculation_queue_seconds Time calculations waited for a calculation thread.\n");
+        out.write("# TYPE mortgage_calculation_queue_seconds histogram\n");
+        calculationExecutor.getQueueWait().write(out, "mortgage_calculation_queue_seconds", "");
+
+        out.write("# HELP mortgage_schedule_payments Payments per calculated schedule.\n");
+        out.write("# TYPE mortgage_schedule_payments histogram\n");
+        scheduleLength.write(out, "mortgage_schedule_payments", "");
+
+        writeCounter(out, "mortgage_schedule_cache_hits_total", "Schedule cache lookups answered from the cache.", scheduleCache.getHitCount());
+        writeCounter(out, "mortgage_schedule_cache_misses_total", "Schedule cache lookups that calculated columns.", scheduleCache.getMissCount());
+        writeCounter(out, "mortgage_schedule_cache_evictions_total", "Columns evicted from the schedule cache.", scheduleCache.getEvictionCount());
+        writeGauge(out, "mortgage_schedule_cache_entries", "Columns held by the schedule cache.", scheduleCache.size());
+        writeGauge(out, "mortgage_schedule_cache_bytes", "Estimated heap held by the schedule cache.", scheduleCache.getWeight());
+
+        writeCounter(out, "mortgage_compounding_factor_hits_total", "Rate lookups answered from the compounding factor table.", compoundingFactorTable.getHitCount());
+        writeCounter(out, "mortgage_compounding_factor_misses_total", "Rate lookups that added a rate to the compounding factor table.", compoundingFactorTable.getMissCount());
+        writeCounter(out, "mortgage_compounding_factor_evictions_total", "Rates evicted from the compounding factor table.", compoundingFactorTable.getEvictionCount());
+        writeGauge(out, "mortgage_compounding_factor_rates", "Rates held by the compounding factor table.", compoundingFactorTable.size());
+        writeGauge(out, "mortgage_compounding_factor_bytes", "Heap reserved by the compounding factor table.", compoundingFactorTable.getWeight());
+
+        writeCounter(out, "mortgage_calculation_submitted_total", "Calculations accepted by the calculation executor.", calculationExecutor.getSubmittedCount());
+        writeCounter(out, "mortgage_calculation_rejected_total", "Calculations refused because the calculation queue was full.", calculationExecutor.getRejectedCount());
+        writeCounter(out, "mortgage_calculation_timeouts_total", "Calculations abandoned after the request timed out.", calculationExecutor.getTimeoutCount());
+        writeGauge(out, "mortgage_calculation_active", "Calculations running.", calculationExecutor.getActiveCount());
+        writeGauge(out, "mortgage_calculation_queued", "Calculations waiting for a calculation thread.", calculationExecutor.getQueuedCount());
+        writeGauge(out, "mortgage_calculation_threads", "Calculation threads.", calculationExecutor.getPoolSize());
+    }
+
+    private static void writeCounter(Writer out, String name, String help, long value) throws IOException
+    {
+        out.write("# HELP " + name + " " + help + "\n# TYPE " + name + " counter\n" + name + " " + value + "\n");
+    }
+
+    private static void writeGauge(Writer out, String name, String help, long value) throws IOException
+    {
+        out.write("# HELP " + name + " " + help + "\n# TYPE " + name + " gauge\n" + name + " " + value + "\n");
+    }
+
+    /**
+     * Fixed bucket histogram.  Each observation adds to one bucket; buckets are made cumulative when written.
+     */
+    static final class Histogram
+    {
+        private final double[] bounds;
+        private final long[] rawBounds;
+        private final double unitsPerValue;
+        private final LongAdder[] counts;
+        private final LongAdder sum = new LongAdder();
+
+        /**
+         * @param bounds        upper bounds of the buckets as written, ascending; +Inf is implied
+         * @param unitsPerValue recorded units per written unit, e.g. 1e9 nanoseconds per second
+         */
+        Histogram(double[] bounds, double unitsPerValue)
+        {
+            this.bounds = bounds;
+            this.unitsPerValue = unitsPerValue;
+            this.rawBounds = new long[bounds.length];
+            this.counts = new LongAdder[bounds.length + 1];
+            for (int i = 0; i < bounds.length; i++)
+            {
+                rawBounds[i] = (long) (bounds[i] * unitsPerValue);
+            }
+            for (int i = 0; i < counts.length; i++)
+            {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        void record(long value)
+        {
+            int bucket = 0;
+            while (bucket < rawBounds.length && value > rawBounds[bucket])
+            {
+                bucket++;
+            }
+            counts[bucket].increment();
+            sum.add(value);
+        }
+
+        void write(Writer out, String name, String labels) throws IOException
+        {
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                cumulative += counts[i].sum();
+                String le = (i < bounds.length) ? Double.toString(bounds[i]) : "+Inf";
+                out.write(name + "_bucket{" + labels + "le=\"" + le + "\"} " + cumulative + "\n");
+            }
+            String braces = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+            out.write(name + "_sum" + braces + " " + (sum.sum() / unitsPerValue) + "\n");
+            out.write(name + "_count" + braces + " " + cumulative + "\n");
+        }
+    }
+}
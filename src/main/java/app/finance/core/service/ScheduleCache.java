@@ -0,0 +1,93 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationColumns;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caches the numeric columns of calculated schedules for repeated loan terms.  The columns do not
+ * depend on the start date, and scale linearly with the initial balance, so entries are calculated for
+ * a balance of 1.0 and shared by every loan with the same rate, term, payment type and ratio of future
+ * value to initial balance.  Columns are immutable, so one cached instance is shared across requests.
+ */
+@Service
+public class ScheduleCache
+{
+    /**
+     * Stands in for the columns of terms whose unit-balance columns do not scale within tolerance, so they
+     * are calculated for each loan; compared by identity.
+     */
+    public static final AmortizationColumns UNSHARED = new AmortizationColumns(new double[0], new double[0], new double[0], new double[0]);
+
+    private final LruCache<Key, AmortizationColumns> cache;
+
+    @Autowired
+    ScheduleCache(@Value("${schedule.cache.maxEntries:1000}") int maxEntries,
+                  @Value("${schedule.cache.maxBytes:33554432}") long maxBytes)
+    {
+        cache = new LruCache<Key, AmortizationColumns>(maxEntries, maxBytes, AmortizationColumns::estimatedSizeInBytes);
+    }
+
+    public AmortizationColumns get(Key key) { return cache.get(key); }
+    public void put(Key key, AmortizationColumns columns) { cache.put(key, columns); }
+    public void clear() { cache.clear(); }
+
+    public int size() { return cache.size(); }
+    public long getWeight() { return cache.getWeight(); }
+    public long getHitCount() { return cache.getHitCount(); }
+    public long getMissCount() { return cache.getMissCount(); }
+    public long getEvictionCount() { return cache.getEvictionCount(); }
+
+    /**
+     * Every input that determines the numeric columns of a unit-balance schedule.
+     */
+    public static final class Key
+    {
+        private final double interestRate;
+        private final int durationInMonths;
+        private final double futureValueRatio;
+        private final int paymentType;
+        private final AmortizationEngine engine;
+
+        public Key(double interestRate, int durationInMonths, double futureValueRatio, int paymentType, AmortizationEngine engine)
+        {
+            this.interestRate = interestRate;
+            this.durationInMonths = durationInMonths;
+            this.futureValueRatio = futureValueRatio;
+            this.paymentType = paymentType;
+            this.engine = engine;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Double.compare(key.interestRate, interestRate) == 0
+                    && durationInMonths == key.durationInMonths
+                    && Double.compare(key.futureValueRatio, futureValueRatio) == 0
+                    && paymentType == key.paymentType
+                    && engine == key.engine;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = Double.hashCode(interestRate);
+            result = 31 * result + durationInMonths;
+            result = 31 * result + Double.hashCode(futureValueRatio);
+            result = 31 * result + paymentType;
+            result = 31 * result + (engine == null ? 0 : engine.hashCode());
+            return result;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "[" + interestRate + "," + durationInMonths + "," + futureValueRatio + "," + paymentType + "," + engine + "]";
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.LoanSummary;
+import app.finance.core.model.ScheduleFormat;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+/**
+ * Writes schedules row by row as they are computed, so memory use does not grow with the term,
+ * and batch results loan by loan.
+ */
+@Service
+public class ScheduleExportService
+{
+    /** Rows written before the first flush, so clients see output before long schedules finish. */
+    static final int FIRST_FLUSH_ROWS = 12;
+
+    private static final String[] COLUMNS = {"paymentNumber", "paymentDate", "balance", "principalPaid", "interestPaid", "accumulatedInterest"};
+    private static final String[] SUMMARY_COLUMNS = {"id", "monthlyPayment", "totalPrincipal", "totalInterest", "finalBalance", "error"};
+
+    /**
+     * Writes every remaining row of a cursor.
+     * @param cursor cursor opened with a start date, positioned before the first row to write
+     * @param format output format
+     * @param out destination, flushed after the first rows and at the end
+     * @throws IOException if writing fails, e.g. because the client went away
+     */
+    public void write(AmortizationCursor cursor, ScheduleFormat format, Writer out) throws IOException
+    {
+        if (format == ScheduleFormat.CSV)
+        {
+            writeCsvHeader(out);
+        }
+        else if (format == ScheduleFormat.JSON)
+        {
+            out.write('[');
+        }
+
+        int rows = 0;
+        while (cursor.next())
+        {
+            if (format == ScheduleFormat.CSV)
+            {
+                writeCsvRow(cursor.getPaymentNumber(), cursor.getPaymentDate(), cursor.getBalance(), cursor.getPrincipalPaid(), cursor.getInterestPaid(), cursor.getAccumulatedInterest(), out);
+            }
+            else
+            {
+                if (format == ScheduleFormat.JSON && rows > 0)
+                {
+                    out.write(',');
+                }
+                writeJsonRow(cursor.getPaymentNumber(), cursor.getPaymentDate(), cursor.getBalance(), cursor.getPrincipalPaid(), cursor.getInterestPaid(), cursor.getAccumulatedInterest(), out);
+                if (format == ScheduleFormat.NDJSON)
+                {
+                    out.write('\n');
+                }
+            }
+            if (++rows == FIRST_FLUSH_ROWS)
+            {
+                out.flush();
+            }
+        }
+
+        if (format == ScheduleFormat.JSON)
+        {
+            out.write(']');
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes the opening of a batch result: the CSV header or the start of the JSON array.
+     * Schedules are only written in the JSON formats.
+     * @param format output format
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public void writeSummaryHeader(ScheduleFormat format, Writer out) throws IOException
+    {
+        if (format == ScheduleFormat.CSV)
+        {
+            writeCsvLine(SUMMARY_COLUMNS, out);
+        }
+        else if (format == ScheduleFormat.JSON)
+        {
+            out.write('[');
+        }
+    }
+
+    /**
+     * Writes one loan of a batch result, including its schedule if it has one.
+     * @param summary loan summary
+     * @param format output format
+     * @param index position of the loan in the batch result, from 0
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public void writeSummary(LoanSummary summary, ScheduleFormat format, int index, Writer out) throws IOException
+    {
+        if (format == ScheduleFormat.CSV)
+        {
+            writeCsvString(summary.getId(), out);
+            out.write(',');
+            writeCsvNumber(summary.getMonthlyPayment(), out);
+            out.write(',');
+            writeCsvNumber(summary.getTotalPrincipal(), out);
+            out.write(',');
+            writeCsvNumber(summary.getTotalInterest(), out);
+            out.write(',');
+            writeCsvNumber(summary.getFinalBalance(), out);
+            out.write(',');
+            writeCsvString(summary.getError(), out);
+            out.write("\r\n");
+            return;
+        }
+
+        if (format == ScheduleFormat.JSON && index > 0)
+        {
+            out.write(',');
+        }
+        out.write("{\"id\":");
+        writeJsonString(summary.getId(), out);
+        out.write(",\"monthlyPayment\":");
+        writeJsonNumber(summary.getMonthlyPayment(), out);
+        out.write(",\"totalPrincipal\":");
+        writeJsonNumber(summary.getTotalPrincipal(), out);
+        out.write(",\"totalInterest\":");
+        writeJsonNumber(summary.getTotalInterest(), out);
+        out.write(",\"finalBalance\":");
+        writeJsonNumber(summary.getFinalBalance(), out);
+        if (summary.getError() != null)
+        {
+            out.write(",\"error\":");
+            writeJsonString(summary.getError(), out);
+        }
+        AmortizationSchedule schedule = summary.getSchedule();
+        if (schedule != null)
+        {
+            out.write(",\"payments\":[");
+            for (int i = 0; i < schedule.size(); i++)
+            {
+                if (i > 0)
+                {
+                    out.write(',');
+                }
+                writeJsonRow(schedule.paymentNumberAt(i), schedule.paymentDateAt(i), schedule.balanceAt(i), schedule.principalPaidAt(i), schedule.interestPaidAt(i), schedule.accumulatedInterestAt(i), out);
+            }
+            out.write(']');
+        }
+        out.write('}');
+        if (format == ScheduleFormat.NDJSON)
+        {
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Writes the end of a batch result and flushes.
+     * @param format output format
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public void writeSummaryFooter(ScheduleFormat format, Writer out) throws IOException
+    {
+        if (format == ScheduleFormat.JSON)
+        {
+            out.write(']');
+        }
+        out.flush();
+    }
+
+    private void writeCsvHeader(Writer out) throws IOException
+    {
+        writeCsvLine(COLUMNS, out);
+    }
+
+    private void writeCsvLine(String[] values, Writer out) throws IOException
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0)
+            {
+                out.write(',');
+            }
+            out.write(values[i]);
+        }
+        out.write("\r\n");
+    }
+
+    private void writeCsvRow(int paymentNumber, int paymentDate, double balance, double principalPaid, double interestPaid, double accumulatedInterest, Writer out) throws IOException
+    {
+        out.write(Integer.toString(paymentNumber));
+        out.write(',');
+        out.write(LocalDate.ofEpochDay(paymentDate).toString());
+        out.write(',');
+        writeCsvNumber(balance, out);
+        out.write(',');
+        writeCsvNumber(principalPaid, out);
+        out.write(',');
+        writeCsvNumber(interestPaid, out);
+        out.write(',');
+        writeCsvNumber(accumulatedInterest, out);
+        out.write("\r\n");
+    }
+
+    private void writeJsonRow(int paymentNumber, int paymentDate, double balance, double principalPaid, double interestPaid, double accumulatedInterest, Writer out) throws IOException
+    {
+        out.write("{\"paymentNumber\":");
+        out.write(Integer.toString(paymentNumber));
+        out.write(",\"paymentDate\":\"");
+        out.write(LocalDate.ofEpochDay(paymentDate).toString());
+        out.write("\",\"balance\":");
+        writeJsonNumber(balance, out);
+        out.write(",\"principalPaid\":");
+        writeJsonNumber(principalPaid, out);
+        out.write(",\"interestPaid\":");
+        writeJsonNumber(interestPaid, out);
+        out.write(",\"accumulatedInterest\":");
+        writeJsonNumber(accumulatedInterest, out);
+        out.write('}');
+    }
+
+    /** Writes a JSON string literal, or null. */
+    private void writeJsonString(String value, Writer out) throws IOException
+    {
+        if (value == null)
+        {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\')
+            {
+                out.write('\\');
+                out.write(c);
+            }
+            else if (c < 0x20)
+            {
+                out.write(String.format("\\u%04x", (int) c));
+            }
+            else
+            {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    /** Writes a CSV field, quoted when it contains separators or quotes; null is left empty. */
+    private void writeCsvString(String value, Writer out) throws IOException
+    {
+        if (value == null)
+        {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0)
+        {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    /** JSON has no NaN or Infinity, e.g. from a zero duration; those are written as null. */
+    private void writeJsonNumber(double value, Writer out) throws IOException
+    {
+        out.write(Double.isNaN(value) || Double.isInfinite(value) ? "null" : Double.toString(value));
+    }
+
+    /** Non-finite values are left empty. */
+    private void writeCsvNumber(double value, Writer out) throws IOException
+    {
+        if (!(Double.isNaN(value) || Double.isInfinite(value)))
+        {
+            out.write(Double.toString(value));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package app.finance.core.view;
+
+import org.thymeleaf.dialect.AbstractDialect;
+import org.thymeleaf.processor.IProcessor;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Adds the <code>schedule:</code> attributes to templates, see {@link ScheduleRowsAttrProcessor}.
+ */
+public class ScheduleDialect extends AbstractDialect
+{
+    public static final String PREFIX = "schedule";
+
+    @Override
+    public String getPrefix()
+    {
+        return PREFIX;
+    }
+
+    @Override
+    public Set<IProcessor> getProcessors()
+    {
+        return Collections.<IProcessor>singleton(new ScheduleRowsAttrProcessor());
+    }
+}
@@ -0,0 +1,96 @@
+package app.finance.core.view;
+
+import app.finance.core.model.AmortizationSchedule;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.FieldPosition;
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Writes the rows of an amortization schedule as HTML table rows in one pass, with the same text and
+ * classes the schedule template used to produce through six formatting expressions per row.
+ * <p/>
+ * Each thread has its own writer, whose number formats are created once and reused, since DecimalFormat
+ * is not thread safe and is costly to create per value.
+ */
+public final class ScheduleRowWriter
+{
+    private static final ThreadLocal<ScheduleRowWriter> WRITERS = ThreadLocal.withInitial(ScheduleRowWriter::new);
+
+    private final DecimalFormat amountFormat;
+    private final DecimalFormat integerFormat;
+    private final FieldPosition fieldPosition = new FieldPosition(0);
+
+    private ScheduleRowWriter()
+    {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.US);
+        symbols.setGroupingSeparator(',');
+        symbols.setDecimalSeparator('.');
+
+        // i.e., #numbers.formatDecimal(value, 0, 'COMMA', 2, 'POINT')
+        amountFormat = new DecimalFormat("", symbols);
+        amountFormat.setMinimumIntegerDigits(0);
+        amountFormat.setGroupingUsed(true);
+        amountFormat.setGroupingSize(3);
+        amountFormat.setMinimumFractionDigits(2);
+        amountFormat.setMaximumFractionDigits(2);
+        amountFormat.setDecimalSeparatorAlwaysShown(true);
+
+        // i.e., #numbers.formatInteger(value, 0)
+        integerFormat = new DecimalFormat("", symbols);
+        integerFormat.setMinimumIntegerDigits(0);
+        integerFormat.setGroupingUsed(false);
+        integerFormat.setMaximumFractionDigits(0);
+    }
+
+    /**
+     * Appends one <code>tr</code> per payment, every even payment classed 'odd' as the second row of
+     * a whole schedule is, so pages stripe alike, using the calling thread's formats.
+     * @param schedule payments to write
+     * @param out destination
+     */
+    public static void writeRows(AmortizationSchedule schedule, StringBuffer out)
+    {
+        WRITERS.get().write(schedule, out);
+    }
+
+    private void write(AmortizationSchedule schedule, StringBuffer out)
+    {
+        for (int i = 0; i < schedule.size(); i++)
+        {
+            int paymentNumber = schedule.paymentNumberAt(i);
+            out.append((paymentNumber % 2 == 0) ? "<tr class=\"odd\">" : "<tr>");
+
+            out.append("<td class=\"paymentNumber\">");
+            integerFormat.format(paymentNumber, out, fieldPosition);
+            out.append("</td><td class=\"paymentDate\">");
+            appendDate(LocalDate.ofEpochDay(schedule.paymentDateAt(i)), out);
+            out.append("</td><td class=\"balance\">");
+            amountFormat.format(schedule.balanceAt(i), out, fieldPosition);
+            out.append("</td><td class=\"principalPaid\">");
+            amountFormat.format(schedule.principalPaidAt(i), out, fieldPosition);
+            out.append("</td><td class=\"interestPaid\">");
+            amountFormat.format(schedule.interestPaidAt(i), out, fieldPosition);
+            out.append("</td><td class=\"accumulatedInterest\">");
+            amountFormat.format(schedule.accumulatedInterestAt(i), out, fieldPosition);
+            out.append("</td></tr>\n");
+        }
+    }
+
+    /**
+     * i.e., #temporals.format(date, 'MM/dd/yyyy')
+     */
+    private static void appendDate(LocalDate date, StringBuffer out)
+    {
+        int month = date.getMonthValue();
+        int day = date.getDayOfMonth();
+        int year = date.getYear();
+        if (month < 10) out.append('0');
+        out.append(month).append('/');
+        if (day < 10) out.append('0');
+        out.append(day).append('/');
+        if (year >= 0 && year < 1000) out.append(year < 10 ? "000" : year < 100 ? "00" : "0");
+        out.append(year);
+    }
+}
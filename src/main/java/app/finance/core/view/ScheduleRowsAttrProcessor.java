@@ -0,0 +1,56 @@
+package app.finance.core.view;
+
+import app.finance.core.model.AmortizationSchedule;
+import org.thymeleaf.Arguments;
+import org.thymeleaf.Configuration;
+import org.thymeleaf.dom.Element;
+import org.thymeleaf.dom.Macro;
+import org.thymeleaf.dom.Node;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.processor.attr.AbstractChildrenModifierAttrProcessor;
+import org.thymeleaf.standard.expression.IStandardExpression;
+import org.thymeleaf.standard.expression.StandardExpressions;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <code>schedule:rows="${...}"</code> replaces the children of its element, e.g. a <code>tbody</code>, with the
+ * rows of the AmortizationSchedule the expression evaluates to.  The rows are written as one pre-rendered
+ * node by {@link ScheduleRowWriter}, so the template engine neither builds nor evaluates anything per row.
+ */
+public class ScheduleRowsAttrProcessor extends AbstractChildrenModifierAttrProcessor
+{
+    public static final String ATTR_NAME = "rows";
+
+    public ScheduleRowsAttrProcessor()
+    {
+        super(ATTR_NAME);
+    }
+
+    @Override
+    public int getPrecedence()
+    {
+        return 1000;
+    }
+
+    @Override
+    protected List<Node> getModifiedChildren(Arguments arguments, Element element, String attributeName)
+    {
+        Configuration configuration = arguments.getConfiguration();
+        IStandardExpression expression = StandardExpressions.getExpressionParser(configuration)
+                .parseExpression(configuration, arguments, element.getAttributeValue(attributeName));
+        Object schedule = expression.execute(configuration, arguments);
+        if (schedule == null)
+        {
+            return Collections.emptyList();
+        }
+        if (!(schedule instanceof AmortizationSchedule))
+        {
+            throw new TemplateProcessingException(attributeName + " must evaluate to an AmortizationSchedule: " + schedule.getClass().getName());
+        }
+
+        StringBuffer rows = new StringBuffer(((AmortizationSchedule) schedule).size() * 320);
+        ScheduleRowWriter.writeRows((AmortizationSchedule) schedule, rows);
+        return Collections.<Node>singletonList(new Macro(rows.toString()));
+    }
+}
@@ -0,0 +1,46 @@
+package app.finance.config;
+
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.stereotype.Component;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BeanGraphConfigTest {
+
+    /**
+     * The Boot application finds its controllers and services by a component scan; the explicit list must
+     * name the same classes, or a context built from it misses whatever was added since.
+     */
+    @Test
+    public void listsEveryComponent() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Component.class));
+        // configurations are imported rather than listed
+        scanner.addExcludeFilter(new AnnotationTypeFilter(Configuration.class));
+        Set<String> components = new TreeSet<String>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents("app.finance")) {
+            components.add(candidate.getBeanClassName());
+        }
+
+        Set<String> listed = new TreeSet<String>();
+        for (Class<?> imported : BeanGraphConfig.class.getAnnotation(Import.class).value()) {
+            if (!imported.isAnnotationPresent(Configuration.class)) {
+                listed.add(imported.getName());
+            }
+        }
+        assertTrue(components.toString(), components.size() > 0);
+        assertEquals(components, listed);
+
+        for (Class<?> lazyBean : BeanGraphConfig.LAZY_BEANS) {
+            assertTrue(lazyBean.getName(), listed.contains(lazyBean.getName()));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package app.finance.config;
+
+import org.junit.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import static org.junit.Assert.assertTrue;
+
+public class StartupReportTest {
+
+    @Test
+    public void reportWithoutTimedBeansEndsWholly() {
+        StartupReport startupReport = new StartupReport();
+        startupReport.setBeanFactory(new DefaultListableBeanFactory());
+        String report = startupReport.report();
+        assertTrue(report, report.endsWith(" 0 beans; 0 lazy beans deferred until first use."));
+    }
+
+    @Test
+    public void reportListsTimedBeansWithoutTrailingComma() {
+        StartupReport startupReport = new StartupReport();
+        startupReport.setBeanFactory(new DefaultListableBeanFactory());
+        startupReport.postProcessBeforeInstantiation(Object.class, "app.finance.core.service.PaymentService");
+        startupReport.postProcessAfterInitialization(new Object(), "app.finance.core.service.PaymentService");
+        String report = startupReport.report();
+        assertTrue(report, report.contains("first use.  Slowest: PaymentService "));
+        assertTrue(report, report.endsWith(" ms"));
+    }
+}
@@ -0,0 +1,316 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import org.junit.Test;
+import java.util.concurrent.CancellationException;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AmortizationCursorTest
+{
+    private static final double CENT = 0.01;
+
+    /** A cent or half a cent, plus the error of the doubles being compared. */
+    private static final double ONE_CENT = CENT + 1e-9;
+    private static final double HALF_CENT = CENT / 2 + 1e-9;
+
+    private static final int[] DURATIONS = {1, 12, 360, 480};
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final double[] INTEREST_RATES = {0, 4.25, 7.125, 18};
+
+    private final PaymentService paymentService = new PaymentService();
+
+    @Test
+    public void toCentsRoundsShortestDecimalHalfUp()
+    {
+        assertEquals(101, AmortizationCursor.toCents(1.005));
+        assertEquals(-101, AmortizationCursor.toCents(-1.005));
+        assertEquals(100, AmortizationCursor.toCents(1.0049999));
+        assertEquals(0, AmortizationCursor.toCents(0.004));
+        assertEquals(30000000, AmortizationCursor.toCents(300000));
+        assertEquals(147582, AmortizationCursor.toCents(1475.815));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toCentsRejectsInfinity()
+    {
+        AmortizationCursor.toCents(Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void toCentsAndToRateUnitsRejectValuesOutOfRange()
+    {
+        assertEquals(100000000000000000L, AmortizationCursor.toCents(AmortizationCursor.MAX_EXACT_CENTS_AMOUNT));
+        assertEquals(-100000000000000000L, AmortizationCursor.toCents(-AmortizationCursor.MAX_EXACT_CENTS_AMOUNT));
+        assertEquals(100000000000L, AmortizationCursor.toRateUnits(AmortizationCursor.MAX_EXACT_CENTS_RATE));
+        for (double amount : new double[] {Math.nextUp(AmortizationCursor.MAX_EXACT_CENTS_AMOUNT), -2e15, Long.MAX_VALUE, Double.NaN})
+        {
+            try
+            {
+                AmortizationCursor.toCents(amount);
+                fail("amount " + amount + " accepted");
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+        for (double interestRate : new double[] {Math.nextUp(AmortizationCursor.MAX_EXACT_CENTS_RATE), -1200, 1e14, Double.NaN})
+        {
+            try
+            {
+                AmortizationCursor.toRateUnits(interestRate);
+                fail("interestRate " + interestRate + " accepted");
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+    }
+
+    /**
+     * At 4.25%, 425000 rate units, the balance times the rate units stays within a quarter of a long up to about
+     * 54 billion, so 50 billion steps through every row and 60 billion is rejected when the cursor is opened,
+     * as is a future value that large or a rate that makes 300,000 that large.
+     */
+    @Test
+    public void exactCentsLoansTooLargeForLongsAreRejectedWhenOpened()
+    {
+        double r = paymentService.getMonthlyInterestRate(4.25);
+        for (int paymentType : PAYMENT_TYPES)
+        {
+            AmortizationCursor cursor = new AmortizationCursor(paymentService, null, 5e10, 360, paymentType, 4.25, 0, AmortizationEngine.EXACT_CENTS);
+            while (cursor.next())
+            {
+            }
+            double expected = 5e10 + paymentService.cumprinc(r, 360, 5e10, 0, paymentType, 1, 360);
+            assertEquals(String.valueOf(paymentType), AmortizationCursor.toCents(expected) / 100.0, cursor.getBalance(), 0);
+        }
+
+        double[][] loans = {{6e10, 0, 4.25}, {300000, -6e10, 4.25}, {300000, 0, 1e6}, {1e16, 0, 4.25}, {300000, 0, -1200}};
+        for (double[] loan : loans)
+        {
+            try
+            {
+                new AmortizationCursor(paymentService, null, loan[0], 360, 0, loan[2], loan[1], AmortizationEngine.EXACT_CENTS);
+                fail(loan[0] + "," + loan[1] + "," + loan[2] + " accepted");
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+    }
+
+    @Test
+    public void divideHalfUpRoundsHalfAwayFromZero()
+    {
+        assertEquals(1, AmortizationCursor.divideHalfUp(5, 10));
+        assertEquals(0, AmortizationCursor.divideHalfUp(4, 10));
+        assertEquals(2, AmortizationCursor.divideHalfUp(15, 10));
+        assertEquals(-1, AmortizationCursor.divideHalfUp(-5, 10));
+        assertEquals(0, AmortizationCursor.divideHalfUp(-4, 10));
+        assertEquals(-2, AmortizationCursor.divideHalfUp(-15, 10));
+        assertEquals(-1, AmortizationCursor.divideHalfUp(-14, 10));
+        assertEquals(2, AmortizationCursor.divideHalfUp(7, 3));
+        assertEquals(-3, AmortizationCursor.divideHalfUp(-8, 3));
+        assertEquals(0, AmortizationCursor.divideHalfUp(0, 7));
+    }
+
+    /**
+     * Rows agree with the closed form to the cent at quoted rates.  The half cent the payment is rounded by
+     * compounds with the rate, so at high rates over long terms the balances part further; see
+     * {@link #exactCentsInterestIsThePeriodRateOnTheBalanceRoundedToTheCent()} for what holds at any rate.
+     */
+    @Test
+    public void exactCentsRowsMatchClosedFormToTheCent()
+    {
+        for (int durationInMonths : DURATIONS)
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (double interestRate : new double[] {0, 4.25})
+                {
+                    String loan = durationInMonths + "," + paymentType + "," + interestRate;
+                    AmortizationCursor closedForm = open(durationInMonths, paymentType, interestRate, 0, AmortizationEngine.CLOSED_FORM);
+                    AmortizationCursor exactCents = open(durationInMonths, paymentType, interestRate, 0, AmortizationEngine.EXACT_CENTS);
+                    assertEquals(loan + " payment", AmortizationCursor.toCents(closedForm.getMonthlyPayment()) / 100.0, exactCents.getMonthlyPayment(), 0);
+                    while (closedForm.next())
+                    {
+                        assertTrue(exactCents.next());
+                        String row = loan + " row " + exactCents.getPaymentNumber();
+                        assertEquals(row + " interest", closedForm.getInterestPaid(), exactCents.getInterestPaid(), ONE_CENT);
+                        if (exactCents.getPaymentNumber() < durationInMonths)
+                        {
+                            assertEquals(row + " principal", closedForm.getPrincipalPaid(), exactCents.getPrincipalPaid(), ONE_CENT);
+                        }
+                    }
+                    assertFalse(exactCents.next());
+                }
+            }
+        }
+    }
+
+    /**
+     * Every row charges the period rate on the balance before it, less pv * r / (1 + r) for payments at the
+     * beginning of a period as the closed form does, rounded half up to the cent; every payment but the last
+     * is the rounded payment.
+     */
+    @Test
+    public void exactCentsInterestIsThePeriodRateOnTheBalanceRoundedToTheCent()
+    {
+        for (int durationInMonths : DURATIONS)
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (double interestRate : INTEREST_RATES)
+                {
+                    String loan = durationInMonths + "," + paymentType + "," + interestRate;
+                    double r = paymentService.getMonthlyInterestRate(interestRate);
+                    double interestBaseOffset = (paymentType == 1) ? 300000 * r / (1 + r) : 0;
+                    AmortizationCursor exactCents = open(durationInMonths, paymentType, interestRate, 0, AmortizationEngine.EXACT_CENTS);
+                    double balance = 300000;
+                    while (exactCents.next())
+                    {
+                        String row = loan + " row " + exactCents.getPaymentNumber();
+                        assertWholeCents(row + " balance", exactCents.getBalance());
+                        assertWholeCents(row + " principal", exactCents.getPrincipalPaid());
+                        assertWholeCents(row + " interest", exactCents.getInterestPaid());
+                        assertEquals(row + " interest", -(balance - interestBaseOffset) * r, exactCents.getInterestPaid(), HALF_CENT);
+                        if (exactCents.getPaymentNumber() < durationInMonths)
+                        {
+                            assertEquals(row + " payment", exactCents.getMonthlyPayment(), exactCents.getPrincipalPaid() + exactCents.getInterestPaid(), 1e-9);
+                        }
+                        assertEquals(row + " balance", balance + exactCents.getPrincipalPaid(), exactCents.getBalance(), 1e-9);
+                        balance = exactCents.getBalance();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The last payment repays what is left, so the schedule ends where pv + CUMPRINC(1..N) does, to the cent.
+     */
+    @Test
+    public void lastBalanceMatchesClosedFormToTheCent()
+    {
+        for (int durationInMonths : DURATIONS)
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (double interestRate : INTEREST_RATES)
+                {
+                    for (double futureValue : new double[] {0, -100000})
+                    {
+                        String loan = durationInMonths + "," + paymentType + "," + interestRate + "," + futureValue;
+                        double r = paymentService.getMonthlyInterestRate(interestRate);
+                        double expected = 300000 + paymentService.cumprinc(r, durationInMonths, 300000, futureValue, paymentType, 1, durationInMonths);
+
+                        AmortizationCursor exactCents = open(durationInMonths, paymentType, interestRate, futureValue, AmortizationEngine.EXACT_CENTS);
+                        long principalCents = 0;
+                        long interestCents = 0;
+                        while (exactCents.next())
+                        {
+                            principalCents += Math.round(exactCents.getPrincipalPaid() * 100);
+                            interestCents += Math.round(exactCents.getInterestPaid() * 100);
+                        }
+                        assertEquals(loan, AmortizationCursor.toCents(expected) / 100.0, exactCents.getBalance(), 0);
+                        assertEquals(loan + " principal", 30000000 + principalCents, Math.round(exactCents.getBalance() * 100));
+                        assertEquals(loan + " accumulated interest", interestCents, Math.round(exactCents.getAccumulatedInterest() * 100));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * With a balloon or an overpayment the last payment still repays exactly what is left, ending where
+     * pv + CUMPRINC(1..N) does to the cent.  It differs from the regular payment only by the rounding carried through the schedule: half a cent
+     * of payment and half a cent of interest each period, compounded at the period rate.
+     */
+    @Test
+    public void lastPaymentAdjustmentWithFutureValue()
+    {
+        for (int durationInMonths : new int[] {12, 360, 1200})
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (double interestRate : new double[] {0, 4.25, 18})
+                {
+                    for (double futureValue : new double[] {-100000, 100000})
+                    {
+                        String loan = durationInMonths + "," + paymentType + "," + interestRate + "," + futureValue;
+                        double r = paymentService.getMonthlyInterestRate(interestRate);
+                        AmortizationCursor exactCents = open(durationInMonths, paymentType, interestRate, futureValue, AmortizationEngine.EXACT_CENTS);
+                        double balanceBefore = 300000;
+                        while (exactCents.next() && exactCents.getPaymentNumber() < durationInMonths)
+                        {
+                            balanceBefore = exactCents.getBalance();
+                        }
+                        double expected = 300000 + paymentService.cumprinc(r, durationInMonths, 300000, futureValue, paymentType, 1, durationInMonths);
+                        assertEquals(loan + " balance", AmortizationCursor.toCents(expected) / 100.0, exactCents.getBalance(), 0);
+                        assertEquals(loan + " principal", Math.round((exactCents.getBalance() - balanceBefore) * 100), Math.round(exactCents.getPrincipalPaid() * 100));
+
+                        double carried = (r == 0) ? durationInMonths : (Math.pow(1 + r, durationInMonths) - 1) / r;
+                        double adjustment = exactCents.getPrincipalPaid() + exactCents.getInterestPaid() - exactCents.getMonthlyPayment();
+                        assertTrue(loan + " adjustment " + adjustment, Math.abs(adjustment) <= CENT * carried + ONE_CENT);
+                        assertFalse(exactCents.next());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Payments at the beginning of a period charge interest on the balance less pv * r / (1 + r), so the first
+     * payment's interest is the closed form IPMT of period 1 rounded to the cent.
+     */
+    @Test
+    public void beginningOfPeriodInterestUsesDiscountedBalance()
+    {
+        for (double interestRate : INTEREST_RATES)
+        {
+            double r = paymentService.getMonthlyInterestRate(interestRate);
+            AmortizationCursor exactCents = open(360, 1, interestRate, 0, AmortizationEngine.EXACT_CENTS);
+            assertTrue(exactCents.next());
+            double expected = paymentService.ipmt(r, 1, 360, 300000, 0, 1);
+            assertEquals(String.valueOf(interestRate), AmortizationCursor.toCents(expected) / 100.0, exactCents.getInterestPaid(), ONE_CENT);
+        }
+    }
+
+    @Test
+    public void interruptedCursorStopsAtTheNextCheckpoint()
+    {
+        for (AmortizationEngine engine : AmortizationEngine.values())
+        {
+            AmortizationCursor cursor = open(360, 0, 4.25, 0, engine);
+            Thread.currentThread().interrupt();
+            try
+            {
+                while (cursor.next())
+                {
+                }
+                fail(engine + " visited every payment");
+            }
+            catch (CancellationException e)
+            {
+                assertEquals(engine.name(), AmortizationService.RECURRENCE_CHECKPOINT_INTERVAL, cursor.getPaymentNumber());
+            }
+            finally
+            {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private AmortizationCursor open(int durationInMonths, int paymentType, double interestRate, double futureValue, AmortizationEngine engine)
+    {
+        return new AmortizationCursor(paymentService, null, 300000, durationInMonths, paymentType, interestRate, futureValue, engine);
+    }
+
+    private static void assertWholeCents(String message, double amount)
+    {
+        assertEquals(message, Math.round(amount * 100) / 100.0, amount, 0);
+    }
+}
@@ -0,0 +1,301 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationColumns;
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.SchedulePage;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.time.LocalDate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AmortizationServiceTest
+{
+    /** Largest difference allowed between engines, in currency units on a 300,000 loan. */
+    private static final double TOLERANCE = 1e-6;
+
+    private static final int[] DURATIONS = {1, 12, 360, 480};
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final double[] INTEREST_RATES = {0, 4.25, 18};
+    private static final LocalDate START_DATE = LocalDate.of(2016, 1, 31);
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+
+    @Before
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class);
+        amortizationService = context.getBean(AmortizationService.class);
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Test
+    public void recurrenceMatchesClosedForm()
+    {
+        for (int durationInMonths : DURATIONS)
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (double interestRate : INTEREST_RATES)
+                {
+                    String loan = durationInMonths + "," + paymentType + "," + interestRate;
+                    AmortizationColumns closedForm = amortizationService.calculateColumns(300000, durationInMonths, paymentType, interestRate, 0, AmortizationEngine.CLOSED_FORM);
+                    AmortizationColumns recurrence = amortizationService.calculateColumns(300000, durationInMonths, paymentType, interestRate, 0, AmortizationEngine.RECURRENCE);
+                    assertColumnsEqual(loan, closedForm, recurrence, TOLERANCE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Over a century of payments (1 + r)^N grows large enough that the closed form itself loses digits, so the
+     * engines are held to the per-unit tolerance the checkpoints are documented to keep.
+     */
+    @Test
+    public void recurrenceMatchesClosedFormOverLongTerms()
+    {
+        for (int paymentType : PAYMENT_TYPES)
+        {
+            String loan = "1200," + paymentType;
+            AmortizationColumns closedForm = amortizationService.calculateColumns(300000, 1200, paymentType, 4.25, 0, AmortizationEngine.CLOSED_FORM);
+            AmortizationColumns recurrence = amortizationService.calculateColumns(300000, 1200, paymentType, 4.25, 0, AmortizationEngine.RECURRENCE);
+            assertColumnsEqual(loan, closedForm, recurrence, AmortizationService.NORMALIZED_TOLERANCE * 300000);
+        }
+    }
+
+    @Test
+    public void recurrenceMatchesClosedFormWithFutureValue()
+    {
+        AmortizationColumns closedForm = amortizationService.calculateColumns(300000, 360, 0, 4.25, -100000, AmortizationEngine.CLOSED_FORM);
+        AmortizationColumns recurrence = amortizationService.calculateColumns(300000, 360, 0, 4.25, -100000, AmortizationEngine.RECURRENCE);
+        assertColumnsEqual("balloon", closedForm, recurrence, TOLERANCE);
+        assertEquals(100000, recurrence.balanceAt(359), TOLERANCE);
+    }
+
+    /**
+     * Segments skip to their first payment, where the recurrence re-anchors exactly as a single pass does, so
+     * principal and interest agree row for row; the stitched running sums only differ in the order they are added.
+     * The single pass steps a cursor here, since calculateColumns itself segments long schedules on multi-core machines.
+     */
+    @Test
+    public void segmentedColumnsMatchSinglePass()
+    {
+        for (int durationInMonths : new int[] {AmortizationService.PARALLEL_SEGMENT_LENGTH, 2500, 6000})
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (AmortizationEngine engine : new AmortizationEngine[] {AmortizationEngine.CLOSED_FORM, AmortizationEngine.RECURRENCE})
+                {
+                    String loan = durationInMonths + "," + paymentType + "," + engine;
+                    AmortizationColumns singlePass = calculateInOnePass(durationInMonths, paymentType, engine);
+                    AmortizationColumns segmented = amortizationService.calculateColumnsInSegments(300000, durationInMonths, paymentType, 4.25, 0, engine);
+                    assertColumnsEqual(loan, singlePass, segmented, TOLERANCE);
+                    for (int i = 0; i < durationInMonths; i++)
+                    {
+                        assertEquals(loan + " row " + i + " principal", singlePass.principalPaidAt(i), segmented.principalPaidAt(i), 0);
+                        assertEquals(loan + " row " + i + " interest", singlePass.interestPaidAt(i), segmented.interestPaidAt(i), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pages skip to the checkpoint before them and offset the running sums by CUMPRINC and CUMIPMT, so every
+     * page reads as the same rows of the whole schedule; exact cents pages step through every payment and match
+     * to the bit.
+     */
+    @Test
+    public void pagesMatchWholeSchedule()
+    {
+        for (int durationInMonths : new int[] {360, 480})
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (double interestRate : INTEREST_RATES)
+                {
+                    for (AmortizationEngine engine : AmortizationEngine.values())
+                    {
+                        double tolerance = (engine == AmortizationEngine.EXACT_CENTS) ? 0 : TOLERANCE;
+                        AmortizationSchedule whole = amortizationService.calculateSchedule(START_DATE, 300000, durationInMonths, paymentType, interestRate, 0, engine);
+                        for (int size : new int[] {7, AmortizationService.RECURRENCE_CHECKPOINT_INTERVAL, 1200})
+                        {
+                            int pages = (durationInMonths + size - 1) / size;
+                            for (int page = 0; page < pages; page++)
+                            {
+                                String loan = durationInMonths + "," + paymentType + "," + interestRate + "," + engine + " page " + page + " of " + size;
+                                AmortizationSchedule schedule = amortizationService.getSchedulePage(START_DATE, 300000, durationInMonths, paymentType, interestRate, 0, engine, page, size).schedule();
+                                assertEquals(loan + " size", Math.min(size, durationInMonths - page * size), schedule.size());
+                                for (int i = 0; i < schedule.size(); i++)
+                                {
+                                    int index = page * size + i;
+                                    String row = loan + " row " + i;
+                                    assertEquals(row + " payment number", whole.paymentNumberAt(index), schedule.paymentNumberAt(i));
+                                    assertEquals(row + " payment date", whole.paymentDateAt(index), schedule.paymentDateAt(i));
+                                    assertEquals(row + " balance", whole.balanceAt(index), schedule.balanceAt(i), tolerance);
+                                    assertEquals(row + " principal", whole.principalPaidAt(index), schedule.principalPaidAt(i), tolerance);
+                                    assertEquals(row + " interest", whole.interestPaidAt(index), schedule.interestPaidAt(i), tolerance);
+                                    assertEquals(row + " accumulated interest", whole.accumulatedInterestAt(index), schedule.accumulatedInterestAt(i), tolerance);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pages of 30 over a balloon loan: page 2 starts exactly on the checkpoint at payment 60, where nothing is
+     * stepped past the skip, and page 3 starts halfway through the segment, where 30 payments are.
+     */
+    @Test
+    public void pagesAtAndBetweenCheckpointsMatchWholeSchedule()
+    {
+        int size = AmortizationService.RECURRENCE_CHECKPOINT_INTERVAL / 2;
+        for (int durationInMonths : new int[] {360, 1200})
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (AmortizationEngine engine : new AmortizationEngine[] {AmortizationEngine.CLOSED_FORM, AmortizationEngine.RECURRENCE})
+                {
+                    AmortizationSchedule whole = amortizationService.calculateSchedule(START_DATE, 300000, durationInMonths, paymentType, 4.25, -100000, engine);
+                    int lastCheckpointPage = (durationInMonths - AmortizationService.RECURRENCE_CHECKPOINT_INTERVAL) / size;
+                    for (int page : new int[] {2, 3, lastCheckpointPage, lastCheckpointPage + 1})
+                    {
+                        String loan = durationInMonths + "," + paymentType + "," + engine + " page " + page;
+                        SchedulePage schedulePage = amortizationService.getSchedulePage(START_DATE, 300000, durationInMonths, paymentType, 4.25, -100000, engine, page, size);
+                        AmortizationSchedule schedule = schedulePage.schedule();
+                        assertEquals(loan + " first payment", page * size + 1, schedulePage.getFirstPaymentNumber());
+                        assertEquals(loan + " size", size, schedule.size());
+                        for (int i = 0; i < size; i++)
+                        {
+                            int index = page * size + i;
+                            String row = loan + " row " + i;
+                            assertEquals(row + " payment number", whole.paymentNumberAt(index), schedule.paymentNumberAt(i));
+                            assertEquals(row + " payment date", whole.paymentDateAt(index), schedule.paymentDateAt(i));
+                            assertEquals(row + " balance", whole.balanceAt(index), schedule.balanceAt(i), TOLERANCE);
+                            assertEquals(row + " principal", whole.principalPaidAt(index), schedule.principalPaidAt(i), TOLERANCE);
+                            assertEquals(row + " interest", whole.interestPaidAt(index), schedule.interestPaidAt(i), TOLERANCE);
+                            assertEquals(row + " accumulated interest", whole.accumulatedInterestAt(index), schedule.accumulatedInterestAt(i), TOLERANCE);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void balanceEndsAtZero()
+    {
+        for (AmortizationEngine engine : new AmortizationEngine[] {AmortizationEngine.CLOSED_FORM, AmortizationEngine.RECURRENCE})
+        {
+            AmortizationColumns columns = amortizationService.calculateColumns(300000, 360, 0, 4.25, 0, engine);
+            assertEquals(engine.name(), 0, columns.balanceAt(359), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void scaledUnitBalanceColumnsMatchDirectCalculation()
+    {
+        ScheduleCache scheduleCache = context.getBean(ScheduleCache.class);
+        for (double initialBalance : new double[] {1000, 300000, 2750000})
+        {
+            for (AmortizationEngine engine : new AmortizationEngine[] {AmortizationEngine.CLOSED_FORM, AmortizationEngine.RECURRENCE})
+            {
+                AmortizationSchedule cached = amortizationService.getSchedule(START_DATE, initialBalance, 360, 0, 4.25, 0, engine);
+                AmortizationSchedule direct = amortizationService.calculateSchedule(START_DATE, initialBalance, 360, 0, 4.25, 0, engine);
+                assertEquals(initialBalance, cached.scale(), 0);
+                assertSchedulesEqual(initialBalance + "," + engine, direct, cached, TOLERANCE);
+            }
+        }
+
+        // one unit-balance entry per engine, shared by every balance
+        assertEquals(2, scheduleCache.size());
+        assertEquals(4, scheduleCache.getHitCount());
+    }
+
+    /**
+     * At 30% over a century the unit-balance columns lose more than the tolerance when scaled, so the terms are
+     * remembered as unshared and every loan is calculated directly, checking only once.
+     */
+    @Test
+    public void termsThatDoNotScaleAreRememberedAndCalculatedDirectly()
+    {
+        ScheduleCache scheduleCache = context.getBean(ScheduleCache.class);
+        for (double initialBalance : new double[] {300000, 2750000})
+        {
+            AmortizationSchedule schedule = amortizationService.getSchedule(START_DATE, initialBalance, 1200, 0, 30, 0, AmortizationEngine.RECURRENCE);
+            AmortizationSchedule direct = amortizationService.calculateSchedule(START_DATE, initialBalance, 1200, 0, 30, 0, AmortizationEngine.RECURRENCE);
+            assertEquals(1, schedule.scale(), 0);
+            assertSchedulesEqual(String.valueOf(initialBalance), direct, schedule, 0);
+        }
+        assertTrue(scheduleCache.get(new ScheduleCache.Key(30, 1200, 0, 0, AmortizationEngine.RECURRENCE)) == ScheduleCache.UNSHARED);
+        assertEquals(1, scheduleCache.size());
+        assertEquals(2, scheduleCache.getHitCount());
+    }
+
+    @Test
+    public void exactCentsSchedulesAreNotScaled()
+    {
+        AmortizationSchedule schedule = amortizationService.getSchedule(START_DATE, 300000, 360, 0, 4.25, 0, AmortizationEngine.EXACT_CENTS);
+        assertEquals(1, schedule.scale(), 0);
+        assertEquals(0, context.getBean(ScheduleCache.class).size());
+    }
+
+    private AmortizationColumns calculateInOnePass(int durationInMonths, int paymentType, AmortizationEngine engine)
+    {
+        double[] balance = new double[durationInMonths];
+        double[] principalPaid = new double[durationInMonths];
+        double[] interestPaid = new double[durationInMonths];
+        double[] accumulatedInterest = new double[durationInMonths];
+        AmortizationCursor cursor = amortizationService.openCursor(null, 300000, durationInMonths, paymentType, 4.25, 0, engine);
+        for (int i = 0; cursor.next(); i++)
+        {
+            balance[i] = cursor.getBalance();
+            principalPaid[i] = cursor.getPrincipalPaid();
+            interestPaid[i] = cursor.getInterestPaid();
+            accumulatedInterest[i] = cursor.getAccumulatedInterest();
+        }
+        return new AmortizationColumns(balance, principalPaid, interestPaid, accumulatedInterest);
+    }
+
+    static void assertSchedulesEqual(String loan, AmortizationSchedule expected, AmortizationSchedule actual, double tolerance)
+    {
+        assertEquals(loan + " size", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            String row = loan + " row " + i;
+            assertEquals(row + " payment number", expected.paymentNumberAt(i), actual.paymentNumberAt(i));
+            assertEquals(row + " payment date", expected.paymentDateAt(i), actual.paymentDateAt(i));
+            assertEquals(row + " balance", expected.balanceAt(i), actual.balanceAt(i), tolerance);
+            assertEquals(row + " principal", expected.principalPaidAt(i), actual.principalPaidAt(i), tolerance);
+            assertEquals(row + " interest", expected.interestPaidAt(i), actual.interestPaidAt(i), tolerance);
+            assertEquals(row + " accumulated interest", expected.accumulatedInterestAt(i), actual.accumulatedInterestAt(i), tolerance);
+        }
+    }
+
+    static void assertColumnsEqual(String loan, AmortizationColumns expected, AmortizationColumns actual, double tolerance)
+    {
+        assertEquals(loan + " size", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+        {
+            String row = loan + " row " + i;
+            assertEquals(row + " balance", expected.balanceAt(i), actual.balanceAt(i), tolerance);
+            assertEquals(row + " principal", expected.principalPaidAt(i), actual.principalPaidAt(i), tolerance);
+            assertEquals(row + " interest", expected.interestPaidAt(i), actual.interestPaidAt(i), tolerance);
+            assertEquals(row + " accumulated interest", expected.accumulatedInterestAt(i), actual.accumulatedInterestAt(i), tolerance);
+        }
+    }
+}
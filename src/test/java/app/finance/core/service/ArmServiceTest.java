@@ -0,0 +1,153 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.ArmSummary;
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.RateSegment;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.time.LocalDate;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+
+public class ArmServiceTest
+{
+    /** Largest difference allowed between closed form and recurrence amounts, on a 300,000 loan. */
+    private static final double TOLERANCE = 1e-6;
+
+    private static final LocalDate START_DATE = LocalDate.of(2016, 1, 31);
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final double[] FUTURE_VALUES = {0, -100000};
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+    private ArmService armService;
+
+    @Before
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class, ArmService.class);
+        amortizationService = context.getBean(AmortizationService.class);
+        armService = context.getBean(ArmService.class);
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    /**
+     * An index that keeps the fully indexed rate at the initial rate resets every segment to the same rate, so
+     * the loan is the fixed rate loan cut into segments.
+     */
+    @Test
+    public void noRateChangeMatchesFixedRateSchedule()
+    {
+        ArmTerms terms = terms(4.25);
+        for (int paymentType : PAYMENT_TYPES)
+        {
+            for (double futureValue : FUTURE_VALUES)
+            {
+                String loan = paymentType + "," + futureValue;
+                AmortizationSchedule fixed = amortizationService.getSchedule(START_DATE, 300000, 360, paymentType, 4.25, futureValue, AmortizationEngine.RECURRENCE);
+                ArmSummary summary = armService.summarize(START_DATE, 300000, 360, paymentType, 4.25, futureValue, terms, true);
+
+                assertEquals(loan + " segments", 26, summary.getSegments().size());
+                for (RateSegment segment : summary.getSegments())
+                {
+                    assertEquals(loan + " rate", 4.25, segment.getInterestRate(), 0);
+                    assertEquals(loan + " payment", summary.getSegments().get(0).getMonthlyPayment(), segment.getMonthlyPayment(), TOLERANCE);
+                }
+                assertEquals(loan + " final balance", fixed.balanceAt(359), summary.getFinalBalance(), TOLERANCE);
+                assertEquals(loan + " total interest", fixed.accumulatedInterestAt(359), summary.getTotalInterest(), TOLERANCE);
+
+                AmortizationSchedule schedule = summary.getSchedule();
+                assertEquals(loan + " rows", fixed.size(), schedule.size());
+                for (int i = 0; i < fixed.size(); i++)
+                {
+                    String row = loan + " row " + i;
+                    assertEquals(row + " payment date", fixed.paymentDateAt(i), schedule.paymentDateAt(i));
+                    assertEquals(row + " balance", fixed.balanceAt(i), schedule.balanceAt(i), TOLERANCE);
+                    assertEquals(row + " principal", fixed.principalPaidAt(i), schedule.principalPaidAt(i), TOLERANCE);
+                    assertEquals(row + " interest", fixed.interestPaidAt(i), schedule.interestPaidAt(i), TOLERANCE);
+                    assertEquals(row + " accumulated interest", fixed.accumulatedInterestAt(i), schedule.accumulatedInterestAt(i), TOLERANCE);
+                }
+            }
+        }
+    }
+
+    /**
+     * The balance after the last payment of a segment, looked up without the segments after it, is the
+     * segment's ending balance, and matches the schedule's row.
+     */
+    @Test
+    public void balanceAtResetIsSegmentEndingBalance()
+    {
+        ArmTerms terms = terms(2.5, 3.5, 6, 1, 0.5);
+        terms.setMargin(2.75);
+        for (int paymentType : PAYMENT_TYPES)
+        {
+            for (double futureValue : FUTURE_VALUES)
+            {
+                String loan = paymentType + "," + futureValue;
+                ArmSummary summary = armService.summarize(START_DATE, 300000, 360, paymentType, 3.5, futureValue, terms, true);
+                for (RateSegment segment : summary.getSegments())
+                {
+                    int period = segment.getEndPeriod();
+                    double balance = armService.balanceAt(300000, 360, paymentType, 3.5, futureValue, terms, period).getValue();
+                    assertEquals(loan + " period " + period, segment.getEndingBalance(), balance, TOLERANCE);
+                    assertEquals(loan + " row " + period, summary.getSchedule().balanceAt(period - 1), balance, TOLERANCE);
+                }
+                assertEquals(loan + " initial balance", 300000, armService.balanceAt(300000, 360, paymentType, 3.5, futureValue, terms, 0).getValue(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void resetRateRespectsCapsAndFloor()
+    {
+        ArmTerms terms = terms();
+        terms.setMargin(2);
+        terms.setInitialCap(2);
+        terms.setPeriodicCap(1);
+        terms.setLifetimeCap(5);
+        terms.setFloorRate(3);
+        double maxRate = 4 + terms.getLifetimeCap();
+
+        // the initial cap applies to the first reset, the periodic cap after it
+        assertEquals(6, ArmService.resetRate(terms, maxRate, 4, 8, 0), 0);
+        assertEquals(5, ArmService.resetRate(terms, maxRate, 4, 8, 1), 0);
+        assertEquals(4, ArmService.resetRate(terms, maxRate, 5, 0.5, 1), 0);
+        assertEquals(5.5, ArmService.resetRate(terms, maxRate, 4, 3.5, 0), 0);
+
+        // the lifetime cap and the floor bound the rate whatever the index
+        assertEquals(maxRate, ArmService.resetRate(terms, maxRate, 8.5, 20, 1), 0);
+        assertEquals(maxRate, ArmService.resetRate(terms, maxRate, 9, 20, 5), 0);
+        assertEquals(3, ArmService.resetRate(terms, maxRate, 3.5, -5, 1), 0);
+        assertEquals(3, ArmService.resetRate(terms, maxRate, 3, -5, 0), 0);
+
+        // the segments follow the same bounds through a rising then falling index
+        terms.setIndexRates(new double[] {9, 9, 9, 9, 9, -5, -5, -5, -5, -5, -5, -5});
+        List<RateSegment> segments = armService.segments(300000, 360, 0, 4, 0, terms);
+        double[] expected = {4, 6, 7, 8, 9, 9, 8, 7, 6, 5, 4, 3, 3};
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals("segment " + i, expected[i], segments.get(i).getInterestRate(), 0);
+        }
+    }
+
+    private static ArmTerms terms(double... indexRates)
+    {
+        ArmTerms terms = new ArmTerms();
+        terms.setFixedPeriodInMonths(60);
+        terms.setAdjustmentIntervalInMonths(12);
+        terms.setIndexRates(indexRates);
+        return terms;
+    }
+}
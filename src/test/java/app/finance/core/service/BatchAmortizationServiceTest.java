@@ -0,0 +1,231 @@
+package app.finance.core.service;
+
+import app.finance.core.model.LoanParameters;
+import app.finance.core.model.LoanSummary;
+import app.finance.core.model.ScheduleFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class BatchAmortizationServiceTest
+{
+    private static final String[] IDS = {"plain", "with,comma", "with \"quotes\"", "with\r\nline break", "\"", ""};
+
+    private AnnotationConfigApplicationContext context;
+    private BatchAmortizationService batchAmortizationService;
+    private PaymentService paymentService;
+
+    @Before
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class, ScheduleExportService.class, BatchAmortizationService.class);
+        batchAmortizationService = context.getBean(BatchAmortizationService.class);
+        paymentService = context.getBean(PaymentService.class);
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Test
+    public void csvRecordsFollowRfc4180()
+    {
+        assertEquals(Arrays.asList("a", "b,c", "d\"e", ""), readCsvRecords("a,\"b,c\",\"d\"\"e\",\r\n").get(0));
+        assertEquals(Arrays.asList("line\nbreak", "x"), readCsvRecords("\"line\nbreak\",x\n").get(0));
+        assertEquals(3, readCsvRecords("a\rb\r\nc").size());
+        assertEquals(Arrays.asList(""), readCsvRecords("\"\"").get(0));
+        try
+        {
+            readCsvRecords("a,\"unterminated\n");
+            fail("unterminated quote accepted");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+    /**
+     * CSV batch results quote ids and errors that need it; reading them back as loans, or as records, must
+     * give the same strings.
+     */
+    @Test
+    public void csvSummariesReadBack() throws IOException
+    {
+        ScheduleExportService scheduleExportService = context.getBean(ScheduleExportService.class);
+        StringWriter out = new StringWriter();
+        scheduleExportService.writeSummaryHeader(ScheduleFormat.CSV, out);
+        for (int i = 0; i < IDS.length; i++)
+        {
+            scheduleExportService.writeSummary(new LoanSummary(IDS[i], "error, \"" + i + "\"\n"), ScheduleFormat.CSV, i, out);
+        }
+        scheduleExportService.writeSummaryFooter(ScheduleFormat.CSV, out);
+
+        Iterator<LoanParameters> loans = batchAmortizationService.readCsv(new StringReader(out.toString()));
+        for (String id : IDS)
+        {
+            assertEquals(id, id.trim().isEmpty() ? null : id, loans.next().getId());
+        }
+        assertFalse(loans.hasNext());
+
+        List<List<String>> records = readCsvRecords(out.toString());
+        assertEquals(IDS.length + 1, records.size());
+        for (int i = 0; i < IDS.length; i++)
+        {
+            assertEquals(IDS[i], records.get(i + 1).get(0));
+            assertEquals("error, \"" + i + "\"\n", records.get(i + 1).get(5));
+        }
+    }
+
+    @Test
+    public void csvColumnsAreReadByName() throws IOException
+    {
+        String csv = " paymentType , durationInMonths,interestRate,initialBalance,id,startDate,unknown\n"
+                + "1,360,4.25,300000,\"a,b\",2016-01-31,x\n"
+                + "\n"
+                + "0,12,,1000,c,,\n";
+        Iterator<LoanParameters> loans = batchAmortizationService.readCsv(new StringReader(csv));
+        LoanParameters loan = loans.next();
+        assertEquals("a,b", loan.getId());
+        assertEquals(LocalDate.of(2016, 1, 31), loan.getStartDate());
+        assertEquals(300000, loan.getInitialBalance(), 0);
+        assertEquals(4.25, loan.getInterestRate(), 0);
+        assertEquals(360, loan.getDurationInMonths());
+        assertEquals(1, loan.getPaymentType());
+        loan = loans.next();
+        assertEquals("c", loan.getId());
+        assertNull(loan.getStartDate());
+        assertEquals(0, loan.getInterestRate(), 0);
+        assertEquals(12, loan.getDurationInMonths());
+        assertFalse(loans.hasNext());
+
+        try
+        {
+            batchAmortizationService.readCsv(new StringReader("id,durationInMonths\na,twelve\n")).next();
+            fail("malformed number accepted");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+    @Test
+    public void jsonArraysAndNewlineDelimitedJsonReadTheSameLoans() throws IOException
+    {
+        String array = "[{\"id\":\"a\",\"initialBalance\":300000,\"interestRate\":4.25,\"durationInMonths\":360,\"startDate\":\"2016-01-31\"},"
+                + "{\"id\":\"b\",\"initialBalance\":1000,\"durationInMonths\":12,\"paymentType\":1}]";
+        String ndjson = "{\"id\":\"a\",\"initialBalance\":300000,\"interestRate\":4.25,\"durationInMonths\":360,\"startDate\":\"2016-01-31\"}\n"
+                + "{\"id\":\"b\",\"initialBalance\":1000,\"durationInMonths\":12,\"paymentType\":1}\n";
+        for (String json : new String[] {array, ndjson})
+        {
+            Iterator<LoanParameters> loans = batchAmortizationService.readJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+            LoanParameters loan = loans.next();
+            assertEquals("a", loan.getId());
+            assertEquals(LocalDate.of(2016, 1, 31), loan.getStartDate());
+            assertEquals(360, loan.getDurationInMonths());
+            loan = loans.next();
+            assertEquals("b", loan.getId());
+            assertEquals(1, loan.getPaymentType());
+            assertFalse(loans.hasNext());
+        }
+
+        try
+        {
+            Iterator<LoanParameters> loans = batchAmortizationService.readJson(new ByteArrayInputStream("[{\"id\":".getBytes(StandardCharsets.UTF_8)));
+            loans.hasNext();
+            loans.next();
+            fail("malformed JSON accepted");
+        }
+        catch (IllegalArgumentException expected)
+        {
+        }
+    }
+
+    /**
+     * Invalid loans carry their error in the summary and do not affect the loans around them.
+     */
+    @Test
+    public void invalidLoansSummarizeToErrors()
+    {
+        List<LoanParameters> loans = new ArrayList<LoanParameters>();
+        loans.add(loan("valid", 360, 0));
+        loans.add(loan("no term", 0, 0));
+        loans.add(loan("too long", AmortizationService.MAX_DURATION_IN_MONTHS + 1, 0));
+        loans.add(loan("bad type", 360, 2));
+        loans.add(loan("valid in advance", 360, 1));
+        List<LoanSummary> summaries = batchAmortizationService.summarize(loans, false);
+
+        assertEquals(loans.size(), summaries.size());
+        for (int i = 0; i < loans.size(); i++)
+        {
+            assertEquals(loans.get(i).getId(), summaries.get(i).getId());
+        }
+        assertNull(summaries.get(0).getError());
+        assertEquals(paymentService.pmt(paymentService.getMonthlyInterestRate(4.25), 360, 300000, 0, 0), summaries.get(0).getMonthlyPayment(), 0);
+        assertEquals("durationInMonths must be between 1 and 1200: 0", summaries.get(1).getError());
+        assertEquals("durationInMonths must be between 1 and 1200: 1201", summaries.get(2).getError());
+        assertEquals("paymentType must be 0 or 1: 2", summaries.get(3).getError());
+        assertNull(summaries.get(4).getError());
+        assertEquals(paymentService.pmt(paymentService.getMonthlyInterestRate(4.25), 360, 300000, 0, 1), summaries.get(4).getMonthlyPayment(), 0);
+    }
+
+    @Test
+    public void summariesCarrySchedulesOnlyWhenAsked()
+    {
+        LoanParameters loan = loan("a", 360, 0);
+        LoanSummary summary = batchAmortizationService.summarize(loan, true);
+        assertEquals(360, summary.getSchedule().size());
+        assertEquals(0, summary.getFinalBalance(), 1e-6);
+        assertEquals(summary.getTotalInterest(), summary.getSchedule().accumulatedInterestAt(359), 1e-6);
+        assertNull(batchAmortizationService.summarize(loan, false).getSchedule());
+    }
+
+    private static LoanParameters loan(String id, int durationInMonths, int paymentType)
+    {
+        LoanParameters loan = new LoanParameters();
+        loan.setId(id);
+        loan.setStartDate(LocalDate.of(2016, 1, 31));
+        loan.setInitialBalance(300000);
+        loan.setInterestRate(4.25);
+        loan.setDurationInMonths(durationInMonths);
+        loan.setPaymentType(paymentType);
+        return loan;
+    }
+
+    private static List<List<String>> readCsvRecords(String csv)
+    {
+        try
+        {
+            BufferedReader in = new BufferedReader(new StringReader(csv));
+            List<List<String>> records = new ArrayList<List<String>>();
+            for (List<String> record = BatchAmortizationService.readCsvRecord(in); record != null; record = BatchAmortizationService.readCsvRecord(in))
+            {
+                records.add(record);
+            }
+            return records;
+        }
+        catch (IOException e)
+        {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package app.finance.core.service;
+
+import app.finance.core.model.RateSheet;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import static org.junit.Assert.assertEquals;
+
+public class CompoundingFactorTableTest
+{
+    @Test
+    public void factorsAreExactPowers()
+    {
+        CompoundingFactorTable table = new CompoundingFactorTable(4, 1200, 1 << 20);
+        double r = 4.25 / 100 / 12;
+        for (int nper : new int[] {0, 1, 12, 360, 1200, 1201})
+        {
+            assertEquals(Math.pow(1 + r, nper), table.factor(r, nper), 0);
+        }
+    }
+
+    @Test
+    public void byteLimitEvictsLeastRecentlyUsedRates()
+    {
+        // room for three rates of 1201 factors
+        CompoundingFactorTable table = new CompoundingFactorTable(256, 1200, 3 * 8 * 1201);
+        for (int i = 0; i < 5; i++)
+        {
+            table.prepare(0.001 * (i + 1));
+        }
+        assertEquals(3, table.size());
+        assertEquals(3 * 8 * 1201, table.getWeight());
+        assertEquals(2, table.getEvictionCount());
+    }
+
+    /**
+     * A rate evicted by another thread is looked up afresh, rather than served from factors the table let go.
+     */
+    @Test
+    public void ratesEvictedByOtherThreadsAreNotRetained() throws InterruptedException
+    {
+        // room for one rate of 1201 factors
+        final CompoundingFactorTable table = new CompoundingFactorTable(256, 1200, 8 * 1201);
+        double r = 0.001;
+        table.prepare(r);
+        Thread other = new Thread(() -> table.prepare(0.002));
+        other.start();
+        other.join();
+        assertEquals(1, table.getEvictionCount());
+
+        assertEquals(Math.pow(1 + r, 12), table.factor(r, 12), 0);
+        assertEquals(3, table.getMissCount());
+        assertEquals(0, table.getHitCount());
+        assertEquals(1, table.size());
+        assertEquals(8 * 1201, table.getWeight());
+    }
+
+    @Test
+    public void rateSheetLeavesTableAlone()
+    {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class,
+                PaymentService.class, RateSheetService.class);
+        try
+        {
+            CompoundingFactorTable table = context.getBean(CompoundingFactorTable.class);
+            RateSheet sheet = context.getBean(RateSheetService.class).calculate(300000, 0, 0, 3, 8, 0.125, new int[] {180, 360});
+            assertEquals(0, table.size());
+            assertEquals(0, table.getMissCount());
+
+            for (int i = 0; i < sheet.getInterestRates().length; i++)
+            {
+                for (int j = 0; j < sheet.getDurationsInMonths().length; j++)
+                {
+                    double r = sheet.getInterestRates()[i] / 100 / 12;
+                    double pmt = new PaymentService().pmt(r, sheet.getDurationsInMonths()[j], 300000, 0, 0);
+                    assertEquals(pmt, sheet.getMonthlyPayment()[i][j], 1e-6);
+                }
+            }
+            assertEquals(0, table.size());
+        }
+        finally
+        {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.model.ScheduleFormat;
+import app.finance.core.model.ScheduleRequest;
+import org.junit.Test;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LoanRequestParserTest
+{
+    private static final String[] EDGE_NUMBERS = {
+        "0", "-0", "+0", "-0.0", "0.0", "1.", ".5", "-.5", "+1", "4.25", "0.1", "300000", "1E3", "1e+3", "1e-3",
+        "123456789012345", "1234567890123456", "12345678901234567890", "0.123456789012345678", "9007199254740993",
+        "1e22", "1e23", "1e-22", "1e-23", "123456789012345e22", "123456789012345e-22", "1.5e-40", "4.9e-324",
+        "2.2250738585072011e-308", "1.7976931348623157e308", "1e400", "-1e400", "1e-400", "0e999999999",
+        "000000000000000000001", "100000000000000000000000", "0.000000000000000000000000001"
+    };
+
+    private static final String[] INVALID_NUMBERS = {
+        "", "-", "+", ".", "-.", "e5", "1e", "1e+", "1e-", "1.2.3", "1x", "0x10", " 1", "1 ", "Infinity", "NaN", "1d", "1f", "--1", "1e5.5"
+    };
+
+    private final LoanRequestParser loanRequestParser = new LoanRequestParser();
+
+    @Test
+    public void parseDoubleMatchesDoubleParseDoubleAtEdges()
+    {
+        for (String number : EDGE_NUMBERS)
+        {
+            assertSameDouble(number);
+        }
+    }
+
+    @Test
+    public void parseDoubleMatchesDoubleParseDoubleOnRandomDecimals()
+    {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int n = 0; n < 200000; n++)
+        {
+            StringBuilder number = new StringBuilder();
+            int sign = random.nextInt(4);
+            if (sign == 1) number.append('-');
+            if (sign == 2) number.append('+');
+            int integerDigits = random.nextInt(22);
+            int fractionDigits = random.nextInt(22);
+            if (integerDigits + fractionDigits == 0)
+            {
+                integerDigits = 1;
+            }
+            appendDigits(random, number, integerDigits);
+            if (fractionDigits > 0 || random.nextBoolean())
+            {
+                number.append('.');
+                appendDigits(random, number, fractionDigits);
+            }
+            if (random.nextBoolean())
+            {
+                number.append(random.nextBoolean() ? 'e' : 'E');
+                int exponentSign = random.nextInt(3);
+                if (exponentSign == 1) number.append('-');
+                if (exponentSign == 2) number.append('+');
+                number.append(random.nextInt(random.nextBoolean() ? 30 : 330));
+            }
+            assertSameDouble(number.toString());
+        }
+    }
+
+    @Test
+    public void parseDoubleReadsDoubleToString()
+    {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int n = 0; n < 100000; n++)
+        {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(value) && !Double.isInfinite(value))
+            {
+                assertSameDouble(Double.toString(value));
+            }
+            assertSameDouble(Double.toString(random.nextDouble() * 1e6));
+        }
+    }
+
+    @Test
+    public void parseDoubleRejectsWhatIsNotADecimal()
+    {
+        for (String number : INVALID_NUMBERS)
+        {
+            assertTrue(number, Double.isNaN(parseDouble(number)));
+        }
+    }
+
+    @Test
+    public void parseLongReadsSignedWholeNumbers()
+    {
+        assertEquals(360, parseLong("360"));
+        assertEquals(-7, parseLong("-7"));
+        assertEquals(7, parseLong("+7"));
+        assertEquals(999999999999999999L, parseLong("999999999999999999"));
+        for (String number : new String[] {"", "-", "1.5", "1e3", "x", "9999999999999999999"})
+        {
+            assertEquals(number, Long.MIN_VALUE, parseLong(number));
+        }
+    }
+
+    @Test
+    public void parseDateReadsBothFormats()
+    {
+        assertEquals(LocalDate.of(2016, 1, 31), parseDate("01/31/2016"));
+        assertEquals(LocalDate.of(2016, 1, 31), parseDate("2016-01-31"));
+        assertEquals(LocalDate.of(2016, 2, 29), parseDate("02/29/2016"));
+        assertEquals(LocalDate.of(2016, 2, 29), parseDate("2016-02-29"));
+        for (String date : new String[] {"02/29/2015", "2015-02-29", "04/31/2016", "13/01/2016", "00/10/2016", "2016/01/31", "1/31/2016",
+                "2016-1-31", "01-31-2016", "0a/31/2016", "", "01/31/20166"})
+        {
+            assertNull(date, parseDate(date));
+        }
+    }
+
+    @Test
+    public void formDecodesPercentEscapesAndPlus()
+    {
+        ScheduleRequest scheduleRequest = parseForm("startDate=01%2f31%2F2016&initial%42alance=300%30&interestRate=4%2E25&durationInMonths=+360+"
+                + "&engine=EXACT%5FCENTS&format=CSV&page=2&size=24&other=%zz");
+        assertFalse(scheduleRequest.getErrorMessage(), scheduleRequest.hasErrors());
+        MonthlyAmortizationSchedule loan = scheduleRequest.getLoan();
+        assertEquals(LocalDate.of(2016, 1, 31), loan.getStartDate());
+        assertEquals(3000, loan.getInitialBalance(), 0);
+        assertEquals(4.25, loan.getInterestRate(), 0);
+        assertEquals(360, loan.getDurationInMonths());
+        assertEquals(AmortizationEngine.EXACT_CENTS, loan.getEngine());
+        assertEquals(ScheduleFormat.CSV, scheduleRequest.getFormat());
+        assertEquals(2, scheduleRequest.getPage());
+        assertEquals(Integer.valueOf(24), scheduleRequest.getSize());
+    }
+
+    @Test
+    public void formLeavesMalformedEscapesAlone()
+    {
+        ScheduleRequest scheduleRequest = parseForm("engine=RECURRENCE%zz&format=CSV%4");
+        assertEquals(Arrays.asList("engine must be one of " + Arrays.toString(AmortizationEngine.values()) + ": RECURRENCE%zz",
+                "format must be one of " + Arrays.toString(ScheduleFormat.values()) + ": CSV%4"), scheduleRequest.getErrors());
+    }
+
+    @Test
+    public void emptyValuesLeaveDefaults()
+    {
+        ScheduleRequest scheduleRequest = parseForm("futureValue=&paymentType=+&engine=&initialBalance");
+        assertFalse(scheduleRequest.hasErrors());
+        assertEquals(0, scheduleRequest.getLoan().getFutureValue(), 0);
+        assertEquals(AmortizationEngine.RECURRENCE, scheduleRequest.getLoan().getEngine());
+        assertFalse(scheduleRequest.isGiven(ScheduleRequest.INITIAL_BALANCE));
+    }
+
+    @Test
+    public void jsonUnescapesStrings()
+    {
+        ScheduleRequest scheduleRequest = parseJson("{\"startDate\": \"2016\\u002d01\\u002D31\", \"engine\": \"EXACT\\u005fCENTS\", \"format\": \"\\u0043SV\", "
+                + "\"interest\\u0052ate\": 4.25, \"other\": \"\\\"\\\\\\/\\b\\f\\n\\r\\t\"}");
+        assertFalse(scheduleRequest.getErrorMessage(), scheduleRequest.hasErrors());
+        assertEquals(LocalDate.of(2016, 1, 31), scheduleRequest.getLoan().getStartDate());
+        assertEquals(AmortizationEngine.EXACT_CENTS, scheduleRequest.getLoan().getEngine());
+        assertEquals(ScheduleFormat.CSV, scheduleRequest.getFormat());
+        assertEquals(4.25, scheduleRequest.getLoan().getInterestRate(), 0);
+    }
+
+    @Test
+    public void jsonEscapesBeyondAsciiCannotMatch()
+    {
+        ScheduleRequest scheduleRequest = parseJson("{\"engine\": \"RECURRENC\\u00c9\"}");
+        assertEquals(Arrays.asList("engine must be one of " + Arrays.toString(AmortizationEngine.values()) + ": RECURRENC?"), scheduleRequest.getErrors());
+    }
+
+    @Test
+    public void jsonSkipsNestedValues()
+    {
+        ScheduleRequest scheduleRequest = parseJson("{\"terms\": {\"a\": [1, {\"b\": \"}]\"}], \"c\": \"\\\"]\"}, \"initialBalance\": 1000, "
+                + "\"list\": [1, [2, [3]], {}], \"durationInMonths\": 12, \"futureValue\": null, \"paymentType\": 1}");
+        assertFalse(scheduleRequest.getErrorMessage(), scheduleRequest.hasErrors());
+        MonthlyAmortizationSchedule loan = scheduleRequest.getLoan();
+        assertEquals(1000, loan.getInitialBalance(), 0);
+        assertEquals(12, loan.getDurationInMonths());
+        assertEquals(0, loan.getFutureValue(), 0);
+        assertEquals(1, loan.getPaymentType());
+    }
+
+    @Test
+    public void malformedJsonIsRejected()
+    {
+        assertEquals(Arrays.asList("request body must be a JSON object"), parseJson("[1]").getErrors());
+        assertEquals(Arrays.asList("malformed JSON: unterminated value of terms"), parseJson("{\"terms\": {\"a\": [1}").getErrors());
+        assertEquals(1, parseJson("{\"initialBalance\" 1000}").getErrors().size());
+        assertEquals(1, parseJson("{\"initialBalance\": 1000").getErrors().size());
+        assertFalse(parseJson("  { }  ").hasErrors());
+    }
+
+    @Test
+    public void everyBadValueIsReported()
+    {
+        ScheduleRequest scheduleRequest = parseForm("startDate=02/30/2016&initialBalance=3e&durationInMonths=0&paymentType=2&interestRate=4.25");
+        assertEquals(Arrays.asList("startDate must be a date as MM/dd/yyyy or yyyy-MM-dd: 02/30/2016",
+                "initialBalance must be a number: 3e",
+                "durationInMonths must be a whole number from 1 to " + AmortizationService.MAX_DURATION_IN_MONTHS + ": 0",
+                "paymentType must be a whole number from 0 to 1: 2"), scheduleRequest.getErrors());
+        assertEquals(4.25, scheduleRequest.getLoan().getInterestRate(), 0);
+    }
+
+    /**
+     * Terms and pages are bounded before anything is calculated, so no request can ask for unbounded columns
+     * or an unbounded stream; the handlers answer these errors with 400.
+     */
+    @Test
+    public void oversizeTermsAndPagesAreRejected()
+    {
+        int max = AmortizationService.MAX_DURATION_IN_MONTHS;
+        assertFalse(parseForm("durationInMonths=" + max + "&size=" + max).hasErrors());
+        assertEquals(Arrays.asList("durationInMonths must be a whole number from 1 to " + max + ": " + (max + 1),
+                "size must be a whole number from 1 to " + max + ": 2147483647"),
+                parseForm("durationInMonths=" + (max + 1) + "&size=2147483647").getErrors());
+        assertEquals(Arrays.asList("durationInMonths must be a whole number from 1 to " + max + ": 2147483647"),
+                parseJson("{\"durationInMonths\": 2147483647}").getErrors());
+    }
+
+    @Test
+    public void missingLoanFieldsAreRequired()
+    {
+        ScheduleRequest scheduleRequest = parseForm("futureValue=0&startDate=");
+        LoanRequestParser.requireLoanFields(scheduleRequest);
+        assertEquals(Arrays.asList("startDate is required", "initialBalance is required", "interestRate is required", "durationInMonths is required"),
+                scheduleRequest.getErrors());
+
+        // a value that is given but unreadable is reported once, as unreadable
+        scheduleRequest = parseForm("startDate=2016-01-31&initialBalance=300000&interestRate=4.25&durationInMonths=x");
+        LoanRequestParser.requireLoanFields(scheduleRequest);
+        assertEquals(Arrays.asList("durationInMonths must be a whole number from 1 to " + AmortizationService.MAX_DURATION_IN_MONTHS + ": x"), scheduleRequest.getErrors());
+
+        scheduleRequest = parseJson("{\"startDate\": \"2016-01-31\", \"initialBalance\": 300000, \"interestRate\": 0, \"durationInMonths\": 360}");
+        LoanRequestParser.requireLoanFields(scheduleRequest);
+        assertFalse(scheduleRequest.getErrorMessage(), scheduleRequest.hasErrors());
+    }
+
+    private ScheduleRequest parseForm(String form)
+    {
+        byte[] bytes = form.getBytes(StandardCharsets.ISO_8859_1);
+        ScheduleRequest scheduleRequest = new ScheduleRequest();
+        loanRequestParser.parseForm(bytes, 0, bytes.length, scheduleRequest);
+        return scheduleRequest;
+    }
+
+    private ScheduleRequest parseJson(String json)
+    {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        ScheduleRequest scheduleRequest = new ScheduleRequest();
+        loanRequestParser.parseJson(bytes, 0, bytes.length, scheduleRequest);
+        return scheduleRequest;
+    }
+
+    private static void appendDigits(SplittableRandom random, StringBuilder number, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            // runs of zeros and nines exercise the carries and the exact, zero padded forms
+            int kind = random.nextInt(8);
+            number.append((char) ('0' + ((kind == 0) ? 0 : (kind == 1) ? 9 : random.nextInt(10))));
+        }
+    }
+
+    private static void assertSameDouble(String number)
+    {
+        assertEquals(number, Double.doubleToRawLongBits(Double.parseDouble(number)), Double.doubleToRawLongBits(parseDouble(number)));
+    }
+
+    private static double parseDouble(String number)
+    {
+        byte[] bytes = number.getBytes(StandardCharsets.ISO_8859_1);
+        return LoanRequestParser.parseDouble(bytes, 0, bytes.length);
+    }
+
+    private static long parseLong(String number)
+    {
+        byte[] bytes = number.getBytes(StandardCharsets.ISO_8859_1);
+        return LoanRequestParser.parseLong(bytes, 0, bytes.length);
+    }
+
+    private static LocalDate parseDate(String date)
+    {
+        byte[] bytes = date.getBytes(StandardCharsets.ISO_8859_1);
+        return LoanRequestParser.parseDate(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,142 @@
+package app.finance.core.service;
+
+import org.junit.Test;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+
+public class NumberWriterTest
+{
+    private static final Locale[] LOCALES = {Locale.US, Locale.GERMANY, Locale.FRANCE, Locale.JAPAN, new Locale("de", "CH"), new Locale("hi", "IN"), new Locale("ar", "EG")};
+
+    /** Ties at two and four places, negatives and zeros, carries into a new digit, and large magnitudes. */
+    private static final double[] CURRENCY_VALUES = {
+        0.005, 0.015, 0.025, 0.125, 0.375, 1.005, 1.115, 2.675, 10.005, 1234.565, 1475.815,
+        -0.005, -0.015, -1.005, -2.675, -1234.565, -0.0, 0.0, -0.001, 0.001, -0.004999,
+        0.995, 9.995, 99.995, 999.995, 9999.995, 99999.995, 999999.995, -999.995,
+        1000, 1000000, 1234567.891, 300000, 1475.81, 12345678901.234, 9.995e12, 999999999999.995,
+        1e15, 4.5e15, 9007199254740993.0, 1e17, 1.2345678901234567e20, 1e22, Long.MAX_VALUE, 1.7976931348623157e308,
+        Double.MIN_VALUE, -Double.MIN_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+    };
+
+    private static final double[] PERCENT_VALUES = {
+        0.0425, 0.04125, 0.00000005, 0.00000015, 0.00000025, 0.00012345, 0.12344995, 0.99999995, 9.99999995,
+        -0.0425, -0.00000005, -0.0, 0.0, 0.071249995, 1, 12.5, 123456.78905, 1e13, 1e20
+    };
+
+    @Test
+    public void currencyMatchesDecimalFormat()
+    {
+        for (Locale locale : LOCALES)
+        {
+            for (int[] digits : new int[][] {{2, 2}, {0, 2}, {0, 0}, {2, 4}})
+            {
+                NumberWriter writer = NumberWriter.currency(locale, digits[0], digits[1]);
+                DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+                format.setMinimumFractionDigits(digits[0]);
+                format.setMaximumFractionDigits(digits[1]);
+                assertFormatsMatch(locale + " currency " + digits[0] + "," + digits[1], format, writer, CURRENCY_VALUES);
+            }
+        }
+    }
+
+    @Test
+    public void percentMatchesDecimalFormat()
+    {
+        for (Locale locale : LOCALES)
+        {
+            for (int[] digits : new int[][] {{2, 4}, {0, 2}, {0, 6}})
+            {
+                NumberWriter writer = NumberWriter.percent(locale, digits[0], digits[1]);
+                DecimalFormat format = (DecimalFormat) NumberFormat.getPercentInstance(locale);
+                format.setMinimumFractionDigits(digits[0]);
+                format.setMaximumFractionDigits(digits[1]);
+                assertFormatsMatch(locale + " percent " + digits[0] + "," + digits[1], format, writer, PERCENT_VALUES);
+            }
+        }
+    }
+
+    /**
+     * Payments and rates as the calculator produces them, ties at the last place included by construction.
+     */
+    @Test
+    public void randomValuesMatchDecimalFormat()
+    {
+        Random random = new Random(42);
+        double[] values = new double[20000];
+        for (int i = 0; i < values.length; i += 4)
+        {
+            values[i] = (random.nextDouble() - 0.25) * Math.pow(10, random.nextInt(13));
+            values[i + 1] = Math.round(values[i] * 1000) / 1000.0;
+            values[i + 2] = (Math.floor(values[i] * 100) + 0.5) / 100;
+            values[i + 3] = random.nextInt(2000000) / 100000.0 / 100;
+        }
+        for (Locale locale : new Locale[] {Locale.US, Locale.GERMANY})
+        {
+            DecimalFormat currency = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+            currency.setMinimumFractionDigits(2);
+            currency.setMaximumFractionDigits(2);
+            assertFormatsMatch(locale + " currency", currency, NumberWriter.currency(locale, 2, 2), values);
+
+            DecimalFormat percent = (DecimalFormat) NumberFormat.getPercentInstance(locale);
+            percent.setMinimumFractionDigits(2);
+            percent.setMaximumFractionDigits(4);
+            assertFormatsMatch(locale + " percent", percent, NumberWriter.percent(locale, 2, 4), values);
+        }
+    }
+
+    /**
+     * Grouping as the schedule and rate sheet pages show it: every third digit, with the locale's separator,
+     * from the thousands up.
+     */
+    @Test
+    public void groupingMatchesDecimalFormat()
+    {
+        NumberWriter writer = NumberWriter.currency(Locale.US, 2, 2);
+        assertEquals("$1,475.82", writer.format(1475.815));
+        assertEquals("$1,000,000.00", writer.format(999999.996));
+        assertEquals("-$999.99", writer.format(-999.994));
+        assertEquals("$12,345,678,901.23", writer.format(12345678901.234));
+        assertEquals("4.25%", NumberWriter.percent(Locale.US, 2, 4).format(0.0425));
+        assertEquals("4.1235%", NumberWriter.percent(Locale.US, 2, 4).format(0.04123456));
+
+        for (Locale locale : LOCALES)
+        {
+            DecimalFormat format = (DecimalFormat) NumberFormat.getCurrencyInstance(locale);
+            format.setMinimumFractionDigits(2);
+            format.setMaximumFractionDigits(2);
+            NumberWriter currency = NumberWriter.currency(locale, 2, 2);
+            double value = 1;
+            for (int digits = 1; digits <= 18; digits++)
+            {
+                value = value * 10 + digits % 10;
+                assertEquals(locale + " " + value, format.format(value), currency.format(value));
+                assertEquals(locale + " " + -value, format.format(-value), currency.format(-value));
+            }
+        }
+    }
+
+    private static void assertFormatsMatch(String writer, DecimalFormat format, NumberWriter numberWriter, double[] values)
+    {
+        for (double value : values)
+        {
+            String expected = format.format(value);
+            String actual = numberWriter.format(value);
+            assertEquals(writer + " " + value, expected, actual);
+            if (!Double.isNaN(value))
+            {
+                try
+                {
+                    assertEquals(writer + " parse " + actual, format.parse(expected).doubleValue(), numberWriter.parse(actual), 0);
+                }
+                catch (ParseException e)
+                {
+                    throw new AssertionError(writer + " " + value, e);
+                }
+            }
+        }
+    }
+}
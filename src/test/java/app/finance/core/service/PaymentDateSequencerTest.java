@@ -0,0 +1,67 @@
+package app.finance.core.service;
+
+import org.junit.Test;
+import java.time.LocalDate;
+import static org.junit.Assert.assertEquals;
+
+public class PaymentDateSequencerTest
+{
+    private static final LocalDate[] START_DATES = {LocalDate.of(2016, 1, 31), LocalDate.of(2016, 2, 29), LocalDate.of(2015, 12, 15), LocalDate.of(2016, 1, 1)};
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final int PAYMENTS = 1200;
+
+    @Test
+    public void datesKeepTheStartDayClampedToEachMonth()
+    {
+        int[] paymentDate = new int[13];
+        PaymentDateSequencer.fill(paymentDate, LocalDate.of(2016, 1, 31), 0);
+        assertEquals(LocalDate.of(2016, 2, 29), LocalDate.ofEpochDay(paymentDate[0]));
+        assertEquals(LocalDate.of(2016, 3, 31), LocalDate.ofEpochDay(paymentDate[1]));
+        assertEquals(LocalDate.of(2016, 4, 30), LocalDate.ofEpochDay(paymentDate[2]));
+        assertEquals(LocalDate.of(2017, 2, 28), LocalDate.ofEpochDay(paymentDate[12]));
+
+        PaymentDateSequencer.fill(paymentDate, LocalDate.of(2016, 1, 31), 1);
+        assertEquals(LocalDate.of(2016, 1, 31), LocalDate.ofEpochDay(paymentDate[0]));
+        assertEquals(LocalDate.of(2016, 2, 29), LocalDate.ofEpochDay(paymentDate[1]));
+    }
+
+    @Test
+    public void datesMatchPlusMonths()
+    {
+        for (LocalDate startDate : START_DATES)
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                int[] paymentDate = new int[PAYMENTS];
+                PaymentDateSequencer.fill(paymentDate, startDate, paymentType);
+                for (int i = 0; i < PAYMENTS; i++)
+                {
+                    LocalDate expected = startDate.plusMonths(i + 1 - paymentType);
+                    assertEquals(startDate + "," + paymentType + " payment " + i, expected, LocalDate.ofEpochDay(paymentDate[i]));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void skipPassesOverTheSameDatesAsNext()
+    {
+        for (LocalDate startDate : START_DATES)
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                int[] paymentDate = new int[PAYMENTS];
+                PaymentDateSequencer.fill(paymentDate, startDate, paymentType);
+                for (int skipped = 0; skipped < PAYMENTS; skipped++)
+                {
+                    PaymentDateSequencer dates = new PaymentDateSequencer(startDate, paymentType);
+                    dates.skip(skipped);
+                    for (int i = skipped; i < Math.min(skipped + 3, PAYMENTS); i++)
+                    {
+                        assertEquals(startDate + "," + paymentType + " skipped " + skipped + " payment " + i, paymentDate[i], dates.next());
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package app.finance.core.service;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+public class PaymentServiceTest
+{
+    private static final double TOLERANCE = 1e-6;
+
+    private static final int[] DURATIONS = {1, 12, 360, 480};
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final double[] INTEREST_RATES = {0, 4.25, 18};
+    private static final double[] FUTURE_VALUES = {0, -100000};
+
+    private final PaymentService paymentService = new PaymentService();
+
+    @Test
+    public void cumulativeInterestAndPrincipalMatchSumsOfPeriods()
+    {
+        for (int nper : DURATIONS)
+        {
+            for (int type : PAYMENT_TYPES)
+            {
+                for (double interestRate : INTEREST_RATES)
+                {
+                    for (double fv : FUTURE_VALUES)
+                    {
+                        double r = paymentService.getMonthlyInterestRate(interestRate);
+                        int[][] ranges = {{1, nper}, {1, 1}, {nper, nper}, {1 + nper / 3, nper - nper / 4}};
+                        for (int[] range : ranges)
+                        {
+                            String loan = nper + "," + type + "," + interestRate + "," + fv + " periods " + range[0] + "-" + range[1];
+                            double interest = 0;
+                            double principal = 0;
+                            for (int per = range[0]; per <= range[1]; per++)
+                            {
+                                interest += paymentService.ipmt(r, per, nper, 300000, fv, type);
+                                principal += paymentService.ppmt(r, per, nper, 300000, fv, type);
+                            }
+                            assertEquals(loan + " cumipmt", interest, paymentService.cumipmt(r, nper, 300000, fv, type, range[0], range[1]), TOLERANCE);
+                            assertEquals(loan + " cumprinc", principal, paymentService.cumprinc(r, nper, 300000, fv, type, range[0], range[1]), TOLERANCE);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wholeLoanInterestForFactorMatchesCumipmt()
+    {
+        for (int nper : DURATIONS)
+        {
+            for (int type : PAYMENT_TYPES)
+            {
+                for (double interestRate : INTEREST_RATES)
+                {
+                    for (double fv : FUTURE_VALUES)
+                    {
+                        String loan = nper + "," + type + "," + interestRate + "," + fv;
+                        double r = paymentService.getMonthlyInterestRate(interestRate);
+                        double factor = Math.pow(1 + r, nper);
+                        double expected = paymentService.cumipmt(r, nper, 300000, fv, type, 1, nper);
+                        assertEquals(loan, expected, paymentService.cumipmtForFactor(r, nper, factor, 300000, fv, type), TOLERANCE);
+                        assertEquals(loan + " ranged", expected, paymentService.cumipmtForFactor(r, nper, factor, 300000, fv, type, 1, nper), TOLERANCE);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The bulk pmt and the factor forms evaluate the same expressions over the same Math.pow result as the scalar
+     * calls, with or without the factor table, so they must agree to the bit, including at rate 0 and past the
+     * periods the table holds.
+     */
+    @Test
+    public void bulkAndFactorFormsMatchScalarCallsToTheBit()
+    {
+        double[] interestRates = {0, 0.001, 4.25, 18, 99};
+        int[] durations = {1, 12, 360, 1200, 1500};
+        double[] initialBalances = {1000, 300000, 2750000};
+        int n = interestRates.length * durations.length * initialBalances.length;
+        double[] r = new double[n];
+        int[] nper = new int[n];
+        double[] pv = new double[n];
+        int i = 0;
+        for (double interestRate : interestRates)
+        {
+            for (int duration : durations)
+            {
+                for (double initialBalance : initialBalances)
+                {
+                    r[i] = paymentService.getMonthlyInterestRate(interestRate);
+                    nper[i] = duration;
+                    pv[i] = initialBalance;
+                    i++;
+                }
+            }
+        }
+
+        PaymentService tabled = new PaymentService(new CompoundingFactorTable(256, 1200, 4194304));
+        for (PaymentService service : new PaymentService[] {paymentService, tabled})
+        {
+            for (int type : PAYMENT_TYPES)
+            {
+                for (double fv : FUTURE_VALUES)
+                {
+                    double[] bulk = new double[n];
+                    service.pmt(r, nper, pv, fv, type, bulk);
+                    for (i = 0; i < n; i++)
+                    {
+                        String loan = r[i] + "," + nper[i] + "," + pv[i] + "," + fv + "," + type;
+                        double factor = Math.pow(1 + r[i], nper[i]);
+                        double pmt = service.pmt(r[i], nper[i], pv[i], fv, type);
+                        assertBitsEqual(loan + " bulk pmt", pmt, bulk[i]);
+                        assertBitsEqual(loan + " pmtForFactor", pmt, service.pmtForFactor(r[i], nper[i], factor, pv[i], fv, type));
+                        assertBitsEqual(loan + " fvForFactor", service.fv(r[i], nper[i], pmt, pv[i], type), service.fvForFactor(r[i], nper[i], factor, pmt, pv[i], type));
+                        assertBitsEqual(loan + " cumipmtForFactor", service.cumipmt(r[i], nper[i], pv[i], fv, type, 1, nper[i]),
+                                service.cumipmtForFactor(r[i], nper[i], factor, pv[i], fv, type, 1, nper[i]));
+                        int start = 1 + nper[i] / 3;
+                        assertBitsEqual(loan + " ranged cumipmtForFactor", service.cumipmt(r[i], nper[i], pv[i], fv, type, start, nper[i]),
+                                service.cumipmtForFactor(r[i], nper[i], factor, pv[i], fv, type, start, nper[i]));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void principalOverWholeLoanRunsBalanceToFutureValue()
+    {
+        double r = paymentService.getMonthlyInterestRate(4.25);
+        assertEquals(-300000, paymentService.cumprinc(r, 360, 300000, 0, 0, 1, 360), TOLERANCE);
+        assertEquals(-200000, paymentService.cumprinc(r, 360, 300000, -100000, 0, 1, 360), TOLERANCE);
+    }
+
+    @Test
+    public void emptyRangeIsZero()
+    {
+        double r = paymentService.getMonthlyInterestRate(4.25);
+        assertEquals(0, paymentService.cumipmt(r, 360, 300000, 0, 0, 13, 12), 0);
+        assertEquals(0, paymentService.cumprinc(r, 360, 300000, 0, 0, 13, 12), 0);
+    }
+
+    private static void assertBitsEqual(String message, double expected, double actual)
+    {
+        assertEquals(message + " expected " + expected + " but was " + actual, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+}
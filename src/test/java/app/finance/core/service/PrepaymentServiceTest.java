@@ -0,0 +1,203 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.ExtraPayment;
+import app.finance.core.model.LoanParameters;
+import app.finance.core.model.PrepaymentScenario;
+import app.finance.core.model.ScenarioComparison;
+import app.finance.core.model.ScenarioRequest;
+import app.finance.core.model.ScenarioResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrepaymentServiceTest
+{
+    private static final LocalDate START_DATE = LocalDate.of(2016, 1, 31);
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final double[] FUTURE_VALUES = {0, -100000};
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+    private PaymentService paymentService;
+    private PrepaymentService prepaymentService;
+
+    @Before
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class, PrepaymentService.class);
+        amortizationService = context.getBean(AmortizationService.class);
+        paymentService = context.getBean(PaymentService.class);
+        prepaymentService = context.getBean(PrepaymentService.class);
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    /**
+     * Scenarios without extra principal, whether they list no payments or only zero amounts, are the loan's
+     * regular schedule.
+     */
+    @Test
+    public void noExtraPaymentsMatchBaseSchedule()
+    {
+        for (int paymentType : PAYMENT_TYPES)
+        {
+            for (double futureValue : FUTURE_VALUES)
+            {
+                String loan = paymentType + "," + futureValue;
+                AmortizationSchedule base = amortizationService.getSchedule(START_DATE, 300000, 360, paymentType, 4.25, futureValue, AmortizationEngine.RECURRENCE);
+                ScenarioComparison comparison = prepaymentService.compare(loan(paymentType, futureValue),
+                        Arrays.asList(scenario("none"), scenario("zero", extraPayment(0, 1, 1))), true);
+                assertEquals(loan + " payment", paymentService.pmt(paymentService.getMonthlyInterestRate(4.25), 360, 300000, futureValue, paymentType),
+                        comparison.getMonthlyPayment(), 0);
+
+                for (ScenarioResult result : Arrays.asList(comparison.getBase(), comparison.getScenarios().get(0), comparison.getScenarios().get(1)))
+                {
+                    String scenario = loan + " " + result.getName();
+                    assertEquals(scenario + " payoff", 360, result.getPayoffPeriod());
+                    assertEquals(scenario + " payoff date", LocalDate.ofEpochDay(base.paymentDateAt(359)), result.getPayoffDate());
+                    assertEquals(scenario + " months saved", 0, result.getMonthsSaved());
+                    assertEquals(scenario + " extra paid", 0, result.getTotalExtraPaid(), 0);
+                    assertEquals(scenario + " interest", base.accumulatedInterestAt(359), result.getTotalInterest(), 0);
+                    assertEquals(scenario + " interest saved", 0, result.getInterestSaved(), 0);
+
+                    AmortizationSchedule schedule = result.getSchedule();
+                    assertEquals(scenario + " rows", base.size(), schedule.size());
+                    for (int i = 0; i < base.size(); i++)
+                    {
+                        String row = scenario + " row " + i;
+                        assertEquals(row + " payment date", base.paymentDateAt(i), schedule.paymentDateAt(i));
+                        assertEquals(row + " balance", base.balanceAt(i), schedule.balanceAt(i), 0);
+                        assertEquals(row + " principal", base.principalPaidAt(i), schedule.principalPaidAt(i), 0);
+                        assertEquals(row + " interest", base.interestPaidAt(i), schedule.interestPaidAt(i), 0);
+                        assertEquals(row + " accumulated interest", base.accumulatedInterestAt(i), schedule.accumulatedInterestAt(i), 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * After a lump sum with payment k the balance B is an ordinary loan at the same payment, which pays off in
+     * NPER = log(pmt / (pmt + r B)) / log(1 + r) further payments, the last of them partial.  A lump sum
+     * larger than the balance pays the loan off with payment k, and only what remained counts as paid.
+     */
+    @Test
+    public void lumpSumShortensPayoffByClosedForm()
+    {
+        double r = paymentService.getMonthlyInterestRate(4.25);
+        double pmt = paymentService.pmt(r, 360, 300000, 0, 0);
+        for (int k : new int[] {1, 24, 120, 300})
+        {
+            for (double amount : new double[] {1000, 50000, 150000})
+            {
+                String lumpSum = amount + " with payment " + k;
+                ScenarioResult result = prepaymentService.compare(loan(0, 0), Collections.singletonList(scenario("lump sum", extraPayment(amount, k, 0))), false)
+                        .getScenarios().get(0);
+
+                double balance = -paymentService.fv(r, k, pmt, 300000, 0) - amount;
+                int expected = (balance <= 0) ? k : k + (int) Math.ceil(Math.log(pmt / (pmt + r * balance)) / Math.log(1 + r) - 1e-9);
+                assertEquals(lumpSum + " payoff", expected, result.getPayoffPeriod());
+                assertEquals(lumpSum + " months saved", 360 - expected, result.getMonthsSaved());
+                assertEquals(lumpSum + " extra paid", amount + Math.min(balance, 0), result.getTotalExtraPaid(), 1e-6);
+                assertTrue(lumpSum + " interest saved", result.getInterestSaved() > 0);
+            }
+        }
+    }
+
+    /**
+     * An interval longer than the loan makes one payment, however large it is.
+     */
+    @Test
+    public void intervalsLongerThanTheLoanPayOnce()
+    {
+        ScenarioResult once = prepaymentService.compare(loan(0, 0), Collections.singletonList(scenario("once", extraPayment(10000, 24, 0))), false)
+                .getScenarios().get(0);
+        for (int interval : new int[] {360, 361, Integer.MAX_VALUE})
+        {
+            ExtraPayment extraPayment = extraPayment(10000, 24, interval);
+            ScenarioResult result = prepaymentService.compare(loan(0, 0), Collections.singletonList(scenario("every " + interval, extraPayment)), false)
+                    .getScenarios().get(0);
+            assertEquals("interval " + interval, once.getPayoffPeriod(), result.getPayoffPeriod());
+            assertEquals("interval " + interval, once.getTotalInterest(), result.getTotalInterest(), 0);
+        }
+    }
+
+    @Test
+    public void negativeAmountsAreRejected()
+    {
+        for (double amount : new double[] {-1, Double.NaN, Double.POSITIVE_INFINITY})
+        {
+            try
+            {
+                prepaymentService.compare(loan(0, 0), Collections.singletonList(scenario("bad", extraPayment(amount, 1, 0))), false);
+                fail(amount + " accepted");
+            }
+            catch (IllegalArgumentException expected)
+            {
+                assertEquals("extra payment amount must be a finite number and must not be negative: " + amount, expected.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void nullScenarioListsReadAsEmpty() throws IOException
+    {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        ScenarioRequest request = objectMapper.readValue("{\"loan\":{\"initialBalance\":300000,\"interestRate\":4.25,\"durationInMonths\":360},\"scenarios\":null}",
+                ScenarioRequest.class);
+        assertEquals(0, request.getScenarios().size());
+        assertEquals(0, prepaymentService.compare(request.getLoan(), request.getScenarios(), false).getScenarios().size());
+
+        request = objectMapper.readValue("{\"loan\":{\"initialBalance\":300000,\"interestRate\":4.25,\"durationInMonths\":360},"
+                + "\"scenarios\":[{\"name\":\"none\",\"extraPayments\":null}]}", ScenarioRequest.class);
+        ScenarioResult result = prepaymentService.compare(request.getLoan(), request.getScenarios(), false).getScenarios().get(0);
+        assertEquals(360, result.getPayoffPeriod());
+    }
+
+    private static LoanParameters loan(int paymentType, double futureValue)
+    {
+        LoanParameters loan = new LoanParameters();
+        loan.setStartDate(START_DATE);
+        loan.setInitialBalance(300000);
+        loan.setInterestRate(4.25);
+        loan.setDurationInMonths(360);
+        loan.setPaymentType(paymentType);
+        loan.setFutureValue(futureValue);
+        return loan;
+    }
+
+    private static PrepaymentScenario scenario(String name, ExtraPayment... extraPayments)
+    {
+        PrepaymentScenario scenario = new PrepaymentScenario();
+        scenario.setName(name);
+        scenario.setExtraPayments(Arrays.asList(extraPayments));
+        return scenario;
+    }
+
+    private static ExtraPayment extraPayment(double amount, int startPeriod, int intervalInMonths)
+    {
+        ExtraPayment extraPayment = new ExtraPayment();
+        extraPayment.setAmount(amount);
+        extraPayment.setStartPeriod(startPeriod);
+        extraPayment.setIntervalInMonths(intervalInMonths);
+        return extraPayment;
+    }
+}
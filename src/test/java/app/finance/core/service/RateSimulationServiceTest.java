@@ -0,0 +1,116 @@
+package app.finance.core.service;
+
+import app.finance.core.model.ArmTerms;
+import app.finance.core.model.SimulationResult;
+import app.finance.core.model.SimulationTerms;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class RateSimulationServiceTest
+{
+    private AnnotationConfigApplicationContext context;
+    private RateSimulationService rateSimulationService;
+
+    @Before
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                RateSimulationService.class);
+        rateSimulationService = context.getBean(RateSimulationService.class);
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    /**
+     * A one month loan can only prepay with its last payment, which pays it off in the same month as not
+     * prepaying, so the fraction prepaid is the monthly prepayment probability rather than zero.
+     */
+    @Test
+    public void prepaymentWithTheLastPaymentCounts()
+    {
+        SimulationResult result = rateSimulationService.simulate(300000, 1, 0, 4.25, 0, armTerms(), simulationTerms(99));
+        double monthlyProbability = 1 - Math.pow(0.01, 1 / 12.0);
+        assertEquals(monthlyProbability, result.getPrepaidFraction(), 0.02);
+        assertEquals(1, result.getPayoffPeriod().getMax(), 0);
+    }
+
+    @Test
+    public void noPrepaymentWithoutPrepaymentSpeed()
+    {
+        SimulationResult result = rateSimulationService.simulate(300000, 360, 0, 4.25, 0, armTerms(), simulationTerms(0));
+        assertEquals(0, result.getPrepaidFraction(), 0);
+        assertEquals(360, result.getPayoffPeriod().getMin(), 0);
+    }
+
+    @Test
+    public void seedRepeatsWhateverThePool()
+    {
+        SimulationTerms simulation = simulationTerms(6);
+        simulation.setPaths(3 * RateSimulationService.PATHS_PER_TASK + 1);
+        SimulationResult expected = rateSimulationService.simulate(300000, 360, 0, 4.25, 0, armTerms(), simulation);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try
+        {
+            SimulationResult actual = rateSimulationService.simulate(300000, 360, 0, 4.25, 0, armTerms(), simulation, pool);
+            assertEquals(expected.getInterestPaid().getMean(), actual.getInterestPaid().getMean(), 0);
+            assertEquals(expected.getPayoffPeriod().getP50(), actual.getPayoffPeriod().getP50(), 0);
+            assertEquals(expected.getPrepaidFraction(), actual.getPrepaidFraction(), 0);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void interruptedCallerStopsSimulation()
+    {
+        SimulationTerms simulation = simulationTerms(6);
+        simulation.setPaths(1);
+        Thread.currentThread().interrupt();
+        try
+        {
+            rateSimulationService.simulate(300000, 360, 0, 4.25, 0, armTerms(), simulation);
+            fail("interrupted simulation completed");
+        }
+        catch (CancellationException expected)
+        {
+        }
+        finally
+        {
+            Thread.interrupted();
+        }
+    }
+
+    private static ArmTerms armTerms()
+    {
+        ArmTerms terms = new ArmTerms();
+        terms.setFixedPeriodInMonths(60);
+        terms.setAdjustmentIntervalInMonths(12);
+        terms.setMargin(2.75);
+        terms.setInitialCap(2);
+        terms.setPeriodicCap(2);
+        terms.setLifetimeCap(5);
+        return terms;
+    }
+
+    private static SimulationTerms simulationTerms(double cpr)
+    {
+        SimulationTerms simulation = new SimulationTerms();
+        simulation.setSeed(42L);
+        simulation.setCpr(cpr);
+        simulation.setRefinanceSensitivity(0);
+        return simulation;
+    }
+}
@@ -0,0 +1,124 @@
+package app.finance.core.service;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.AmortizationSchedule;
+import app.finance.core.model.ScheduleFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import static org.junit.Assert.assertEquals;
+
+public class ScheduleExportServiceTest
+{
+    /** Largest difference allowed between the streamed rows and the cached schedule, on a 300,000 loan. */
+    private static final double TOLERANCE = 1e-6;
+
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final LocalDate START_DATE = LocalDate.of(2016, 1, 31);
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+    private ScheduleExportService scheduleExportService;
+
+    @Before
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class, ScheduleExportService.class);
+        amortizationService = context.getBean(AmortizationService.class);
+        scheduleExportService = context.getBean(ScheduleExportService.class);
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    @Test
+    public void jsonRowsMatchSchedule() throws IOException
+    {
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (int paymentType : PAYMENT_TYPES)
+        {
+            for (AmortizationEngine engine : AmortizationEngine.values())
+            {
+                String loan = paymentType + "," + engine;
+                AmortizationSchedule schedule = amortizationService.getSchedule(START_DATE, 300000, 360, paymentType, 4.25, -100000, engine);
+                JsonNode rows = objectMapper.readTree(export(paymentType, engine, ScheduleFormat.JSON));
+                assertEquals(loan + " rows", schedule.size(), rows.size());
+                for (int i = 0; i < schedule.size(); i++)
+                {
+                    JsonNode row = rows.get(i);
+                    assertRowEquals(loan + " row " + i, schedule, i, engine, row.get("paymentNumber").asInt(), row.get("paymentDate").asText(),
+                            row.get("balance").asDouble(), row.get("principalPaid").asDouble(), row.get("interestPaid").asDouble(), row.get("accumulatedInterest").asDouble());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void ndjsonRowsMatchSchedule() throws IOException
+    {
+        ObjectMapper objectMapper = new ObjectMapper();
+        AmortizationSchedule schedule = amortizationService.getSchedule(START_DATE, 300000, 360, 0, 4.25, -100000, AmortizationEngine.RECURRENCE);
+        String[] lines = export(0, AmortizationEngine.RECURRENCE, ScheduleFormat.NDJSON).split("\n");
+        assertEquals(schedule.size(), lines.length);
+        for (int i = 0; i < schedule.size(); i++)
+        {
+            JsonNode row = objectMapper.readTree(lines[i]);
+            assertRowEquals("row " + i, schedule, i, AmortizationEngine.RECURRENCE, row.get("paymentNumber").asInt(), row.get("paymentDate").asText(),
+                    row.get("balance").asDouble(), row.get("principalPaid").asDouble(), row.get("interestPaid").asDouble(), row.get("accumulatedInterest").asDouble());
+        }
+    }
+
+    @Test
+    public void csvRowsMatchSchedule() throws IOException
+    {
+        for (int paymentType : PAYMENT_TYPES)
+        {
+            for (AmortizationEngine engine : AmortizationEngine.values())
+            {
+                String loan = paymentType + "," + engine;
+                AmortizationSchedule schedule = amortizationService.getSchedule(START_DATE, 300000, 360, paymentType, 4.25, -100000, engine);
+                String[] lines = export(paymentType, engine, ScheduleFormat.CSV).split("\r\n");
+                assertEquals(loan + " header", "paymentNumber,paymentDate,balance,principalPaid,interestPaid,accumulatedInterest", lines[0]);
+                assertEquals(loan + " rows", schedule.size(), lines.length - 1);
+                for (int i = 0; i < schedule.size(); i++)
+                {
+                    String[] fields = lines[i + 1].split(",", -1);
+                    assertEquals(loan + " row " + i + " fields", 6, fields.length);
+                    assertRowEquals(loan + " row " + i, schedule, i, engine, Integer.parseInt(fields[0]), fields[1],
+                            Double.parseDouble(fields[2]), Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[5]));
+                }
+            }
+        }
+    }
+
+    private String export(int paymentType, AmortizationEngine engine, ScheduleFormat format) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        scheduleExportService.write(amortizationService.openCursor(START_DATE, 300000, 360, paymentType, 4.25, -100000, engine), format, out);
+        return out.toString();
+    }
+
+    /** Exact cents rows are the same on every path; the other engines' cached schedules are scaled unit columns. */
+    private static void assertRowEquals(String row, AmortizationSchedule schedule, int i, AmortizationEngine engine, int paymentNumber, String paymentDate,
+                                        double balance, double principalPaid, double interestPaid, double accumulatedInterest)
+    {
+        double tolerance = (engine == AmortizationEngine.EXACT_CENTS) ? 0 : TOLERANCE;
+        assertEquals(row + " payment number", schedule.paymentNumberAt(i), paymentNumber);
+        assertEquals(row + " payment date", LocalDate.ofEpochDay(schedule.paymentDateAt(i)).toString(), paymentDate);
+        assertEquals(row + " balance", schedule.balanceAt(i), balance, tolerance);
+        assertEquals(row + " principal", schedule.principalPaidAt(i), principalPaid, tolerance);
+        assertEquals(row + " interest", schedule.interestPaidAt(i), interestPaid, tolerance);
+        assertEquals(row + " accumulated interest", schedule.accumulatedInterestAt(i), accumulatedInterest, tolerance);
+    }
+}
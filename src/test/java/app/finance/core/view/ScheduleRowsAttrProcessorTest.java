@@ -0,0 +1,109 @@
+package app.finance.core.view;
+
+import app.finance.core.model.AmortizationEngine;
+import app.finance.core.model.MonthlyAmortizationSchedule;
+import app.finance.core.service.AmortizationService;
+import app.finance.core.service.CompoundingFactorTable;
+import app.finance.core.service.PaymentService;
+import app.finance.core.service.ScheduleCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.extras.java8time.dialect.Java8TimeDialect;
+import org.thymeleaf.spring4.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import java.time.LocalDate;
+import java.util.Locale;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScheduleRowsAttrProcessorTest
+{
+    private static final int[] DURATIONS = {1, 12, 360};
+    private static final int[] PAYMENT_TYPES = {0, 1};
+    private static final double[] INTEREST_RATES = {0, 4.25, 18};
+    private static final double[] FUTURE_VALUES = {0, -100000, 100000};
+
+    private AnnotationConfigApplicationContext context;
+    private AmortizationService amortizationService;
+    private SpringTemplateEngine templateEngine;
+
+    @Before
+    public void setUp()
+    {
+        context = new AnnotationConfigApplicationContext(PropertySourcesPlaceholderConfigurer.class, CompoundingFactorTable.class, PaymentService.class,
+                ScheduleCache.class, AmortizationService.class);
+        amortizationService = context.getBean(AmortizationService.class);
+
+        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
+        templateResolver.setPrefix("templates/");
+        templateResolver.setSuffix(".html");
+        templateResolver.setTemplateMode("HTML5");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.addDialect(new Java8TimeDialect());
+        templateEngine.addDialect(new ScheduleDialect());
+    }
+
+    @After
+    public void tearDown()
+    {
+        context.close();
+    }
+
+    /**
+     * schedule-rows-expressions.html holds the th:each rows schedule.html had before the dialect; the written
+     * rows must read the same once the whitespace the template put between tags is dropped.
+     */
+    @Test
+    public void rowsMatchExpressionTemplate()
+    {
+        for (int durationInMonths : DURATIONS)
+        {
+            for (int paymentType : PAYMENT_TYPES)
+            {
+                for (double interestRate : INTEREST_RATES)
+                {
+                    for (double futureValue : FUTURE_VALUES)
+                    {
+                        for (Locale locale : new Locale[] {Locale.US, Locale.GERMANY})
+                        {
+                            String loan = durationInMonths + "," + paymentType + "," + interestRate + "," + futureValue + "," + locale;
+                            Context model = new Context(locale);
+                            model.setVariable("monthlyAmortizationSchedule", schedule(durationInMonths, paymentType, interestRate, futureValue));
+                            String expected = tbody(templateEngine.process("schedule-rows-expressions", model));
+                            String actual = tbody(templateEngine.process("schedule", model));
+                            assertEquals(loan + " rows", durationInMonths, actual.split("</tr>").length);
+                            assertEquals(loan, expected, actual);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private MonthlyAmortizationSchedule schedule(int durationInMonths, int paymentType, double interestRate, double futureValue)
+    {
+        MonthlyAmortizationSchedule schedule = new MonthlyAmortizationSchedule();
+        schedule.setStartDate(LocalDate.of(2016, 1, 31));
+        schedule.setInitialBalance(300000);
+        schedule.setInterestRate(interestRate);
+        schedule.setDurationInMonths(durationInMonths);
+        schedule.setPaymentType(paymentType);
+        schedule.setFutureValue(futureValue);
+        schedule.setEngine(AmortizationEngine.RECURRENCE);
+        amortizationService.initializeUnknownFields(schedule);
+        return schedule;
+    }
+
+    private static String tbody(String html)
+    {
+        int start = html.indexOf("<tbody>");
+        int end = html.indexOf("</tbody>");
+        assertTrue(html, start >= 0 && end > start);
+        return html.substring(start + "<tbody>".length(), end).replaceAll(">\\s+<", "><").trim();
+    }
+}